@@ -16,14 +16,21 @@ package org.alfresco.dataprep;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.httpclient.Cookie;
@@ -53,6 +60,7 @@ import org.apache.http.util.EntityUtils;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.JSONValue;
+import org.json.simple.parser.ContentHandler;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 
@@ -572,6 +580,368 @@ public class AlfrescoHttpClient
         return (JSONArray) jsonObject.get(arrayName);
     }
     
+    /**
+     * Count the items of a JSON array while streaming the response, without
+     * building the JSON objects in memory.
+     * 
+     * @param response HttpResponse the request response
+     * @param path String names of the objects leading to the array, none if the response is the array
+     * @return int number of items in the array
+     */
+    public int countJsonArrayItems(HttpResponse response,
+                                   String... path)
+    {
+        ArrayItemCounter counter = new ArrayItemCounter(Arrays.asList(path));
+        HttpEntity entity = response.getEntity();
+        try (Reader reader = new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8))
+        {
+            new JSONParser().parse(reader, counter);
+        }
+        catch (IOException | ParseException e)
+        {
+            throw new RuntimeException("Failed to read the response", e);
+        }
+        finally
+        {
+            EntityUtils.consumeQuietly(entity);
+        }
+        return counter.count;
+    }
+
+    /**
+     * Count the objects of nested JSON arrays while streaming the response, e.g. the replies
+     * of a discussion at every depth with the array names "items", "children". Every object that
+     * is an item of an array with one of the names is counted, wherever the array is.
+     * 
+     * @param response HttpResponse the request response
+     * @param arrayNames String names of the arrays holding the counted objects
+     * @return int number of objects in the arrays
+     */
+    public int countNestedJsonItems(HttpResponse response,
+                                    String... arrayNames)
+    {
+        NestedItemCounter counter = new NestedItemCounter(new HashSet<String>(Arrays.asList(arrayNames)));
+        HttpEntity entity = response.getEntity();
+        try (Reader reader = new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8))
+        {
+            new JSONParser().parse(reader, counter);
+        }
+        catch (IOException | ParseException e)
+        {
+            throw new RuntimeException("Failed to read the response", e);
+        }
+        finally
+        {
+            EntityUtils.consumeQuietly(entity);
+        }
+        return counter.count;
+    }
+
+    /**
+     * Read a single value while streaming the response, the parsing stops as soon
+     * as the value is found and the rest of the response is discarded.
+     * 
+     * @param response HttpResponse the request response
+     * @param path String names of the objects leading to the value, the last one being the value name
+     * @return String the value, null if not found
+     */
+    public String readJsonValue(HttpResponse response,
+                                String... path)
+    {
+        List<String> values = readJsonValues(response, true, path);
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * Read all the values found at a path while streaming the response, without building
+     * the JSON objects in memory. Arrays met on the way are walked through, e.g. the path
+     * "people", "userName" gives the user name of every item of the people array.
+     * 
+     * @param response HttpResponse the request response
+     * @param path String names of the objects leading to the values, the last one being the value name
+     * @return List<String> the values, in the order of the response
+     */
+    public List<String> readJsonValues(HttpResponse response,
+                                       String... path)
+    {
+        return readJsonValues(response, false, path);
+    }
+
+    private List<String> readJsonValues(HttpResponse response,
+                                        boolean firstOnly,
+                                        String... path)
+    {
+        ValueReader reader = new ValueReader(Arrays.asList(path), firstOnly);
+        HttpEntity entity = response.getEntity();
+        try (Reader content = new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8))
+        {
+            new JSONParser().parse(content, reader);
+        }
+        catch (IOException | ParseException e)
+        {
+            throw new RuntimeException("Failed to read the response", e);
+        }
+        finally
+        {
+            EntityUtils.consumeQuietly(entity);
+        }
+        return reader.values;
+    }
+
+    /**
+     * Streaming handler that keeps the primitives found at a given path of object entries,
+     * stopping at the first one if asked to.
+     */
+    private static class ValueReader implements ContentHandler
+    {
+        private final List<String> path;
+        private final boolean firstOnly;
+        private final Deque<String> keys = new ArrayDeque<String>();
+        private final List<String> values = new ArrayList<String>();
+
+        ValueReader(List<String> path,
+                    boolean firstOnly)
+        {
+            this.path = path;
+            this.firstOnly = firstOnly;
+        }
+
+        public void startJSON()
+        {
+        }
+
+        public void endJSON()
+        {
+        }
+
+        public boolean startObject()
+        {
+            return true;
+        }
+
+        public boolean endObject()
+        {
+            return true;
+        }
+
+        public boolean startObjectEntry(String key)
+        {
+            keys.push(key);
+            return true;
+        }
+
+        public boolean endObjectEntry()
+        {
+            keys.pop();
+            return true;
+        }
+
+        public boolean startArray()
+        {
+            return true;
+        }
+
+        public boolean endArray()
+        {
+            return true;
+        }
+
+        public boolean primitive(Object primitive)
+        {
+            if(keys.size() == path.size())
+            {
+                Iterator<String> it = keys.descendingIterator();
+                for(String name : path)
+                {
+                    if(!name.equals(it.next()))
+                    {
+                        return true;
+                    }
+                }
+                values.add(primitive == null ? null : primitive.toString());
+                return !firstOnly;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Streaming handler that counts the items of the array found at a given path.
+     */
+    private static class ArrayItemCounter implements ContentHandler
+    {
+        private final List<String> path;
+        private final Deque<String> keys = new ArrayDeque<String>();
+        private final Deque<Boolean> arrays = new ArrayDeque<Boolean>();
+        private String currentKey = "";
+        private int count;
+
+        ArrayItemCounter(List<String> path)
+        {
+            this.path = path;
+        }
+
+        private boolean atPath()
+        {
+            if(arrays.isEmpty() || !arrays.peek() || keys.size() != path.size() + 1)
+            {
+                return false;
+            }
+            Iterator<String> it = keys.descendingIterator();
+            it.next();
+            for(String name : path)
+            {
+                if(!name.equals(it.next()))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void push(boolean array)
+        {
+            boolean inArray = !arrays.isEmpty() && arrays.peek();
+            if(inArray && atPath())
+            {
+                count++;
+            }
+            keys.push(inArray ? "" : currentKey);
+            arrays.push(array);
+            currentKey = "";
+        }
+
+        private boolean pop()
+        {
+            keys.pop();
+            arrays.pop();
+            return true;
+        }
+
+        public void startJSON()
+        {
+        }
+
+        public void endJSON()
+        {
+        }
+
+        public boolean startObject()
+        {
+            push(false);
+            return true;
+        }
+
+        public boolean endObject()
+        {
+            return pop();
+        }
+
+        public boolean startObjectEntry(String key)
+        {
+            currentKey = key;
+            return true;
+        }
+
+        public boolean endObjectEntry()
+        {
+            currentKey = "";
+            return true;
+        }
+
+        public boolean startArray()
+        {
+            push(true);
+            return true;
+        }
+
+        public boolean endArray()
+        {
+            return pop();
+        }
+
+        public boolean primitive(Object value)
+        {
+            if(atPath())
+            {
+                count++;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Streaming handler counting the objects held by the arrays with the given names
+     */
+    private static class NestedItemCounter implements ContentHandler
+    {
+        private final Set<String> arrayNames;
+        /** name of each open array, "" for the objects and unnamed arrays */
+        private final Deque<String> containers = new ArrayDeque<String>();
+        private String currentKey = "";
+        private int count;
+
+        NestedItemCounter(Set<String> arrayNames)
+        {
+            this.arrayNames = arrayNames;
+        }
+
+        public void startJSON()
+        {
+        }
+
+        public void endJSON()
+        {
+        }
+
+        public boolean startObject()
+        {
+            if(!containers.isEmpty() && arrayNames.contains(containers.peek()))
+            {
+                count++;
+            }
+            containers.push("");
+            currentKey = "";
+            return true;
+        }
+
+        public boolean endObject()
+        {
+            containers.pop();
+            return true;
+        }
+
+        public boolean startObjectEntry(String key)
+        {
+            currentKey = key;
+            return true;
+        }
+
+        public boolean endObjectEntry()
+        {
+            currentKey = "";
+            return true;
+        }
+
+        public boolean startArray()
+        {
+            containers.push(currentKey);
+            currentKey = "";
+            return true;
+        }
+
+        public boolean endArray()
+        {
+            containers.pop();
+            return true;
+        }
+
+        public boolean primitive(Object value)
+        {
+            return true;
+        }
+    }
+
     /**
      * Closes the HttpClient. 
      * @throws IOException if error
@@ -0,0 +1,278 @@
+/*
+ * Copyright (C) 2005-2015 Alfresco Software Limited.
+ * This file is part of Alfresco
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.alfresco.dataprep;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Runs the same operation over a batch of items on a fixed number of threads.
+ * Each item gets its own {@link Result}, failures don't stop the batch.
+ * <p>
+ * {@link AlfrescoHttpClient} is not thread safe, operations should get their own
+ * client from {@link AlfrescoHttpClientFactory}, as the services already do.
+ */
+public final class BatchExecutor
+{
+    private static Log logger = LogFactory.getLog(BatchExecutor.class);
+    public static final int DEFAULT_THREADS = 4;
+
+    private BatchExecutor()
+    {
+    }
+
+    /**
+     * Notified each time an item of the batch is done. Called from the worker threads.
+     */
+    public interface ProgressListener
+    {
+        void onProgress(int completed, int failed);
+    }
+
+    /**
+     * Outcome of the operation for one item
+     */
+    public static class Result<T, R>
+    {
+        private final T item;
+        private final R value;
+        private final Throwable error;
+        private final long durationMillis;
+
+        public Result(final T item,
+                      final R value,
+                      final Throwable error,
+                      final long durationMillis)
+        {
+            this.item = item;
+            this.value = value;
+            this.error = error;
+            this.durationMillis = durationMillis;
+        }
+
+        public T getItem()
+        {
+            return item;
+        }
+
+        public R getValue()
+        {
+            return value;
+        }
+
+        public Throwable getError()
+        {
+            return error;
+        }
+
+        public long getDurationMillis()
+        {
+            return durationMillis;
+        }
+
+        /**
+         * @return true if no exception was thrown and the operation didn't return false
+         */
+        public boolean isSuccessful()
+        {
+            return error == null && !Boolean.FALSE.equals(value);
+        }
+    }
+
+    /**
+     * Aggregated counters of one or more batches
+     */
+    public static class Report
+    {
+        private final AtomicInteger succeeded = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final List<String> failures = Collections.synchronizedList(new ArrayList<String>());
+        private final long start = System.currentTimeMillis();
+        private volatile long end;
+
+        public void add(final Result<?, ?> result)
+        {
+            if(result.isSuccessful())
+            {
+                succeeded.incrementAndGet();
+            }
+            else
+            {
+                failed.incrementAndGet();
+                String reason = result.getError() == null ? "returned false" : result.getError().getMessage();
+                failures.add(result.getItem() + ": " + reason);
+            }
+            end = System.currentTimeMillis();
+        }
+
+        public void addAll(final Collection<? extends Result<?, ?>> results)
+        {
+            for(Result<?, ?> result : results)
+            {
+                add(result);
+            }
+        }
+
+        public int getSucceeded()
+        {
+            return succeeded.get();
+        }
+
+        public int getFailed()
+        {
+            return failed.get();
+        }
+
+        public int getTotal()
+        {
+            return succeeded.get() + failed.get();
+        }
+
+        /**
+         * @return List<String> item and reason for each failed item
+         */
+        public List<String> getFailures()
+        {
+            return failures;
+        }
+
+        public long getElapsedMillis()
+        {
+            return (end == 0 ? System.currentTimeMillis() : end) - start;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("succeeded: %d, failed: %d, elapsed: %d ms", getSucceeded(), getFailed(), getElapsedMillis());
+        }
+    }
+
+    /**
+     * Apply the operation to every item
+     *
+     * @param items items to process
+     * @param threads number of parallel workers
+     * @param operation the operation to apply
+     * @return List of {@link Result} in the same order as the items
+     */
+    public static <T, R> List<Result<T, R>> execute(final Collection<T> items,
+                                                    final int threads,
+                                                    final Function<T, R> operation)
+    {
+        return execute(items, threads, operation, null);
+    }
+
+    /**
+     * Apply the operation to every item and report the progress
+     *
+     * @param items items to process
+     * @param threads number of parallel workers
+     * @param operation the operation to apply
+     * @param listener {@link ProgressListener} can be null
+     * @return List of {@link Result} in the same order as the items
+     */
+    public static <T, R> List<Result<T, R>> execute(final Collection<T> items,
+                                                    final int threads,
+                                                    final Function<T, R> operation,
+                                                    final ProgressListener listener)
+    {
+        if(items == null || operation == null || threads < 1)
+        {
+            throw new IllegalArgumentException("Parameter missing");
+        }
+        List<Result<T, R>> results = new ArrayList<Result<T, R>>(items.size());
+        if(items.isEmpty())
+        {
+            return results;
+        }
+        final AtomicInteger completed = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, items.size()));
+        try
+        {
+            List<Future<Result<T, R>>> futures = new ArrayList<Future<Result<T, R>>>(items.size());
+            for(final T item : items)
+            {
+                futures.add(executor.submit(new Callable<Result<T, R>>()
+                {
+                    public Result<T, R> call()
+                    {
+                        Result<T, R> result = apply(item, operation);
+                        if(!result.isSuccessful())
+                        {
+                            failed.incrementAndGet();
+                        }
+                        int done = completed.incrementAndGet();
+                        if(listener != null)
+                        {
+                            listener.onProgress(done, failed.get());
+                        }
+                        return result;
+                    }
+                }));
+            }
+            for(Future<Result<T, R>> future : futures)
+            {
+                results.add(future.get());
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Batch execution was interrupted", e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new RuntimeException("Batch execution failed", e.getCause());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    private static <T, R> Result<T, R> apply(final T item,
+                                             final Function<T, R> operation)
+    {
+        long start = System.currentTimeMillis();
+        try
+        {
+            R value = operation.apply(item);
+            return new Result<T, R>(item, value, null, System.currentTimeMillis() - start);
+        }
+        catch (RuntimeException e)
+        {
+            if(logger.isTraceEnabled())
+            {
+                logger.trace("Operation failed for " + item, e);
+            }
+            return new Result<T, R>(item, null, e, System.currentTimeMillis() - start);
+        }
+    }
+}
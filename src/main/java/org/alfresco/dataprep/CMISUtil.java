@@ -16,7 +16,10 @@ package org.alfresco.dataprep;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -276,6 +279,48 @@ public class CMISUtil
         return nodeRef;
     }
 
+    /**
+     * Gets the object ids for several documents or folders from a site with a single
+     * walk of the document library. Safe to be called from parallel threads.
+     * 
+     * @param session Session Cmis session
+     * @param siteName String site identifier
+     * @param contentNames Collection<String> content names
+     * @return Map<String, String> content name to node identifier, for the contents found
+     * @throws CmisRuntimeException if site is not found
+     */
+    public Map<String, String> getNodeRefs(final Session session,
+                                           final String siteName,
+                                           final Collection<String> contentNames)
+    {
+        Map<String, String> wanted = new HashMap<String, String>();
+        for(String contentName : contentNames)
+        {
+            wanted.put(contentName.toLowerCase(), contentName);
+        }
+        Map<String, String> nodeRefs = new HashMap<String, String>();
+        try
+        {
+            Folder documentLibrary = (Folder) session.getObjectByPath("/Sites/" + siteName + "/documentLibrary");
+            Deque<Tree<FileableCmisObject>> trees = new ArrayDeque<Tree<FileableCmisObject>>(documentLibrary.getDescendants(-1));
+            while(!trees.isEmpty() && nodeRefs.size() < wanted.size())
+            {
+                Tree<FileableCmisObject> tree = trees.poll();
+                String name = wanted.get(tree.getItem().getName().toLowerCase());
+                if(name != null && !nodeRefs.containsKey(name))
+                {
+                    nodeRefs.put(name, tree.getItem().getId().split(";")[0]);
+                }
+                trees.addAll(tree.getChildren());
+            }
+        }
+        catch(CmisObjectNotFoundException nf)
+        {
+            throw new CmisRuntimeException("Site doesn't exists: " + siteName, nf);
+        }
+        return nodeRefs;
+    }
+
     private Map<String, String> getId(Tree<FileableCmisObject> tree,
                                       final String contentName)
     { 
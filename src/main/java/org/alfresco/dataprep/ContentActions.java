@@ -18,24 +18,48 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+import org.alfresco.dataprep.BatchExecutor.Report;
+import org.alfresco.dataprep.BatchExecutor.Result;
 
 import org.apache.chemistry.opencmis.client.api.CmisObject;
 import org.apache.chemistry.opencmis.client.api.Document;
 import org.apache.chemistry.opencmis.client.api.FileableCmisObject;
 import org.apache.chemistry.opencmis.client.api.Folder;
 import org.apache.chemistry.opencmis.client.api.ObjectId;
+import org.apache.chemistry.opencmis.client.api.OperationContext;
+import org.apache.chemistry.opencmis.client.api.QueryResult;
+import org.apache.chemistry.opencmis.client.api.QueryStatement;
 import org.apache.chemistry.opencmis.client.api.Session;
 import org.apache.chemistry.opencmis.client.api.Tree;
 import org.apache.chemistry.opencmis.commons.PropertyIds;
 import org.apache.chemistry.opencmis.commons.data.ContentStream;
+import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
+import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisContentAlreadyExistsException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisObjectNotFoundException;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisStorageException;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisVersioningException;
+import org.apache.chemistry.opencmis.commons.spi.Holder;
+import org.apache.chemistry.opencmis.commons.spi.VersioningService;
+import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -73,6 +97,545 @@ public class ContentActions extends CMISUtil
         }
     }     
     private static Log logger = LogFactory.getLog(ContentActions.class);
+    private static final int FAVORITES_PAGE_SIZE = 100;
+    private static final int ACTIONS_PAGE_SIZE = 100;
+    private static final int VERSION_QUERY_BATCH_SIZE = 100;
+
+    /**
+     * Tags to be set on many nodes by {@link ContentActions#tagContents} and {@link ContentActions#tagNodes}.
+     * The tags of a node are drawn from the vocabulary with a Zipf distribution, the first tags
+     * of the vocabulary being the most frequent. The draw is seeded per content, the same spec
+     * gives the same tags to a content.
+     */
+    public static class TaggingSpec
+    {
+        private final List<String> vocabulary;
+        private final long seed;
+        private ZipfDistribution distribution;
+        private int minTags = 1;
+        private int maxTags = 3;
+
+        /**
+         * @param vocabulary List<String> tags, most frequent first
+         * @param seed long seed of the draw
+         */
+        public TaggingSpec(final List<String> vocabulary,
+                           final long seed)
+        {
+            if(vocabulary == null || vocabulary.isEmpty())
+            {
+                throw new IllegalArgumentException("Parameter missing");
+            }
+            this.vocabulary = new ArrayList<String>(vocabulary);
+            this.seed = seed;
+            this.distribution = new ZipfDistribution(vocabulary.size(), 1);
+        }
+
+        /**
+         * @param exponent double skew of the tag frequencies, 0 for uniform (default 1)
+         */
+        public TaggingSpec setExponent(final double exponent)
+        {
+            this.distribution = new ZipfDistribution(vocabulary.size(), exponent);
+            return this;
+        }
+
+        /**
+         * @param min int minimum number of tags of a node
+         * @param max int maximum number of tags of a node
+         */
+        public TaggingSpec setTagsPerNode(final int min,
+                                          final int max)
+        {
+            if(min < 1 || max < min)
+            {
+                throw new IllegalArgumentException("Invalid number of tags");
+            }
+            this.minTags = min;
+            this.maxTags = max;
+            return this;
+        }
+
+        public List<String> getVocabulary()
+        {
+            return vocabulary;
+        }
+
+        /**
+         * Draw the tags of a content
+         * 
+         * @param key String content name or node ref
+         * @return List<String> distinct tags
+         */
+        public List<String> getTags(final String key)
+        {
+            Random random = new Random(Objects.hash(seed, key));
+            int count = Math.min(minTags + random.nextInt(maxTags - minTags + 1), vocabulary.size());
+            Set<String> tags = new LinkedHashSet<String>();
+            // highly skewed distributions rarely draw the last ranks, don't insist
+            for(int attempt = 0; tags.size() < count && attempt < count * 20; attempt++)
+            {
+                tags.add(vocabulary.get(distribution.sample(random)));
+            }
+            return new ArrayList<String>(tags);
+        }
+    }
+
+    /**
+     * What to do when an item with the same name already exists in the target folder
+     */
+    public enum ConflictStrategy
+    {
+        /** add -1, -2... to the name */
+        SUFFIX,
+        /** leave the item where it is */
+        SKIP,
+        /** report the item as failed */
+        FAIL;
+    }
+
+    /**
+     * Move and/or rename of a document or folder, by path
+     */
+    public static class Relocation
+    {
+        private final String sourcePath;
+        private final String targetFolderPath;
+        private final String newName;
+
+        /**
+         * @param sourcePath String path of the item (e.g. /Sites/siteId/documentLibrary/doc.txt)
+         * @param targetFolderPath String path of the folder to move to, null to keep the item in its folder
+         * @param newName String new name, null to keep the name
+         */
+        public Relocation(final String sourcePath,
+                          final String targetFolderPath,
+                          final String newName)
+        {
+            if(StringUtils.isEmpty(sourcePath) || (StringUtils.isEmpty(targetFolderPath) && StringUtils.isEmpty(newName)))
+            {
+                throw new IllegalArgumentException("Parameter missing");
+            }
+            this.sourcePath = StringUtils.removeEnd(sourcePath, "/");
+            this.targetFolderPath = targetFolderPath == null ? null : StringUtils.removeEnd(targetFolderPath, "/");
+            this.newName = newName;
+        }
+
+        public static Relocation move(final String sourcePath,
+                                      final String targetFolderPath)
+        {
+            return new Relocation(sourcePath, targetFolderPath, null);
+        }
+
+        public static Relocation rename(final String sourcePath,
+                                        final String newName)
+        {
+            return new Relocation(sourcePath, null, newName);
+        }
+
+        public String getSourcePath()
+        {
+            return sourcePath;
+        }
+
+        /**
+         * @return String path of the folder the item will be in
+         */
+        public String getTargetFolderPath()
+        {
+            return targetFolderPath != null ? targetFolderPath : StringUtils.substringBeforeLast(sourcePath, "/");
+        }
+
+        public String getNewName()
+        {
+            return newName;
+        }
+
+        @Override
+        public String toString()
+        {
+            return sourcePath;
+        }
+    }
+
+    /**
+     * Permissions of a node to be set by {@link ContentActions#applyPermissions}, all the entries
+     * are sent in a single request.
+     */
+    public static class NodePermissions
+    {
+        private final String node;
+        private boolean inherit = true;
+        private final List<String[]> entries = new ArrayList<String[]>();
+
+        /**
+         * @param node String node ref or path of the document or folder (e.g. /Sites/siteId/documentLibrary/doc.txt)
+         */
+        public NodePermissions(final String node)
+        {
+            if(StringUtils.isEmpty(node))
+            {
+                throw new IllegalArgumentException("Parameter missing");
+            }
+            this.node = node;
+        }
+
+        public NodePermissions setInheritPermissions(final boolean inherit)
+        {
+            this.inherit = inherit;
+            return this;
+        }
+
+        /**
+         * @param authority String user name or group authority (GROUP_name)
+         * @param role String role (e.g. SiteCollaborator)
+         */
+        public NodePermissions addPermission(final String authority,
+                                             final String role)
+        {
+            entries.add(new String[] { authority, role, null });
+            return this;
+        }
+
+        /**
+         * @param authority String user name or group authority (GROUP_name)
+         * @param role String role (e.g. SiteCollaborator)
+         */
+        public NodePermissions removePermission(final String authority,
+                                                final String role)
+        {
+            entries.add(new String[] { authority, role, "remove" });
+            return this;
+        }
+
+        public String getNode()
+        {
+            return node;
+        }
+
+        public boolean isInheritPermissions()
+        {
+            return inherit;
+        }
+
+        @SuppressWarnings("unchecked")
+        private JSONArray toJSON()
+        {
+            JSONArray array = new JSONArray();
+            for(String[] entry : entries)
+            {
+                JSONObject permission = new JSONObject();
+                permission.put("authority", entry[0]);
+                permission.put("role", entry[1]);
+                if(entry[2] != null)
+                {
+                    permission.put("remove", true);
+                }
+                array.add(permission);
+            }
+            return array;
+        }
+
+        @Override
+        public String toString()
+        {
+            return node;
+        }
+    }
+
+    /**
+     * Versions to be created on many documents by {@link ContentActions#createVersionHistory}.
+     * The content of each version is asked to the generator when the version is checked in and is
+     * streamed to the server as it is read, it is never held in memory by the generator.
+     */
+    public static class VersionHistorySpec
+    {
+        private final int versions;
+        private int majorEvery = 0;
+        private String comment;
+        private BiFunction<String, Integer, InputStream> contentGenerator = (name, version) ->
+                new ByteArrayInputStream(("Version " + version + " of " + name).getBytes(StandardCharsets.UTF_8));
+
+        /**
+         * @param versions int number of versions to create on each document
+         */
+        public VersionHistorySpec(final int versions)
+        {
+            if(versions < 1)
+            {
+                throw new IllegalArgumentException("Invalid number of versions");
+            }
+            this.versions = versions;
+        }
+
+        /**
+         * @param majorEvery int every n-th version is a major one, 0 for minor versions only (default)
+         */
+        public VersionHistorySpec setMajorEvery(final int majorEvery)
+        {
+            if(majorEvery < 0)
+            {
+                throw new IllegalArgumentException("Invalid major version interval");
+            }
+            this.majorEvery = majorEvery;
+            return this;
+        }
+
+        /**
+         * @param comment String check in comment, the version number is appended
+         */
+        public VersionHistorySpec setComment(final String comment)
+        {
+            this.comment = comment;
+            return this;
+        }
+
+        /**
+         * @param contentGenerator BiFunction<String, Integer, InputStream> content of a version from the
+         * document name and the version number (starting at 1), the stream is closed once checked in
+         */
+        public VersionHistorySpec setContentGenerator(final BiFunction<String, Integer, InputStream> contentGenerator)
+        {
+            if(contentGenerator == null)
+            {
+                throw new IllegalArgumentException("Parameter missing");
+            }
+            this.contentGenerator = contentGenerator;
+            return this;
+        }
+
+        public int getVersions()
+        {
+            return versions;
+        }
+
+        public boolean isMajor(final int version)
+        {
+            return majorEvery > 0 && version % majorEvery == 0;
+        }
+
+        public String getComment(final int version)
+        {
+            return comment == null ? null : comment + " " + version;
+        }
+
+        public InputStream getContent(final String name,
+                                      final int version)
+        {
+            return contentGenerator.apply(name, version);
+        }
+    }
+
+    /**
+     * Likes and favorites to be set by many users on many nodes by {@link ContentActions#engage}.
+     * The nodes of a user are drawn with a Zipf distribution, the first nodes being the most popular.
+     * The draw is seeded per user, the same spec gives the same likes and favorites to a user.
+     */
+    public static class EngagementSpec
+    {
+        private final List<String> nodeRefs;
+        private final long seed;
+        private ZipfDistribution distribution;
+        private int likesPerUser = 1;
+        private int favoritesPerUser = 1;
+
+        /**
+         * @param nodeRefs List<String> node refs of the files or folders, most popular first
+         * @param seed long seed of the draw
+         */
+        public EngagementSpec(final List<String> nodeRefs,
+                              final long seed)
+        {
+            if(nodeRefs == null || nodeRefs.isEmpty())
+            {
+                throw new IllegalArgumentException("Parameter missing");
+            }
+            this.nodeRefs = new ArrayList<String>(nodeRefs);
+            this.seed = seed;
+            this.distribution = new ZipfDistribution(nodeRefs.size(), 1);
+        }
+
+        /**
+         * @param exponent double skew of the popularity, 0 for uniform (default 1)
+         */
+        public EngagementSpec setExponent(final double exponent)
+        {
+            this.distribution = new ZipfDistribution(nodeRefs.size(), exponent);
+            return this;
+        }
+
+        /**
+         * @param likes int number of nodes liked by each user (default 1)
+         * @param favorites int number of nodes marked as favorite by each user (default 1)
+         */
+        public EngagementSpec setPerUser(final int likes,
+                                         final int favorites)
+        {
+            if(likes < 0 || favorites < 0)
+            {
+                throw new IllegalArgumentException("Invalid number of likes or favorites");
+            }
+            this.likesPerUser = likes;
+            this.favoritesPerUser = favorites;
+            return this;
+        }
+
+        public List<String> getNodeRefs()
+        {
+            return nodeRefs;
+        }
+
+        public List<String> getLikes(final String userName)
+        {
+            return draw(userName, ActionType.LIKES.name(), likesPerUser);
+        }
+
+        public List<String> getFavorites(final String userName)
+        {
+            return draw(userName, "favorites", favoritesPerUser);
+        }
+
+        /**
+         * Expected number of likes of each node
+         * 
+         * @param userNames users of the engagement
+         * @return Map<String, Integer> likes by node ref
+         */
+        public Map<String, Integer> getLikeCounts(final Collection<String> userNames)
+        {
+            Map<String, Integer> counts = new LinkedHashMap<String, Integer>();
+            for(String nodeRef : nodeRefs)
+            {
+                counts.put(nodeRef, 0);
+            }
+            for(String userName : userNames)
+            {
+                for(String nodeRef : getLikes(userName))
+                {
+                    counts.merge(nodeRef, 1, Integer::sum);
+                }
+            }
+            return counts;
+        }
+
+        private List<String> draw(final String userName,
+                                  final String kind,
+                                  final int count)
+        {
+            Random random = new Random(Objects.hash(seed, userName, kind));
+            int wanted = Math.min(count, nodeRefs.size());
+            Set<String> drawn = new LinkedHashSet<String>();
+            // highly skewed distributions rarely draw the last ranks, don't insist
+            for(int attempt = 0; drawn.size() < wanted && attempt < wanted * 20; attempt++)
+            {
+                drawn.add(nodeRefs.get(distribution.sample(random)));
+            }
+            return new ArrayList<String>(drawn);
+        }
+    }
+
+    private static class EngagementTask
+    {
+        private final String userName;
+        private final String nodeRef;
+        private final boolean like;
+
+        private EngagementTask(final String userName,
+                               final String nodeRef,
+                               final boolean like)
+        {
+            this.userName = userName;
+            this.nodeRef = nodeRef;
+            this.like = like;
+        }
+
+        @Override
+        public String toString()
+        {
+            return userName + (like ? " likes " : " favorite ") + nodeRef;
+        }
+    }
+
+    /**
+     * Comments to be added on many nodes by {@link ContentActions#commentNodes}. The text of the
+     * comments is generated from a seeded draw per node, the same spec gives the same comments to a node.
+     */
+    public static class CommentSpec
+    {
+        private static final String[] WORDS = {"agree", "review", "draft", "update", "please", "check", "the", "latest",
+                "figures", "before", "friday", "looks", "good", "to", "me", "we", "should", "discuss", "this", "with",
+                "team", "minor", "typo", "in", "section", "approved", "pending", "legal", "sign-off", "\"final\""};
+        private final long seed;
+        private int minComments = 1;
+        private int maxComments = 5;
+        private int batchSize = 20;
+
+        /**
+         * @param seed long seed of the draw
+         */
+        public CommentSpec(final long seed)
+        {
+            this.seed = seed;
+        }
+
+        /**
+         * @param min int minimum number of comments of a node
+         * @param max int maximum number of comments of a node
+         */
+        public CommentSpec setCommentsPerNode(final int min,
+                                              final int max)
+        {
+            if(min < 0 || max < min)
+            {
+                throw new IllegalArgumentException("Invalid number of comments");
+            }
+            this.minComments = min;
+            this.maxComments = max;
+            return this;
+        }
+
+        /**
+         * @param batchSize int number of comments posted with a single request (default 20)
+         */
+        public CommentSpec setBatchSize(final int batchSize)
+        {
+            if(batchSize < 1)
+            {
+                throw new IllegalArgumentException("Invalid batch size");
+            }
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public int getBatchSize()
+        {
+            return batchSize;
+        }
+
+        /**
+         * Draw the comments of a node
+         * 
+         * @param key String node ref
+         * @return List<String> comments, in creation order
+         */
+        public List<String> getComments(final String key)
+        {
+            Random random = new Random(Objects.hash(seed, key));
+            int count = minComments + random.nextInt(maxComments - minComments + 1);
+            List<String> comments = new ArrayList<String>(count);
+            for(int i = 0; i < count; i++)
+            {
+                int words = 3 + random.nextInt(12);
+                StringBuilder comment = new StringBuilder();
+                for(int w = 0; w < words; w++)
+                {
+                    comment.append(w == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+                }
+                comments.add(StringUtils.capitalize(comment.toString()) + ".");
+            }
+            return comments;
+        }
+    }
 
     /**
      * Create single tag or comment for document or folder
@@ -159,9 +722,7 @@ public class ContentActions extends CMISUtil
                                        final ActionType optType,
                                        final List<String> values)
     {
-        String jsonInput = "";
         String nodeRef;
-        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
         if(!repository)
         {
             nodeRef = getNodeRef(userName, password, siteName, contentName);
@@ -170,15 +731,37 @@ public class ContentActions extends CMISUtil
         {
             nodeRef = getNodeRefByPath(userName, password, pathToItem);
         }
+        return addMultipleActions(userName, password, nodeRef, optType, values);
+    }
+
+    /**
+     * Create multiple tags or comments for a node with a single request
+     * 
+     * @param userName login username
+     * @param password login password
+     * @param nodeRef String node ref of the document or folder
+     * @param optType action type
+     * @param values List of values
+     * @return true if request is successful
+     */
+    @SuppressWarnings("unchecked")
+    private boolean addMultipleActions(final String userName,
+                                       final String password,
+                                       final String nodeRef,
+                                       final ActionType optType,
+                                       final List<String> values)
+    {
+        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
         String reqUrl = client.getApiVersionUrl() + "nodes/" + nodeRef + optType.name;
         HttpPost post  = new HttpPost(reqUrl);
-        jsonInput =  ("[{" + "\"" + optType.bodyParam + "\"" + ": \"" + values.get(0) + "\"" );
-        for( int i = 1; i < values.size(); i++ )
+        JSONArray body = new JSONArray();
+        for(String value : values)
         {
-            jsonInput = ( jsonInput + "},{" + "\"" + optType.bodyParam  + "\"" + ": \"" + values.get(i) + "\"" );
+            JSONObject action = new JSONObject();
+            action.put(optType.bodyParam, value);
+            body.add(action);
         }
-        jsonInput = ( jsonInput + "}]" );
-        StringEntity se = new StringEntity(jsonInput.toString(), AlfrescoHttpClient.UTF_8_ENCODING);
+        StringEntity se = new StringEntity(body.toJSONString(), AlfrescoHttpClient.UTF_8_ENCODING);
         se.setContentType(new BasicHeader(HTTP.CONTENT_TYPE, AlfrescoHttpClient.MIME_TYPE_JSON));
         post.setEntity(se);
         HttpResponse response = client.executeAndRelease(userName, password, post);
@@ -213,8 +796,6 @@ public class ContentActions extends CMISUtil
                                  final ActionType optType,
                                  final String actionValue)
     {
-        String optionNodeRef = "";
-        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
         String nodeRef;
         if(!repository)
         {
@@ -224,46 +805,27 @@ public class ContentActions extends CMISUtil
         {
             nodeRef = getNodeRefByPath(userName, password, pathToItem);
         }
-        switch (optType)
-        {
-            case TAGS:
-                if(!repository)
-                {
-                    optionNodeRef = getTagNodeRef(userName, password, siteName, contentName, actionValue);
-                }
-                else
-                {
-                    optionNodeRef = getTagNodeRef(userName, password, pathToItem, actionValue);
-                }
-                break;
-            case COMMENTS:
-                if(!repository)
-                {
-                    optionNodeRef = getCommentNodeRef(userName, password, siteName, contentName, actionValue);
-                }
-                else
-                {
-                    optionNodeRef = getCommentNodeRef(userName, password, pathToItem, actionValue);
-                }
-                break;
-            default:
-                break;
-        }
         if(StringUtils.isEmpty(nodeRef))
         {
             throw new RuntimeException("Content doesn't exists");
         }
-        String reqUrl = "";
+        String optionNodeRef = "";
         if(optType.equals(ActionType.COMMENTS) || optType.equals(ActionType.TAGS))
         {
-            reqUrl = client.getApiVersionUrl() + "nodes/" + nodeRef + optType.name + "/" + optionNodeRef;
-        }
-        else
-        {
-            reqUrl = client.getApiVersionUrl() + "nodes/" + nodeRef + "/ratings/likes";
+            // the node is already resolved, list its tags or comments once
+            for(JSONObject entry : listActions(userName, password, nodeRef, optType))
+            {
+                if(actionValue.equalsIgnoreCase((String) entry.get(optType.bodyParam)))
+                {
+                    optionNodeRef = (String) entry.get("id");
+                }
+            }
+            if(StringUtils.isEmpty(optionNodeRef))
+            {
+                throw new RuntimeException("Invalid item: " + actionValue);
+            }
         }
-        HttpDelete delete = new HttpDelete(reqUrl);
-        HttpResponse response = client.executeAndRelease(userName, password, delete);
+        HttpResponse response = deleteAction(userName, password, nodeRef, optType, optionNodeRef);
         switch (response.getStatusLine().getStatusCode())
         {
             case HttpStatus.SC_NO_CONTENT:
@@ -283,6 +845,253 @@ public class ContentActions extends CMISUtil
         return false;
     }
 
+    /**
+     * Delete a tag, a comment or the like of the user from a node
+     * 
+     * @param optionNodeRef String id of the tag or comment, ignored for likes
+     */
+    private HttpResponse deleteAction(final String userName,
+                                      final String password,
+                                      final String nodeRef,
+                                      final ActionType optType,
+                                      final String optionNodeRef)
+    {
+        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
+        String reqUrl = client.getApiVersionUrl() + "nodes/" + toNodeId(nodeRef) + optType.name;
+        if(optType.equals(ActionType.LIKES))
+        {
+            reqUrl = reqUrl + "/likes";
+        }
+        else
+        {
+            reqUrl = reqUrl + "/" + optionNodeRef;
+        }
+        HttpDelete delete = new HttpDelete(reqUrl);
+        return client.executeAndRelease(userName, password, delete);
+    }
+
+    private boolean deleteAction(final String userName,
+                                 final String password,
+                                 final String nodeRef,
+                                 final ActionType optType,
+                                 final String optionNodeRef,
+                                 final String actionValue)
+    {
+        HttpResponse response = deleteAction(userName, password, nodeRef, optType, optionNodeRef);
+        switch (response.getStatusLine().getStatusCode())
+        {
+            case HttpStatus.SC_NO_CONTENT:
+                return true;
+            case HttpStatus.SC_NOT_FOUND:
+                throw new RuntimeException("Content doesn't exists " + nodeRef);
+            case HttpStatus.SC_FORBIDDEN:
+                throw new RuntimeException("User" + userName + " doesn't have enough rights");
+            case HttpStatus.SC_METHOD_NOT_ALLOWED:
+                throw new RuntimeException("Invalid item: " + actionValue);
+            default:
+                throw new RuntimeException("Unable to remove " + actionValue + ": " + response.toString());
+        }
+    }
+
+    /**
+     * Remove many tags or comments from a node. The tags or comments of the node are listed once,
+     * the values are matched locally (ignoring case) and the deletes are issued in parallel.
+     * 
+     * @return {@link Report} one entry for each value, failed if the value is not set on the node
+     */
+    private Report removeActions(final String userName,
+                                 final String password,
+                                 final String nodeRef,
+                                 final ActionType optType,
+                                 final Collection<String> values,
+                                 final int threads)
+    {
+        if(StringUtils.isEmpty(nodeRef) || values == null)
+        {
+            throw new IllegalArgumentException("Parameter missing");
+        }
+        final Map<String, List<String>> ids = new HashMap<String, List<String>>();
+        for(JSONObject entry : listActions(userName, password, nodeRef, optType))
+        {
+            String value = ((String) entry.get(optType.bodyParam)).toLowerCase();
+            ids.computeIfAbsent(value, key -> new ArrayList<String>()).add((String) entry.get("id"));
+        }
+        Report report = new Report();
+        report.addAll(BatchExecutor.execute(new LinkedHashSet<String>(values), threads, value ->
+        {
+            List<String> matching = ids.get(value.toLowerCase());
+            if(matching == null)
+            {
+                throw new RuntimeException("Invalid item: " + value);
+            }
+            // every comment with this text
+            for(String id : matching)
+            {
+                deleteAction(userName, password, nodeRef, optType, id, value);
+            }
+            return true;
+        }));
+        return report;
+    }
+
+    /**
+     * Remove all the tags or comments of a folder and of everything under it. The folder tree
+     * is read once, the tags or comments of the nodes are listed in parallel, then all the
+     * deletes are issued in parallel.
+     * 
+     * @return {@link Report} one entry for each tag or comment removed, or for each node that could not be listed
+     */
+    private Report removeAllActions(final String userName,
+                                    final String password,
+                                    final String pathToFolder,
+                                    final ActionType optType,
+                                    final int threads)
+    {
+        Session session = getCMISSession(userName, password);
+        CmisObject root = getCmisObject(session, pathToFolder);
+        if(!(root instanceof Folder))
+        {
+            throw new CmisRuntimeException("Content from " + pathToFolder + " is not a folder");
+        }
+        OperationContext context = session.createOperationContext();
+        context.setFilterString(PropertyIds.OBJECT_ID);
+        context.setIncludeAcls(false);
+        context.setIncludeAllowableActions(false);
+        context.setIncludePolicies(false);
+        context.setIncludeRelationships(IncludeRelationships.NONE);
+        context.setRenditionFilterString("cmis:none");
+        List<String> nodeRefs = new ArrayList<String>();
+        nodeRefs.add(root.getId());
+        collectIds(((Folder) root).getDescendants(-1, context), nodeRefs);
+        Report report = new Report();
+        List<ActionRef> actions = new ArrayList<ActionRef>();
+        for(Result<String, List<JSONObject>> listed : BatchExecutor.execute(nodeRefs, threads, nodeRef ->
+                listActions(userName, password, StringUtils.substringBefore(nodeRef, ";"), optType)))
+        {
+            if(listed.getError() != null)
+            {
+                report.add(listed);
+                continue;
+            }
+            for(JSONObject entry : listed.getValue())
+            {
+                actions.add(new ActionRef(StringUtils.substringBefore(listed.getItem(), ";"), (String) entry.get("id"),
+                        (String) entry.get(optType.bodyParam)));
+            }
+        }
+        report.addAll(BatchExecutor.execute(actions, threads, action ->
+                deleteAction(userName, password, action.nodeRef, optType, action.id, action.value)));
+        return report;
+    }
+
+    /**
+     * A tag or comment set on a node
+     */
+    private static class ActionRef
+    {
+        private final String nodeRef;
+        private final String id;
+        private final String value;
+
+        private ActionRef(final String nodeRef,
+                          final String id,
+                          final String value)
+        {
+            this.nodeRef = nodeRef;
+            this.id = id;
+            this.value = value;
+        }
+
+        @Override
+        public String toString()
+        {
+            return value + " on " + nodeRef;
+        }
+    }
+
+    private void collectIds(final List<Tree<FileableCmisObject>> trees,
+                            final List<String> ids)
+    {
+        for(Tree<FileableCmisObject> tree : trees)
+        {
+            ids.add(tree.getItem().getId());
+            collectIds(tree.getChildren(), ids);
+        }
+    }
+
+    /**
+     * Remove many tags from a document or folder, with a single listing of its tags
+     * 
+     * @param userName login username
+     * @param password login password
+     * @param nodeRef node ref of the file or folder
+     * @param tags tags to remove
+     * @param threads int number of parallel workers
+     * @return {@link Report} one entry for each tag
+     */
+    public Report removeTags(final String userName,
+                             final String password,
+                             final String nodeRef,
+                             final Collection<String> tags,
+                             final int threads)
+    {
+        return removeActions(userName, password, nodeRef, ActionType.TAGS, tags, threads);
+    }
+
+    /**
+     * Remove many comments from a document or folder, with a single listing of its comments.
+     * All the comments with a given text are removed.
+     * 
+     * @param userName login username
+     * @param password login password
+     * @param nodeRef node ref of the file or folder
+     * @param comments comments to remove
+     * @param threads int number of parallel workers
+     * @return {@link Report} one entry for each comment text
+     */
+    public Report removeComments(final String userName,
+                                 final String password,
+                                 final String nodeRef,
+                                 final Collection<String> comments,
+                                 final int threads)
+    {
+        return removeActions(userName, password, nodeRef, ActionType.COMMENTS, comments, threads);
+    }
+
+    /**
+     * Remove all the tags of a folder and of everything under it (e.g. to clean up test data)
+     * 
+     * @param userName login username
+     * @param password login password
+     * @param pathToFolder path to folder (e.g. /Sites/mySite/documentLibrary)
+     * @param threads int number of parallel workers
+     * @return {@link Report} one entry for each tag removed
+     */
+    public Report removeAllTags(final String userName,
+                                final String password,
+                                final String pathToFolder,
+                                final int threads)
+    {
+        return removeAllActions(userName, password, pathToFolder, ActionType.TAGS, threads);
+    }
+
+    /**
+     * Remove all the comments of a folder and of everything under it (e.g. to clean up test data)
+     * 
+     * @param userName login username
+     * @param password login password
+     * @param pathToFolder path to folder (e.g. /Sites/mySite/documentLibrary)
+     * @param threads int number of parallel workers
+     * @return {@link Report} one entry for each comment removed
+     */
+    public Report removeAllComments(final String userName,
+                                    final String password,
+                                    final String pathToFolder,
+                                    final int threads)
+    {
+        return removeAllActions(userName, password, pathToFolder, ActionType.COMMENTS, threads);
+    }
+
     /**
      * Create tag for a document or folder
      * 
@@ -352,7 +1161,71 @@ public class ContentActions extends CMISUtil
                                    final String pathToItem,
                                    final List<String> tags)
     {
-        return addMultipleActions(userName, password, null, null, true, pathToItem, ActionType.TAGS, tags);
+        return addMultipleActions(userName, password, null, null, true, pathToItem, ActionType.TAGS, tags);
+    }
+
+    /**
+     * Tag many documents or folders of a site. The contents are resolved with a single walk of the
+     * document library, then each content gets its tags from the spec in one request, in parallel.
+     * 
+     * @param userName login username
+     * @param password login password
+     * @param siteName site name
+     * @param contentNames file or folder names
+     * @param spec {@link TaggingSpec} tags to set
+     * @param threads int number of parallel workers
+     * @return {@link Report} one entry for each content
+     */
+    public Report tagContents(final String userName,
+                              final String password,
+                              final String siteName,
+                              final Collection<String> contentNames,
+                              final TaggingSpec spec,
+                              final int threads)
+    {
+        if(StringUtils.isEmpty(siteName) || contentNames == null || spec == null)
+        {
+            throw new IllegalArgumentException("Parameter missing");
+        }
+        Session session = getCMISSession(userName, password);
+        final Map<String, String> nodeRefs = getNodeRefs(session, siteName, contentNames);
+        Report report = new Report();
+        report.addAll(BatchExecutor.execute(contentNames, threads, contentName ->
+        {
+            String nodeRef = nodeRefs.get(contentName);
+            if(StringUtils.isEmpty(nodeRef))
+            {
+                throw new RuntimeException("Content doesn't exists " + contentName);
+            }
+            return addMultipleActions(userName, password, nodeRef, ActionType.TAGS, spec.getTags(contentName));
+        }));
+        return report;
+    }
+
+    /**
+     * Tag many documents or folders, each node gets its tags from the spec in one request, in parallel.
+     * 
+     * @param userName login username
+     * @param password login password
+     * @param nodeRefs node refs of the files or folders
+     * @param spec {@link TaggingSpec} tags to set
+     * @param threads int number of parallel workers
+     * @return {@link Report} one entry for each node
+     */
+    public Report tagNodes(final String userName,
+                           final String password,
+                           final Collection<String> nodeRefs,
+                           final TaggingSpec spec,
+                           final int threads)
+    {
+        if(nodeRefs == null || spec == null)
+        {
+            throw new IllegalArgumentException("Parameter missing");
+        }
+        Report report = new Report();
+        report.addAll(BatchExecutor.execute(nodeRefs, threads, nodeRef ->
+                addMultipleActions(userName, password, nodeRef, ActionType.TAGS, spec.getTags(nodeRef))));
+        return report;
     }
 
     /**
@@ -638,9 +1511,7 @@ public class ContentActions extends CMISUtil
                                     final String siteName,
                                     final String contentName)
     {
-        HttpResponse result = getOptionResponse(userName, password, siteName, contentName, false, null, ActionType.COMMENTS);
-        List<String> comments = getOptionValues(result, ActionType.COMMENTS);
-        return comments;
+        return getNodeComments(userName, password, getNodeRef(userName, password, siteName, contentName));
     }
     
     /**
@@ -655,11 +1526,196 @@ public class ContentActions extends CMISUtil
                                     final String password,
                                     final String pathToItem)
     {
-        HttpResponse result = getOptionResponse(userName, password, null, null, true, pathToItem, ActionType.COMMENTS);
-        List<String> comments = getOptionValues(result, ActionType.COMMENTS);
+        return getNodeComments(userName, password, getNodeRefByPath(userName, password, pathToItem));
+    }
+
+    /**
+     * Get all the comments of a document or folder, read page by page
+     * 
+     * @param userName login username
+     * @param password login password
+     * @param nodeRef node ref of the file or folder
+     * @return List list of comments, newest first
+     */
+    public List<String> getNodeComments(final String userName,
+                                        final String password,
+                                        final String nodeRef)
+    {
+        List<String> comments = new ArrayList<String>();
+        for(JSONObject entry : listActions(userName, password, nodeRef, ActionType.COMMENTS))
+        {
+            comments.add((String) entry.get(ActionType.COMMENTS.bodyParam));
+        }
         return comments;
     }
 
+    /**
+     * Read all the tags or comments of a node, page by page
+     * 
+     * @param userName login username
+     * @param password login password
+     * @param nodeRef node ref of the file or folder
+     * @param optType action type, tags or comments
+     * @return List<JSONObject> entries
+     */
+    private List<JSONObject> listActions(final String userName,
+                                         final String password,
+                                         final String nodeRef,
+                                         final ActionType optType)
+    {
+        if(StringUtils.isEmpty(nodeRef))
+        {
+            throw new RuntimeException("Content doesn't exists");
+        }
+        List<JSONObject> actions = new ArrayList<JSONObject>();
+        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
+        int skipCount = 0;
+        boolean hasMoreItems = true;
+        while(hasMoreItems)
+        {
+            HttpGet get = new HttpGet(client.getApiVersionUrl() + "nodes/" + toNodeId(nodeRef) + optType.name
+                    + "?skipCount=" + skipCount + "&maxItems=" + ACTIONS_PAGE_SIZE);
+            try
+            {
+                HttpResponse response = client.execute(userName, password, get);
+                switch (response.getStatusLine().getStatusCode())
+                {
+                    case HttpStatus.SC_OK:
+                        break;
+                    case HttpStatus.SC_NOT_FOUND:
+                        throw new RuntimeException("Content doesn't exists " + nodeRef);
+                    default:
+                        throw new RuntimeException("Unable to read " + optType.name.substring(1) + ": " + response.toString());
+                }
+                JSONObject list = (JSONObject) client.readStream(response.getEntity()).get("list");
+                JSONArray entries = (JSONArray) list.get("entries");
+                for(Object item : entries)
+                {
+                    actions.add((JSONObject) ((JSONObject) item).get("entry"));
+                }
+                skipCount += entries.size();
+                JSONObject pagination = (JSONObject) list.get("pagination");
+                hasMoreItems = pagination != null && Boolean.TRUE.equals(pagination.get("hasMoreItems")) && !entries.isEmpty();
+            }
+            finally
+            {
+                get.releaseConnection();
+                client.close();
+            }
+        }
+        return actions;
+    }
+
+    /**
+     * Get the number of comments of a document or folder. A single comment is requested,
+     * the total is streamed from the pagination of the response.
+     * 
+     * @param userName login username
+     * @param password login password
+     * @param nodeRef node ref of the file or folder
+     * @return int comments
+     */
+    public int countNodeComments(final String userName,
+                                 final String password,
+                                 final String nodeRef)
+    {
+        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
+        HttpGet get = new HttpGet(client.getApiVersionUrl() + "nodes/" + toNodeId(nodeRef) + ActionType.COMMENTS.name
+                + "?maxItems=1");
+        try
+        {
+            HttpResponse response = client.execute(userName, password, get);
+            switch (response.getStatusLine().getStatusCode())
+            {
+                case HttpStatus.SC_OK:
+                    String total = client.readJsonValue(response, "list", "pagination", "totalItems");
+                    return total == null ? 0 : Integer.parseInt(total);
+                case HttpStatus.SC_NOT_FOUND:
+                    throw new RuntimeException("Content doesn't exists " + nodeRef);
+                default:
+                    throw new RuntimeException("Unable to read comments: " + response.toString());
+            }
+        }
+        finally
+        {
+            get.releaseConnection();
+            client.close();
+        }
+    }
+
+    /**
+     * Add comments on many documents or folders, in parallel. The comments of a node
+     * are drawn from the spec and posted in batches, each batch being a single request.
+     * 
+     * @param userName login username
+     * @param password login password
+     * @param nodeRefs node refs of the files or folders
+     * @param spec {@link CommentSpec} comments to add
+     * @param threads int number of parallel workers
+     * @return {@link Report} one entry for each node, the value being the number of comments added
+     */
+    public Report commentNodes(final String userName,
+                               final String password,
+                               final Collection<String> nodeRefs,
+                               final CommentSpec spec,
+                               final int threads)
+    {
+        if(nodeRefs == null || spec == null)
+        {
+            throw new IllegalArgumentException("Parameter missing");
+        }
+        Report report = new Report();
+        report.addAll(BatchExecutor.execute(nodeRefs, threads, nodeRef ->
+        {
+            List<String> comments = spec.getComments(nodeRef);
+            for(int from = 0; from < comments.size(); from += spec.getBatchSize())
+            {
+                List<String> batch = comments.subList(from, Math.min(from + spec.getBatchSize(), comments.size()));
+                if(!addMultipleActions(userName, password, toNodeId(nodeRef), ActionType.COMMENTS, batch))
+                {
+                    throw new RuntimeException("Unable to add comments " + from + " to " + (from + batch.size()));
+                }
+            }
+            return comments.size();
+        }));
+        return report;
+    }
+
+    /**
+     * Verify the number of comments of the nodes commented with a spec, in parallel.
+     * The nodes must not have other comments.
+     * 
+     * @param userName login username
+     * @param password login password
+     * @param nodeRefs node refs of the files or folders
+     * @param spec {@link CommentSpec} spec of the comments
+     * @param threads int number of parallel workers
+     * @return {@link Report} one entry for each node, failed if the count differs
+     */
+    public Report verifyComments(final String userName,
+                                 final String password,
+                                 final Collection<String> nodeRefs,
+                                 final CommentSpec spec,
+                                 final int threads)
+    {
+        if(nodeRefs == null || spec == null)
+        {
+            throw new IllegalArgumentException("Parameter missing");
+        }
+        Report report = new Report();
+        report.addAll(BatchExecutor.execute(nodeRefs, threads, nodeRef ->
+        {
+            int expected = spec.getComments(nodeRef).size();
+            int comments = countNodeComments(userName, password, nodeRef);
+            if(comments != expected)
+            {
+                throw new RuntimeException("Expected " + expected + " comments, found " + comments);
+            }
+            return comments;
+        }));
+        return report;
+    }
+
     /**
      * Get the node ref for comment
      * 
@@ -785,7 +1841,7 @@ public class ContentActions extends CMISUtil
         }
         if(200 == result.getStatusLine().getStatusCode())
         {
-            String likes = jClient.getParameterFromJSON(result, "numberOfRatings", "entry", "aggregate");
+            String likes = jClient.readJsonValue(result, "entry", "aggregate", "numberOfRatings");
             return Integer.parseInt(likes);
         }
         return 0;
@@ -876,20 +1932,12 @@ public class ContentActions extends CMISUtil
         {
             throw new IllegalArgumentException("Parameter missing");
         }
-        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
         String nodeRef = getNodeRef(userName, password, siteName, contentName);
         if(StringUtils.isEmpty(nodeRef))
         {
             throw new RuntimeException("Content doesn't exists " + contentName);
         }
-        String reqUrl = client.getApiVersionUrl() + "people/" + userName + "/favorites";
-        HttpPost post  = new HttpPost(reqUrl);
-        String jsonInput;
-        jsonInput = "{\"target\": {\"" + contentType + "\" : {\"guid\" : \"" + nodeRef + "\"}}}";
-        StringEntity se = new StringEntity(jsonInput.toString(), AlfrescoHttpClient.UTF_8_ENCODING);
-        se.setContentType(new BasicHeader(HTTP.CONTENT_TYPE, AlfrescoHttpClient.MIME_TYPE_JSON));
-        post.setEntity(se);
-        HttpResponse response = client.executeAndRelease(userName, password, post);
+        HttpResponse response = postFavorite(userName, password, contentType, nodeRef);
         switch (response.getStatusLine().getStatusCode())
         {
             case HttpStatus.SC_CREATED:
@@ -1014,6 +2062,259 @@ public class ContentActions extends CMISUtil
         }
         return false;
     }
+
+    @SuppressWarnings("unchecked")
+    private HttpResponse postFavorite(final String userName,
+                                      final String password,
+                                      final String contentType,
+                                      final String nodeRef)
+    {
+        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
+        String reqUrl = client.getApiVersionUrl() + "people/" + userName + "/favorites";
+        HttpPost post = new HttpPost(reqUrl);
+        JSONObject guid = new JSONObject();
+        guid.put("guid", toNodeId(nodeRef));
+        JSONObject target = new JSONObject();
+        target.put(contentType, guid);
+        JSONObject body = new JSONObject();
+        body.put("target", target);
+        return client.executeAndRelease(userName, password, body, post);
+    }
+
+    @SuppressWarnings("unchecked")
+    private HttpResponse postLike(final String userName,
+                                  final String password,
+                                  final String nodeRef)
+    {
+        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
+        String reqUrl = client.getApiVersionUrl() + "nodes/" + toNodeId(nodeRef) + ActionType.LIKES.name;
+        HttpPost post = new HttpPost(reqUrl);
+        JSONObject body = new JSONObject();
+        body.put(ActionType.LIKES.bodyParam, "likes");
+        body.put("myRating", true);
+        return client.executeAndRelease(userName, password, body, post);
+    }
+
+    /**
+     * Apply the likes and favorites of many users on many nodes, in parallel. The users are
+     * given with their password, each like and each favorite is a single request. The type
+     * of a node (file or folder), needed by the favorites, is read once with a shared session.
+     * 
+     * @param users Map<String, String> password by user name
+     * @param spec {@link EngagementSpec} nodes and popularity
+     * @param threads int number of parallel workers
+     * @return {@link Report} one entry for each like and each favorite
+     */
+    public Report engage(final Map<String, String> users,
+                         final EngagementSpec spec,
+                         final int threads)
+    {
+        if(users == null || users.isEmpty() || spec == null)
+        {
+            throw new IllegalArgumentException("Parameter missing");
+        }
+        List<EngagementTask> tasks = new ArrayList<EngagementTask>();
+        for(String user : users.keySet())
+        {
+            for(String nodeRef : spec.getLikes(user))
+            {
+                tasks.add(new EngagementTask(user, nodeRef, true));
+            }
+            for(String nodeRef : spec.getFavorites(user))
+            {
+                tasks.add(new EngagementTask(user, nodeRef, false));
+            }
+        }
+        Map.Entry<String, String> anyUser = users.entrySet().iterator().next();
+        final Session session = getCMISSession(anyUser.getKey(), anyUser.getValue());
+        final OperationContext context = session.createOperationContext();
+        context.setFilterString(PropertyIds.BASE_TYPE_ID);
+        context.setIncludeAcls(false);
+        context.setIncludeAllowableActions(false);
+        context.setIncludePolicies(false);
+        context.setRenditionFilterString("cmis:none");
+        final Map<String, String> contentTypes = new ConcurrentHashMap<String, String>();
+        Report report = new Report();
+        report.addAll(BatchExecutor.execute(tasks, threads, task ->
+        {
+            String password = users.get(task.userName);
+            HttpResponse response;
+            if(task.like)
+            {
+                response = postLike(task.userName, password, task.nodeRef);
+            }
+            else
+            {
+                String contentType = contentTypes.computeIfAbsent(task.nodeRef, nodeRef ->
+                        session.getObject(toNodeId(nodeRef), context).getBaseTypeId() == BaseTypeId.CMIS_FOLDER ? "folder" : "file");
+                response = postFavorite(task.userName, password, contentType, task.nodeRef);
+            }
+            switch (response.getStatusLine().getStatusCode())
+            {
+                case HttpStatus.SC_CREATED:
+                    return true;
+                case HttpStatus.SC_NOT_FOUND:
+                    throw new RuntimeException("Content doesn't exists " + task.nodeRef);
+                default:
+                    throw new RuntimeException("Unable to set " + (task.like ? "like: " : "favorite: ") + response.toString());
+            }
+        }));
+        return report;
+    }
+
+    /**
+     * Get the number of likes of a node, the count is streamed from the response
+     * 
+     * @param userName login username
+     * @param password login password
+     * @param nodeRef node ref of the file or folder
+     * @return int likes
+     */
+    public int countNodeLikes(final String userName,
+                              final String password,
+                              final String nodeRef)
+    {
+        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
+        HttpGet get = new HttpGet(client.getApiVersionUrl() + "nodes/" + toNodeId(nodeRef) + ActionType.LIKES.name + "/likes");
+        try
+        {
+            HttpResponse response = client.execute(userName, password, get);
+            switch (response.getStatusLine().getStatusCode())
+            {
+                case HttpStatus.SC_OK:
+                    String likes = client.readJsonValue(response, "entry", "aggregate", "numberOfRatings");
+                    return likes == null ? 0 : Integer.parseInt(likes);
+                case HttpStatus.SC_NOT_FOUND:
+                    throw new RuntimeException("Content doesn't exists " + nodeRef);
+                default:
+                    throw new RuntimeException("Unable to read likes: " + response.toString());
+            }
+        }
+        finally
+        {
+            get.releaseConnection();
+            client.close();
+        }
+    }
+
+    /**
+     * Verify the aggregated likes of the nodes of an engagement, in parallel. The nodes
+     * must not have been liked by other users.
+     * 
+     * @param userName login username
+     * @param password login password
+     * @param users user names of the engagement
+     * @param spec {@link EngagementSpec} spec of the engagement
+     * @param threads int number of parallel workers
+     * @return {@link Report} one entry for each node, failed if the count differs
+     */
+    public Report verifyLikes(final String userName,
+                              final String password,
+                              final Collection<String> users,
+                              final EngagementSpec spec,
+                              final int threads)
+    {
+        if(users == null || spec == null)
+        {
+            throw new IllegalArgumentException("Parameter missing");
+        }
+        final Map<String, Integer> expected = spec.getLikeCounts(users);
+        Report report = new Report();
+        report.addAll(BatchExecutor.execute(expected.keySet(), threads, nodeRef ->
+        {
+            int likes = countNodeLikes(userName, password, nodeRef);
+            if(likes != expected.get(nodeRef))
+            {
+                throw new RuntimeException("Expected " + expected.get(nodeRef) + " likes, found " + likes);
+            }
+            return likes;
+        }));
+        return report;
+    }
+
+    /**
+     * Verify that each user of an engagement has the favorites drawn for the user, in parallel.
+     * The favorites of a user are read page by page.
+     * 
+     * @param users Map<String, String> password by user name
+     * @param spec {@link EngagementSpec} spec of the engagement
+     * @param threads int number of parallel workers
+     * @return {@link Report} one entry for each user, failed if a favorite is missing
+     */
+    public Report verifyFavorites(final Map<String, String> users,
+                                  final EngagementSpec spec,
+                                  final int threads)
+    {
+        if(users == null || spec == null)
+        {
+            throw new IllegalArgumentException("Parameter missing");
+        }
+        Report report = new Report();
+        report.addAll(BatchExecutor.execute(users.keySet(), threads, user ->
+        {
+            Set<String> favorites = getFavoriteNodeRefs(user, users.get(user));
+            List<String> missing = new ArrayList<String>();
+            for(String nodeRef : spec.getFavorites(user))
+            {
+                if(!favorites.contains(toNodeId(nodeRef)))
+                {
+                    missing.add(nodeRef);
+                }
+            }
+            if(!missing.isEmpty())
+            {
+                throw new RuntimeException("Missing favorites " + missing);
+            }
+            return true;
+        }));
+        return report;
+    }
+
+    /**
+     * @return String node id, from workspace://SpacesStore/id as well as from id
+     */
+    private static String toNodeId(final String nodeRef)
+    {
+        return nodeRef.contains("/") ? StringUtils.substringAfterLast(nodeRef, "/") : nodeRef;
+    }
+
+    private Set<String> getFavoriteNodeRefs(final String userName,
+                                            final String password)
+    {
+        Set<String> favorites = new HashSet<String>();
+        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
+        int skipCount = 0;
+        boolean hasMoreItems = true;
+        while(hasMoreItems)
+        {
+            HttpGet get = new HttpGet(client.getApiVersionUrl() + "people/" + userName + "/favorites?skipCount="
+                    + skipCount + "&maxItems=" + FAVORITES_PAGE_SIZE);
+            try
+            {
+                HttpResponse response = client.execute(userName, password, get);
+                if(HttpStatus.SC_OK != response.getStatusLine().getStatusCode())
+                {
+                    throw new RuntimeException("Unable to read favorites: " + response.toString());
+                }
+                JSONObject list = (JSONObject) client.readStream(response.getEntity()).get("list");
+                JSONArray entries = (JSONArray) list.get("entries");
+                for(Object item : entries)
+                {
+                    JSONObject entry = (JSONObject) ((JSONObject) item).get("entry");
+                    favorites.add((String) entry.get("targetGuid"));
+                }
+                skipCount += entries.size();
+                JSONObject pagination = (JSONObject) list.get("pagination");
+                hasMoreItems = pagination != null && Boolean.TRUE.equals(pagination.get("hasMoreItems")) && !entries.isEmpty();
+            }
+            finally
+            {
+                get.releaseConnection();
+                client.close();
+            }
+        }
+        return favorites;
+    }
     
     /**
      * Checks out the document and returns the object id of the PWC (private
@@ -1277,19 +2578,149 @@ public class ContentActions extends CMISUtil
             contentStream = session.getObjectFactory().createContentStream(docToModify.getName(), Long.valueOf(content.length), fileType.type, stream);
             try
             {
-                return pwc.checkIn(majorVersion, null, contentStream, checkinComment);
+                return pwc.checkIn(majorVersion, null, contentStream, checkinComment);
+            }
+            catch(CmisStorageException se)
+            {
+                logger.error("Error when trying to checkin: ", se);
+                // the first stream has been consumed by the failed attempt
+                stream = new ByteArrayInputStream(content);
+                contentStream = session.getObjectFactory().createContentStream(docToModify.getName(), Long.valueOf(content.length), fileType.type, stream);
+                return pwc.checkIn(majorVersion, null, contentStream, checkinComment);
+            }
+        }
+        finally
+        {
+            closeStreams(stream, contentStream);
+        }
+    }
+    
+    /**
+     * Create a version history on many documents, in parallel. Each document is resolved once,
+     * then every version is a check out followed by a check in of the generated content, issued
+     * on the ids returned by the repository without fetching the document or the PWC again.
+     *
+     * @param session {@link Session}
+     * @param pathsToDocuments paths to documents (e.g. /Shared/testFile.txt)
+     * @param spec {@link VersionHistorySpec} versions to create
+     * @param threads int number of parallel workers
+     * @return {@link Report} one entry for each document
+     */
+    public Report createVersionHistory(final Session session,
+                                       final Collection<String> pathsToDocuments,
+                                       final VersionHistorySpec spec,
+                                       final int threads)
+    {
+        if(pathsToDocuments == null || spec == null)
+        {
+            throw new IllegalArgumentException("Parameter missing");
+        }
+        Report report = new Report();
+        report.addAll(BatchExecutor.execute(pathsToDocuments, threads, pathToDocument ->
+                createVersionHistory(session, getDocumentObject(session, pathToDocument), spec)));
+        return report;
+    }
+
+    /**
+     * Create a version history on many documents, in parallel.
+     *
+     * @param userName login username
+     * @param password login password
+     * @param pathsToDocuments paths to documents (e.g. /Shared/testFile.txt)
+     * @param spec {@link VersionHistorySpec} versions to create
+     * @param threads int number of parallel workers
+     * @return {@link Report} one entry for each document
+     */
+    public Report createVersionHistory(final String userName,
+                                       final String password,
+                                       final Collection<String> pathsToDocuments,
+                                       final VersionHistorySpec spec,
+                                       final int threads)
+    {
+        Session session = getCMISSession(userName, password);
+        return createVersionHistory(session, pathsToDocuments, spec, threads);
+    }
+
+    /**
+     * @return String object id of the last version
+     */
+    private String createVersionHistory(final Session session,
+                                        final Document document,
+                                        final VersionHistorySpec spec)
+    {
+        VersioningService versioning = session.getBinding().getVersioningService();
+        String repositoryId = session.getRepositoryInfo().getId();
+        String name = document.getName();
+        String mimeType = document.getContentStreamMimeType();
+        Holder<String> objectId = new Holder<String>(document.getId());
+        // working copy checked out here and not checked in yet
+        String checkedOut = null;
+        try
+        {
+            if(!StringUtils.isEmpty(document.getVersionSeriesCheckedOutId()))
+            {
+                objectId.setValue(document.getVersionSeriesCheckedOutId());
+            }
+            else
+            {
+                versioning.checkOut(repositoryId, objectId, null, null);
+                checkedOut = objectId.getValue();
+            }
+            for(int version = 1; version <= spec.getVersions(); version++)
+            {
+                if(version > 1)
+                {
+                    versioning.checkOut(repositoryId, objectId, null, null);
+                    checkedOut = objectId.getValue();
+                }
+                String pwcId = objectId.getValue();
+                InputStream stream = spec.getContent(name, version);
+                // unknown length, the binding streams the content in chunks
+                ContentStream contentStream = session.getObjectFactory().createContentStream(name, -1, mimeType, stream);
+                try
+                {
+                    versioning.checkIn(repositoryId, objectId, spec.isMajor(version), null, contentStream,
+                            spec.getComment(version), null, null, null, null);
+                }
+                catch(CmisStorageException se)
+                {
+                    logger.error("Error when trying to checkin: ", se);
+                    closeStreams(stream, contentStream);
+                    objectId.setValue(pwcId);
+                    stream = spec.getContent(name, version);
+                    contentStream = session.getObjectFactory().createContentStream(name, -1, mimeType, stream);
+                    versioning.checkIn(repositoryId, objectId, spec.isMajor(version), null, contentStream,
+                            spec.getComment(version), null, null, null, null);
+                }
+                finally
+                {
+                    closeStreams(stream, contentStream);
+                }
+                checkedOut = null;
             }
-            catch(CmisStorageException se)
+        }
+        catch(RuntimeException e)
+        {
+            // don't leave the document locked
+            if(checkedOut != null)
             {
-                logger.error("Error when trying to checkin: ", se);
-                contentStream = session.getObjectFactory().createContentStream(docToModify.getName(), Long.valueOf(content.length), fileType.type, stream);
-                return pwc.checkIn(majorVersion, null, contentStream, checkinComment);
+                try
+                {
+                    versioning.cancelCheckOut(repositoryId, checkedOut, null);
+                }
+                catch(RuntimeException ce)
+                {
+                    logger.error("Unable to cancel the check out of " + name + ": " + ce.getMessage());
+                }
             }
+            throw e;
         }
         finally
         {
-            closeStreams(stream, contentStream);
+            // the cached document no longer is the latest version
+            session.removeObjectFromCache(document.getId());
         }
+        return objectId.getValue();
     }
     
     /**
@@ -1307,7 +2738,12 @@ public class ContentActions extends CMISUtil
                              final String fileName)
     {
         Session session = getCMISSession(userName, password);
-        return getDocumentObject(session, siteId, fileName).getVersionLabel();
+        String nodeRef = getNodeRef(session, siteId, fileName);
+        if(StringUtils.isEmpty(nodeRef))
+        {
+            throw new CmisRuntimeException("Content " + fileName + " doesn't exist");
+        }
+        return getVersionLabel(session.getObject(nodeRef, getVersionContext(session)), fileName);
     }
     
     /**
@@ -1323,7 +2759,7 @@ public class ContentActions extends CMISUtil
                              final String pathToDocument)
     {
         Session session = getCMISSession(userName, password);
-        return getDocumentObject(session, pathToDocument).getVersionLabel();
+        return getVersion(session, pathToDocument);
     }
     
     /**
@@ -1336,7 +2772,114 @@ public class ContentActions extends CMISUtil
     public String getVersion(final Session session,
                              final String pathToDocument)
     {
-        return getDocumentObject(session, pathToDocument).getVersionLabel();
+        String path = StringUtils.prependIfMissing(pathToDocument, "/");
+        try
+        {
+            return getVersionLabel(session.getObjectByPath(path, getVersionContext(session)), path);
+        }
+        catch(CmisObjectNotFoundException nf)
+        {
+            throw new CmisRuntimeException("Path doesn't exist " + path);
+        }
+    }
+
+    /**
+     * Get the version of many documents with CMIS queries on their ids, a query for each batch
+     * of documents. Only the version label is read, the documents are not loaded.
+     *
+     * @param session {@link Session}
+     * @param nodeRefs node refs of the documents
+     * @return Map<String, String> version label by node ref, documents not found are left out
+     */
+    public Map<String, String> getVersions(final Session session,
+                                           final Collection<String> nodeRefs)
+    {
+        if(nodeRefs == null)
+        {
+            throw new IllegalArgumentException("Parameter missing");
+        }
+        // the ids without store and version, one document may be given in several forms
+        Map<String, List<String>> byId = new LinkedHashMap<String, List<String>>();
+        for(String nodeRef : nodeRefs)
+        {
+            String id = StringUtils.substringBefore(toNodeId(nodeRef), ";");
+            byId.computeIfAbsent(id, key -> new ArrayList<String>()).add(nodeRef);
+        }
+        OperationContext context = session.createOperationContext();
+        context.setFilterString(PropertyIds.OBJECT_ID + "," + PropertyIds.VERSION_LABEL);
+        context.setIncludeAllowableActions(false);
+        context.setIncludeRelationships(IncludeRelationships.NONE);
+        context.setRenditionFilterString("cmis:none");
+        context.setCacheEnabled(false);
+        context.setMaxItemsPerPage(VERSION_QUERY_BATCH_SIZE);
+        Map<String, String> versions = new HashMap<String, String>();
+        List<String> ids = new ArrayList<String>(byId.keySet());
+        for(int from = 0; from < ids.size(); from += VERSION_QUERY_BATCH_SIZE)
+        {
+            List<String> batch = ids.subList(from, Math.min(from + VERSION_QUERY_BATCH_SIZE, ids.size()));
+            QueryStatement query = session.createQueryStatement("SELECT " + PropertyIds.OBJECT_ID + ", " + PropertyIds.VERSION_LABEL
+                    + " FROM cmis:document WHERE " + PropertyIds.OBJECT_ID + " IN (?)");
+            query.setString(1, batch.toArray(new String[batch.size()]));
+            for(QueryResult result : session.query(query.toQueryString(), false, context))
+            {
+                String id = StringUtils.substringBefore((String) result.getPropertyValueById(PropertyIds.OBJECT_ID), ";");
+                String label = result.getPropertyValueById(PropertyIds.VERSION_LABEL);
+                List<String> given = byId.get(id);
+                if(given != null)
+                {
+                    for(String nodeRef : given)
+                    {
+                        versions.put(nodeRef, label);
+                    }
+                }
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Get the version of many documents, see {@link #getVersions(Session, Collection)}
+     *
+     * @param userName login username
+     * @param password login password
+     * @param nodeRefs node refs of the documents
+     * @return Map<String, String> version label by node ref, documents not found are left out
+     */
+    public Map<String, String> getVersions(final String userName,
+                                           final String password,
+                                           final Collection<String> nodeRefs)
+    {
+        Session session = getCMISSession(userName, password);
+        return getVersions(session, nodeRefs);
+    }
+
+    /**
+     * Operation context reading only the version label, without cache as the version changes
+     */
+    private OperationContext getVersionContext(final Session session)
+    {
+        OperationContext context = session.createOperationContext();
+        context.setFilterString(PropertyIds.VERSION_LABEL);
+        context.setIncludeAcls(false);
+        context.setIncludeAllowableActions(false);
+        context.setIncludePolicies(false);
+        context.setIncludeRelationships(IncludeRelationships.NONE);
+        context.setRenditionFilterString("cmis:none");
+        context.setCacheEnabled(false);
+        return context;
+    }
+
+    /**
+     * @param content String name or path of the content, the object is read without its name
+     */
+    private String getVersionLabel(final CmisObject object,
+                                   final String content)
+    {
+        if(!(object instanceof Document))
+        {
+            throw new CmisRuntimeException("Content " + content + " is not a document");
+        }
+        return ((Document) object).getVersionLabel();
     }
     
     private CmisObject copyTo(final Session session,
@@ -1443,40 +2986,205 @@ public class ContentActions extends CMISUtil
      * @param toCopyFolder source folder
      * @param targetFolder target folder
      * @return CmisObject of new created folder
+     * @throws CmisRuntimeException if a child can't be copied
      */
     private CmisObject copyFolder(Folder sourceFolder,
                                   Folder targetFolder)
+    {
+        Report report = new Report();
+        Folder newFolder = copyFolder(sourceFolder, targetFolder, BatchExecutor.DEFAULT_THREADS, report);
+        if(report.getFailed() > 0)
+        {
+            throw new CmisRuntimeException("Failed to copy " + sourceFolder.getName() + ": " + report.getFailures().get(0));
+        }
+        return newFolder;
+    }
+
+    /**
+     * Copy a folder with all its children, level by level. Each folder is listed once,
+     * the children of a level are copied in parallel.
+     * 
+     * @param sourceFolder source folder
+     * @param targetFolder target folder
+     * @param threads int number of parallel workers
+     * @param report {@link Report} receives one entry for each copied folder and document
+     * @return Folder the new created folder
+     */
+    private Folder copyFolder(final Folder sourceFolder,
+                              final Folder targetFolder,
+                              final int threads,
+                              final Report report)
+    {
+        long start = System.currentTimeMillis();
+        Folder newFolder = createFolderCopy(sourceFolder, targetFolder);
+        report.add(new Result<String, Folder>(sourceFolder.getName(), newFolder, null, System.currentTimeMillis() - start));
+        List<CopyTask> level = new ArrayList<CopyTask>();
+        level.add(new CopyTask(sourceFolder, newFolder));
+        while(!level.isEmpty())
+        {
+            List<CopyTask> children = new ArrayList<CopyTask>();
+            for(CopyTask folder : level)
+            {
+                for(CmisObject child : ((Folder) folder.source).getChildren())
+                {
+                    if(child instanceof Document || child instanceof Folder)
+                    {
+                        children.add(new CopyTask((FileableCmisObject) child, (Folder) folder.copy));
+                    }
+                }
+            }
+            level = new ArrayList<CopyTask>();
+            for(Result<CopyTask, FileableCmisObject> result : BatchExecutor.execute(children, threads, task -> task.source instanceof Folder
+                    ? createFolderCopy((Folder) task.source, task.target) : ((Document) task.source).copy(task.target)))
+            {
+                report.add(result);
+                if(result.isSuccessful() && result.getValue() instanceof Folder)
+                {
+                    CopyTask task = result.getItem();
+                    task.copy = result.getValue();
+                    level.add(task);
+                }
+            }
+        }
+        return newFolder;
+    }
+
+    private Folder createFolderCopy(final Folder sourceFolder,
+                                    final Folder targetFolder)
     {
         Map<String, Object> folderProperties = new HashMap<String, Object>(2);
         folderProperties.put(PropertyIds.NAME, sourceFolder.getName());
         folderProperties.put(PropertyIds.OBJECT_TYPE_ID, sourceFolder.getBaseTypeId().value());
-        Folder newFolder = targetFolder.createFolder(folderProperties);
-        copyChildrenFromFolder(sourceFolder, newFolder);
-        return newFolder;
+        return targetFolder.createFolder(folderProperties);
     }
-    
+
+    /**
+     * Copy a folder with all its children by path. The tree is copied level by level,
+     * each folder is listed once and the children of a level are copied in parallel.
+     * 
+     * @param session {@link Session}
+     * @param pathFrom String path of the folder to copy
+     * @param pathTo String path of the target folder
+     * @param threads int number of parallel workers
+     * @return {@link Report} one entry for each copied folder and document
+     */
+    public Report copyFolderTree(final Session session,
+                                 final String pathFrom,
+                                 final String pathTo,
+                                 final int threads)
+    {
+        CmisObject objFrom = getCmisObject(session, pathFrom);
+        CmisObject objTarget = getCmisObject(session, pathTo);
+        if(!(objFrom instanceof Folder) || !(objTarget instanceof Folder))
+        {
+            throw new CmisRuntimeException("Source and target must be folders");
+        }
+        Report report = new Report();
+        copyFolder((Folder) objFrom, (Folder) objTarget, threads, report);
+        return report;
+    }
+
+    /**
+     * Copy a folder with all its children by path.
+     * 
+     * @param userName String user name
+     * @param password String password
+     * @param pathFrom String path of the folder to copy
+     * @param pathTo String path of the target folder
+     * @param threads int number of parallel workers
+     * @param serverSide true to copy the whole tree with a single copy request done by the server,
+     * the report then has one entry for the tree
+     * @return {@link Report} one entry for each copied folder and document
+     */
+    public Report copyFolderTree(final String userName,
+                                 final String password,
+                                 final String pathFrom,
+                                 final String pathTo,
+                                 final int threads,
+                                 final boolean serverSide)
+    {
+        Session session = getCMISSession(userName, password);
+        if(!serverSide)
+        {
+            return copyFolderTree(session, pathFrom, pathTo, threads);
+        }
+        long start = System.currentTimeMillis();
+        String sourceId = getNodeRefByPath(session, pathFrom);
+        String targetId = getNodeRefByPath(session, pathTo);
+        if(StringUtils.isEmpty(sourceId) || StringUtils.isEmpty(targetId))
+        {
+            throw new CmisRuntimeException("Invalid path " + (StringUtils.isEmpty(sourceId) ? pathFrom : pathTo));
+        }
+        Report report = new Report();
+        String copyId = copyNode(userName, password, sourceId, targetId);
+        report.add(new Result<String, String>(pathFrom, copyId, null, System.currentTimeMillis() - start));
+        return report;
+    }
+
     /**
-     * Copy children of the source folder to the target folder
+     * Copy a document or a folder with all its children on the server
      * 
-     * @param sourceFolder
-     * @param targetFolder
+     * @param userName String user name
+     * @param password String password
+     * @param nodeRef String node to copy
+     * @param targetNodeRef String target folder
+     * @return String node ref of the copy
      */
-    private void copyChildrenFromFolder(Folder sourceFolder,
-                                        Folder targetFolder)
+    @SuppressWarnings("unchecked")
+    public String copyNode(final String userName,
+                           final String password,
+                           final String nodeRef,
+                           final String targetNodeRef)
     {
-        for (Tree<FileableCmisObject> t : sourceFolder.getDescendants(-1))
+        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
+        String reqUrl = client.getApiVersionUrl() + "nodes/" + nodeRef + "/copy";
+        HttpPost post = new HttpPost(reqUrl);
+        JSONObject body = new JSONObject();
+        body.put("targetParentId", targetNodeRef);
+        post.setEntity(client.setMessageBody(body));
+        try
         {
-            CmisObject obj = t.getItem();
-            if (obj instanceof Document)
+            HttpResponse response = client.execute(userName, password, post);
+            switch (response.getStatusLine().getStatusCode())
             {
-                Document d = (Document)obj;
-                d.copy(targetFolder);
-            } 
-            else if (obj instanceof Folder)
-            {
-                copyFolder((Folder) obj, targetFolder);
+                case HttpStatus.SC_CREATED:
+                    JSONObject entry = (JSONObject) client.readStream(response.getEntity()).get("entry");
+                    return (String) entry.get("id");
+                case HttpStatus.SC_NOT_FOUND:
+                    throw new RuntimeException("Content doesn't exists " + nodeRef);
+                case HttpStatus.SC_CONFLICT:
+                    throw new RuntimeException("Content with the same name already exists in " + targetNodeRef);
+                case HttpStatus.SC_FORBIDDEN:
+                    throw new RuntimeException("User " + userName + " doesn't have enough rights");
+                default:
+                    throw new RuntimeException("Unable to copy " + nodeRef + ": " + response.toString());
             }
         }
+        finally
+        {
+            post.releaseConnection();
+            client.close();
+        }
+    }
+
+    private static class CopyTask
+    {
+        private final FileableCmisObject source;
+        private final Folder target;
+        private FileableCmisObject copy;
+
+        private CopyTask(final FileableCmisObject source,
+                         final Folder target)
+        {
+            this.source = source;
+            this.target = target;
+        }
+
+        @Override
+        public String toString()
+        {
+            return source.getName();
+        }
     }
     
     private CmisObject moveTo(final Session session,
@@ -1613,7 +3321,6 @@ public class ContentActions extends CMISUtil
                                      final boolean isInherited,
                                      final boolean remove)
     {
-        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
         String node;
         if(byPath)
         {
@@ -1627,8 +3334,6 @@ public class ContentActions extends CMISUtil
         {
             throw new RuntimeException("Invalid content " + contentName);
         }
-        String api = client.getAlfrescoUrl() + "alfresco/s/slingshot/doclib/permissions/workspace/SpacesStore/" + node;
-        HttpPost post = new HttpPost(api);
         JSONObject permission = new JSONObject();
         JSONArray array = new JSONArray();
         if(!StringUtils.isEmpty(userToAdd) || !StringUtils.isEmpty(groupName))
@@ -1648,10 +3353,7 @@ public class ContentActions extends CMISUtil
             }
             array.add(permission);
         }
-        JSONObject body = new JSONObject();
-        body.put("permissions", array);
-        body.put("isInherited", isInherited);
-        HttpResponse response = client.executeAndRelease(userName, password, body, post);
+        HttpResponse response = postPermissions(userName, password, node, array, isInherited);
         if(200 == response.getStatusLine().getStatusCode())
         {
             if (logger.isTraceEnabled())
@@ -1662,6 +3364,81 @@ public class ContentActions extends CMISUtil
         }
         return false;
     }
+
+    /**
+     * Set the permissions of many documents or folders. Each node gets all its entries and the
+     * inherit flag in one request, the nodes are processed in parallel.
+     * 
+     * @param userName String user name
+     * @param password String password
+     * @param permissions List<NodePermissions> permissions of each node
+     * @param threads int number of parallel workers
+     * @return {@link Report} one entry for each node
+     */
+    public Report applyPermissions(final String userName,
+                                   final String password,
+                                   final List<NodePermissions> permissions,
+                                   final int threads)
+    {
+        if(permissions == null)
+        {
+            throw new IllegalArgumentException("Parameter missing");
+        }
+        final Session session = getCMISSession(userName, password);
+        Report report = new Report();
+        report.addAll(BatchExecutor.execute(permissions, threads, nodePermissions ->
+        {
+            String node = nodePermissions.getNode();
+            if(node.startsWith("/"))
+            {
+                node = getNodeRefByPath(session, node);
+            }
+            if(StringUtils.isEmpty(node))
+            {
+                throw new RuntimeException("Invalid content " + nodePermissions.getNode());
+            }
+            HttpResponse response = postPermissions(userName, password, node,
+                    nodePermissions.toJSON(), nodePermissions.isInheritPermissions());
+            switch (response.getStatusLine().getStatusCode())
+            {
+                case HttpStatus.SC_OK:
+                    return true;
+                case HttpStatus.SC_NOT_FOUND:
+                    throw new RuntimeException("Invalid content " + nodePermissions.getNode());
+                case HttpStatus.SC_FORBIDDEN:
+                    throw new RuntimeException("User " + userName + " doesn't have enough rights");
+                default:
+                    throw new RuntimeException("Unable to set permissions: " + response.getStatusLine());
+            }
+        }));
+        return report;
+    }
+
+    /**
+     * Post the permissions of a node
+     * 
+     * @param node String node ref
+     * @param permissions JSONArray authority, role and remove flag of each entry
+     * @param isInherited boolean is inherited
+     * @return HttpResponse the response, the connection is released
+     */
+    @SuppressWarnings("unchecked")
+    private HttpResponse postPermissions(final String userName,
+                                         final String password,
+                                         final String node,
+                                         final JSONArray permissions,
+                                         final boolean isInherited)
+    {
+        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
+        // accept workspace://SpacesStore/id as well as id
+        String nodeId = node.contains("/") ? StringUtils.substringAfterLast(node, "/") : node;
+        String api = client.getAlfrescoUrl() + "alfresco/s/slingshot/doclib/permissions/workspace/SpacesStore/" + nodeId;
+        HttpPost post = new HttpPost(api);
+        JSONObject body = new JSONObject();
+        body.put("permissions", permissions);
+        body.put("isInherited", isInherited);
+        return client.executeAndRelease(userName, password, body, post);
+    }
     
     /**
      * Set inherit permissions for content
@@ -1928,4 +3705,257 @@ public class ContentActions extends CMISUtil
         properties.put(PropertyIds.NAME, newName);
         addProperties(session, getNodeRefByPath(session, contentPath), properties);
     }
+
+    /**
+     * Move and rename many documents or folders. Relocations sharing a folder, as the folder they
+     * move from or to, are grouped and processed one after the other, checking their names against
+     * the content of the folders listed once. The groups are processed in parallel.
+     * 
+     * @param session {@link Session}
+     * @param relocations List<Relocation> items to move or rename
+     * @param strategy ConflictStrategy when the name is already used in the target folder
+     * @param threads int number of parallel workers
+     * @return List of {@link Result} in the same order as the relocations, the value is the new path
+     * of the item or null if the item was skipped
+     */
+    public List<Result<Relocation, String>> relocate(final Session session,
+                                                     final List<Relocation> relocations,
+                                                     final ConflictStrategy strategy,
+                                                     final int threads)
+    {
+        if(relocations == null || strategy == null)
+        {
+            throw new IllegalArgumentException("Parameter missing");
+        }
+        // folders linked by a relocation, the source and the target folder, end up in one group
+        final Map<String, String> linked = new HashMap<String, String>();
+        for(Relocation relocation : relocations)
+        {
+            String source = findGroup(linked, getSourceFolderPath(relocation));
+            String target = findGroup(linked, relocation.getTargetFolderPath());
+            if(!source.equals(target))
+            {
+                linked.put(source, target);
+            }
+        }
+        final Map<String, List<Integer>> byGroup = new LinkedHashMap<String, List<Integer>>();
+        for(int i = 0; i < relocations.size(); i++)
+        {
+            byGroup.computeIfAbsent(findGroup(linked, relocations.get(i).getTargetFolderPath()), group -> new ArrayList<Integer>()).add(i);
+        }
+        final List<Result<Relocation, String>> results = new ArrayList<Result<Relocation, String>>(
+                Collections.<Result<Relocation, String>>nCopies(relocations.size(), null));
+        BatchExecutor.execute(byGroup.keySet(), threads, group ->
+        {
+            // folders of the group and their lower case names, listed once
+            Map<String, Folder> folders = new HashMap<String, Folder>();
+            Map<String, Set<String>> names = new HashMap<String, Set<String>>();
+            for(int index : byGroup.get(group))
+            {
+                Relocation relocation = relocations.get(index);
+                long start = System.currentTimeMillis();
+                try
+                {
+                    String targetPath = relocation.getTargetFolderPath();
+                    Folder target = getRelocationFolder(session, targetPath, folders, names);
+                    FileableCmisObject item = (FileableCmisObject) getCmisObject(session, relocation.getSourcePath());
+                    String wanted = StringUtils.isEmpty(relocation.getNewName()) ? item.getName() : relocation.getNewName();
+                    String name;
+                    try
+                    {
+                        name = relocate(session, relocation, item, wanted, target, folders, names, strategy);
+                    }
+                    catch(CmisContentAlreadyExistsException clash)
+                    {
+                        // the folders were changed by someone else, list them and choose the name again
+                        names.remove(targetPath);
+                        names.remove(getSourceFolderPath(relocation));
+                        session.removeObjectFromCache(item.getId());
+                        item = (FileableCmisObject) session.getObject(item.getId());
+                        name = relocate(session, relocation, item, wanted, getRelocationFolder(session, targetPath, folders, names),
+                                folders, names, strategy);
+                    }
+                    String path = name == null ? null : targetPath + "/" + name;
+                    results.set(index, new Result<Relocation, String>(relocation, path, null, System.currentTimeMillis() - start));
+                }
+                catch(RuntimeException e)
+                {
+                    results.set(index, new Result<Relocation, String>(relocation, null, e, System.currentTimeMillis() - start));
+                }
+            }
+            return true;
+        });
+        return results;
+    }
+
+    /**
+     * Move and rename many documents or folders.
+     * 
+     * @param userName String user name
+     * @param password String password
+     * @param relocations List<Relocation> items to move or rename
+     * @param strategy ConflictStrategy when the name is already used in the target folder
+     * @param threads int number of parallel workers
+     * @return List of {@link Result} in the same order as the relocations, the value is the new path
+     * of the item or null if the item was skipped
+     */
+    public List<Result<Relocation, String>> relocate(final String userName,
+                                                     final String password,
+                                                     final List<Relocation> relocations,
+                                                     final ConflictStrategy strategy,
+                                                     final int threads)
+    {
+        Session session = getCMISSession(userName, password);
+        return relocate(session, relocations, strategy, threads);
+    }
+
+    /**
+     * Move and rename one item
+     * 
+     * @param item FileableCmisObject the item where it is now
+     * @param wanted String name the item should get
+     * @param names Map<String, Set<String>> lower case names by folder path, updated with the changes
+     * @return String the new name of the item, null if it was skipped
+     */
+    private String relocate(final Session session,
+                            final Relocation relocation,
+                            final FileableCmisObject item,
+                            final String wanted,
+                            final Folder target,
+                            final Map<String, Folder> folders,
+                            final Map<String, Set<String>> names,
+                            final ConflictStrategy strategy)
+    {
+        Set<String> targetNames = names.get(relocation.getTargetFolderPath());
+        FileableCmisObject current = item;
+        String oldName = current.getName();
+        String name = wanted;
+        ObjectId parent = current.getParents().get(0);
+        boolean inPlace = parent.getId().equals(target.getId());
+        if(targetNames.contains(name.toLowerCase()) && !(inPlace && name.equalsIgnoreCase(oldName)))
+        {
+            switch (strategy)
+            {
+                case SKIP:
+                    return null;
+                case FAIL:
+                    throw new CmisRuntimeException("Content with the same name already exists: " + name);
+                default:
+                    name = getFreeName(name, targetNames);
+                    break;
+            }
+        }
+        boolean rename = !name.equals(oldName);
+        String sourcePath = getSourceFolderPath(relocation);
+        // rename before moving when the old name is taken in the target folder, through
+        // a temporary name when the new name is also taken in the source folder
+        if(rename && !inPlace && targetNames.contains(oldName.toLowerCase()))
+        {
+            getRelocationFolder(session, sourcePath, folders, names);
+            Set<String> sourceNames = names.get(sourcePath);
+            String firstName = name;
+            if(sourceNames.contains(name.toLowerCase()))
+            {
+                Set<String> taken = new HashSet<String>(sourceNames);
+                taken.addAll(targetNames);
+                firstName = getFreeName(name, taken);
+            }
+            current = renameTo(current, firstName);
+            sourceNames.remove(oldName.toLowerCase());
+            sourceNames.add(firstName.toLowerCase());
+            oldName = firstName;
+            rename = !name.equals(firstName);
+        }
+        if(!inPlace)
+        {
+            current = current.move(parent, target);
+            Set<String> sourceNames = names.get(sourcePath);
+            if(sourceNames != null)
+            {
+                sourceNames.remove(oldName.toLowerCase());
+            }
+        }
+        if(rename)
+        {
+            current = renameTo(current, name);
+        }
+        if(inPlace)
+        {
+            targetNames.remove(oldName.toLowerCase());
+        }
+        targetNames.add(name.toLowerCase());
+        return name;
+    }
+
+    /**
+     * Get a folder of a relocation group, listing its names on first use
+     */
+    private Folder getRelocationFolder(final Session session,
+                                       final String path,
+                                       final Map<String, Folder> folders,
+                                       final Map<String, Set<String>> names)
+    {
+        Folder folder = folders.get(path);
+        if(folder == null || !names.containsKey(path))
+        {
+            Set<String> folderNames = new HashSet<String>();
+            try
+            {
+                folder = (Folder) getCmisObject(session, path);
+                for(CmisObject child : folder.getChildren())
+                {
+                    folderNames.add(child.getName().toLowerCase());
+                }
+            }
+            catch(RuntimeException e)
+            {
+                throw new CmisRuntimeException("Invalid target folder " + path, e);
+            }
+            folders.put(path, folder);
+            names.put(path, folderNames);
+        }
+        return folder;
+    }
+
+    private static String getSourceFolderPath(final Relocation relocation)
+    {
+        return StringUtils.substringBeforeLast(relocation.getSourcePath(), "/");
+    }
+
+    /**
+     * @return String the folder representing the group of the folder
+     */
+    private static String findGroup(final Map<String, String> linked,
+                                    final String folder)
+    {
+        String group = folder;
+        while(linked.containsKey(group))
+        {
+            group = linked.get(group);
+        }
+        return group;
+    }
+
+    private FileableCmisObject renameTo(final FileableCmisObject item,
+                                        final String name)
+    {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put(PropertyIds.NAME, name);
+        return (FileableCmisObject) item.updateProperties(properties);
+    }
+
+    private String getFreeName(final String name,
+                               final Set<String> names)
+    {
+        String baseName = FilenameUtils.getBaseName(name);
+        String extension = FilenameUtils.getExtension(name);
+        for(int i = 1; ; i++)
+        {
+            String candidate = baseName + "-" + i + (extension.isEmpty() ? "" : "." + extension);
+            if(!names.contains(candidate.toLowerCase()))
+            {
+                return candidate;
+            }
+        }
+    }
 }
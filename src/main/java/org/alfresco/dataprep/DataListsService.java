@@ -14,14 +14,23 @@
  */
 package org.alfresco.dataprep;
 
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.alfresco.dataprep.BatchExecutor.Report;
+import org.alfresco.dataprep.BatchExecutor.Result;
 
 import org.apache.chemistry.opencmis.client.api.CmisObject;
 import org.apache.chemistry.opencmis.client.api.Document;
@@ -30,6 +39,7 @@ import org.apache.chemistry.opencmis.client.api.ObjectId;
 import org.apache.chemistry.opencmis.client.api.Session;
 import org.apache.chemistry.opencmis.commons.PropertyIds;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisObjectNotFoundException;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
 import org.apache.commons.httpclient.HttpStatus;
 import org.apache.commons.lang3.StringUtils;
@@ -37,11 +47,8 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpGet;
-import org.apache.http.util.EntityUtils;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -53,6 +60,17 @@ import org.springframework.stereotype.Service;
 public class DataListsService extends CMISUtil
 {
     private static Log logger = LogFactory.getLog(DataListsService.class);
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final String[] FIRST_NAMES = {"John", "Mary", "Alex", "Maria", "David", "Elena", "Michael", "Anna", "Robert", "Ioana"};
+    private static final String[] LAST_NAMES = {"Smith", "Popescu", "Johnson", "Brown", "Ionescu", "Miller", "Davis", "Wilson", "Moore", "Taylor"};
+    private static final String[] COMPANIES = {"Alfresco", "Acme", "Globex", "Initech", "Umbrella", "Hooli"};
+    private static final String[] JOB_TITLES = {"Developer", "Manager", "Analyst", "Architect", "Tester", "Consultant"};
+    private static final String[] PLACES = {"London", "Bucharest", "Maidenhead", "Atlanta", "Paris", "Berlin", "Madrid"};
+    private static final String[] WORDS = {"release", "review", "budget", "planning", "migration", "training", "support",
+                                           "workshop", "customer", "quality", "report", "design", "backlog", "meeting"};
+    /** Node ref, name and item type of the data lists by site, then by lower case title */
+    private final ConcurrentMap<String, ConcurrentMap<String, List<String>>> dataListIds =
+            new ConcurrentHashMap<String, ConcurrentMap<String, List<String>>>();
     
     public enum DataList
     {
@@ -72,6 +90,138 @@ public class DataListsService extends CMISUtil
         }
     }
 
+    /**
+     * Data lists to be loaded in a site by {@link DataListsService#loadDataLists}.
+     * Item values, names and dates included, are taken from generators seeded per item,
+     * the same spec loads the same data.
+     */
+    public static class DataListLoadSpec
+    {
+        /** 2016-01-01T00:00:00Z, the default first day of the generated dates */
+        public static final long DEFAULT_START_DATE = 1451606400000L;
+        private final String prefix;
+        private final long seed;
+        private long startDate = DEFAULT_START_DATE;
+        private final Map<DataList, int[]> lists = new EnumMap<DataList, int[]>(DataList.class);
+
+        /**
+         * @param prefix String prefix of the generated list titles
+         * @param seed long seed of the item generators
+         */
+        public DataListLoadSpec(final String prefix,
+                                final long seed)
+        {
+            this.prefix = prefix;
+            this.seed = seed;
+        }
+
+        /**
+         * @param listType DataList type of the lists
+         * @param numberOfLists int number of lists to create
+         * @param itemsPerList int number of items to create in each list
+         */
+        public DataListLoadSpec setLists(final DataList listType,
+                                         final int numberOfLists,
+                                         final int itemsPerList)
+        {
+            if(numberOfLists < 0 || itemsPerList < 0)
+            {
+                throw new IllegalArgumentException("Invalid number of lists or items");
+            }
+            lists.put(listType, new int[] { numberOfLists, itemsPerList });
+            return this;
+        }
+
+        /**
+         * @param startDate Date first day of the generated dates (e.g. new Date() for upcoming events)
+         */
+        public DataListLoadSpec setStartDate(final Date startDate)
+        {
+            if(startDate == null)
+            {
+                throw new IllegalArgumentException("Parameter missing");
+            }
+            this.startDate = startDate.getTime();
+            return this;
+        }
+
+        public String getPrefix()
+        {
+            return prefix;
+        }
+
+        public Date getStartDate()
+        {
+            return new Date(startDate);
+        }
+
+        public long getSeed()
+        {
+            return seed;
+        }
+
+        public int getNumberOfLists(final DataList listType)
+        {
+            return lists.containsKey(listType) ? lists.get(listType)[0] : 0;
+        }
+
+        public int getItemsPerList(final DataList listType)
+        {
+            return lists.containsKey(listType) ? lists.get(listType)[1] : 0;
+        }
+
+        /**
+         * @return String title of the list with the given index
+         */
+        public String getListTitle(final DataList listType,
+                                   final int index)
+        {
+            return prefix + "-" + listType.name().toLowerCase() + "-" + index;
+        }
+    }
+
+    private static class GeneratedList
+    {
+        private final DataList type;
+        private final int index;
+        private final String title;
+        private ObjectId id;
+
+        private GeneratedList(final DataList type,
+                              final int index,
+                              final String title)
+        {
+            this.type = type;
+            this.index = index;
+            this.title = title;
+        }
+
+        @Override
+        public String toString()
+        {
+            return title;
+        }
+    }
+
+    private static class GeneratedListItem
+    {
+        private final GeneratedList list;
+        private final int index;
+
+        private GeneratedListItem(final GeneratedList list,
+                                  final int index)
+        {
+            this.list = list;
+            this.index = index;
+        }
+
+        @Override
+        public String toString()
+        {
+            return list.title + "/" + index;
+        }
+    }
+
     /**
      * Create data list.
      * 
@@ -90,21 +240,40 @@ public class DataListsService extends CMISUtil
                                    final String listName,
                                    final String description)
     {
-        getDataLists(userName, password, siteName);
-        UUID uuid = UUID.randomUUID();
         Session session = getCMISSession(userName, password);
+        Folder fold = (Folder) session.getObjectByPath("/sites/" + siteName + "/datalists");
+        return createDataList(session, siteName, fold, listType, listName, description);
+    }
+
+    /**
+     * Create a data list in the given datalists container, the title is set on creation.
+     * 
+     * @param session {@link Session} the session
+     * @param siteName String site id
+     * @param dataLists {@link Folder} datalists container of the site
+     * @param listType List data list type to be created
+     * @param listName name of the new list
+     * @param description String description
+     * @return ObjectId id of the new created list
+     */
+    private ObjectId createDataList(final Session session,
+                                    final String siteName,
+                                    final Folder dataLists,
+                                    final DataList listType,
+                                    final String listName,
+                                    final String description)
+    {
         Map<String, Object> props = new HashMap<String, Object>();
         props.put(PropertyIds.OBJECT_TYPE_ID, "F:dl:dataList");
+        props.put(PropertyIds.SECONDARY_OBJECT_TYPE_IDS, Arrays.asList("P:cm:titled"));
+        String name = UUID.randomUUID().toString();
         props.put("dl:dataListItemType", listType.listTypeId);
-        props.put(PropertyIds.NAME, uuid.toString());
+        props.put(PropertyIds.NAME, name);
         props.put(PropertyIds.DESCRIPTION, description);
-        Folder fold = (Folder) session.getObjectByPath("/sites/" + siteName + "/datalists");
-        ObjectId id = session.createFolder(props, fold);
-        // set the title
-        Folder newfold = (Folder) session.getObjectByPath("/sites/" + siteName + "/datalists/" + uuid.toString());
-        Map<String, Object> newProp = new HashMap<String, Object>();
-        newProp.put("cm:title", listName);
-        newfold.updateProperties(newProp);
+        props.put("cm:title", listName);
+        ObjectId id = session.createFolder(props, dataLists);
+        String nodeRef = id.getId().contains("://") ? id.getId() : "workspace://SpacesStore/" + id.getId();
+        indexDataList(siteName, listName, Arrays.asList(nodeRef, name, listType.listTypeId));
         return id;
     }
     
@@ -127,7 +296,6 @@ public class DataListsService extends CMISUtil
                                    final String newListName,
                                    final String newDescription)
     {
-        getDataLists(userName, password, siteName);
         String dataListName=getDataListName(userName, password, siteName, listName);
         
         // set new title and new description
@@ -136,8 +304,10 @@ public class DataListsService extends CMISUtil
         Map<String, Object> newProp = new HashMap<String, Object>();
         newProp.put("cm:title", newListName);
         newProp.put("cm:description", newDescription);
-        return newfold.updateProperties(newProp);
-        
+        ObjectId id = newfold.updateProperties(newProp);
+        unindexDataList(siteName, listName);
+        return id;
+
     }
     
     /**
@@ -153,79 +323,164 @@ public class DataListsService extends CMISUtil
                                final String siteName,
                                final String listName)
     {
-        getDataLists(userName, password, siteName);
         String dataListName=getDataListName(userName, password, siteName, listName);
         
         // set new title and new description
         Session session = getCMISSession(userName, password);
         CmisObject datalist = session.getObjectByPath("/sites/" + siteName + "/datalists/" + dataListName);
         datalist.delete();
+        unindexDataList(siteName, listName);
     }
 
     /**
-     * Get data list from a site.
+     * Get the node ref, name and item type of a data list. The ids are read from the index of the
+     * site data lists, the index is (re)loaded when the title is not in it.
      * 
      * @param userName String user name
      * @param password String password
      * @param siteName String site name
-     * @return HttpResponse response
+     * @param dataListTitle String data list title
+     * @return List<String> node ref, name and item type, empty if the data list is not found
+     * @throws RuntimeException if site is not found
      */
-    private HttpResponse getDataLists(final String userName,
-                                      final String password,
-                                      final String siteName)
-    {
-        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
-        String url = client.getAlfrescoUrl() + "alfresco/s/slingshot/datalists/lists/site/" + siteName + "/dataLists";
-        HttpGet get = new HttpGet(url);
-        return client.execute(userName, password, get);
-    }
-    
-    @SuppressWarnings("unchecked")
     private List<String> getDataListIds(final String userName,
                                         final String password,
                                         final String siteName,
                                         final String dataListTitle)
     {
-        List<String>ids = new ArrayList<String>();
-        HttpResponse response = getDataLists(userName, password, siteName);
-        switch (response.getStatusLine().getStatusCode())
-        {
-            case HttpStatus.SC_OK:
-                String strResponse = "";
-                Object obj = null;
-                try
-                {
-                    strResponse = EntityUtils.toString(response.getEntity());
-                    JSONParser parser = new JSONParser();
-                    obj = parser.parse(strResponse);
-                }
-                catch (ParseException | IOException e)
-                {
-                    throw new RuntimeException("Failed to parse the response: " + strResponse);
-                }
-                JSONObject jsonObject = (JSONObject) obj;
-                JSONArray jArray = (JSONArray) jsonObject.get("datalists");
-                Iterator<JSONObject> iterator = ((List<JSONObject>) jArray).iterator();
-                while (iterator.hasNext()) 
-                {
-                    JSONObject factObj = (JSONObject) iterator.next();
-                    String theTitle = (String) factObj.get("title");
-                    if(dataListTitle.toString().equalsIgnoreCase(theTitle))
+        ConcurrentMap<String, List<String>> lists = dataListIds.get(siteName);
+        if(lists == null || !lists.containsKey(dataListTitle.toLowerCase()))
+        {
+            lists = loadDataListIds(userName, password, siteName);
+        }
+        List<String> ids = lists.get(dataListTitle.toLowerCase());
+        return ids == null ? new ArrayList<String>() : new ArrayList<String>(ids);
+    }
+
+    /**
+     * Read all the data lists of a site and replace the index of the site
+     * 
+     * @param userName String user name
+     * @param password String password
+     * @param siteName String site name
+     * @return ConcurrentMap<String, List<String>> ids by lower case title
+     * @throws RuntimeException if site is not found
+     */
+    @SuppressWarnings("unchecked")
+    private ConcurrentMap<String, List<String>> loadDataListIds(final String userName,
+                                                              final String password,
+                                                              final String siteName)
+    {
+        ConcurrentMap<String, List<String>> lists = new ConcurrentHashMap<String, List<String>>();
+        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
+        String url = client.getAlfrescoUrl() + "alfresco/s/slingshot/datalists/lists/site/" + siteName + "/dataLists";
+        HttpGet get = new HttpGet(url);
+        try
+        {
+            HttpResponse response = client.execute(userName, password, get);
+            switch (response.getStatusLine().getStatusCode())
+            {
+                case HttpStatus.SC_OK:
+                    JSONObject jsonObject = client.readStream(response.getEntity());
+                    JSONArray jArray = (JSONArray) jsonObject.get("datalists");
+                    Iterator<JSONObject> iterator = ((List<JSONObject>) jArray).iterator();
+                    while (iterator.hasNext()) 
                     {
-                        ids.add((String) factObj.get("nodeRef"));
-                        ids.add((String) factObj.get("name"));
+                        JSONObject factObj = (JSONObject) iterator.next();
+                        String theTitle = (String) factObj.get("title");
+                        if(theTitle != null)
+                        {
+                            lists.putIfAbsent(theTitle.toLowerCase(), Arrays.asList((String) factObj.get("nodeRef"),
+                                    (String) factObj.get("name"), (String) factObj.get("itemType")));
+                        }
                     }
-                }
-                return ids;
-            case HttpStatus.SC_NOT_FOUND:
-                throw new RuntimeException("Invalid site " + siteName);
-            case HttpStatus.SC_UNAUTHORIZED:
-                throw new RuntimeException("Invalid credentials");
-            default:
-                logger.error("Unable to find: " + dataListTitle + " " + response.toString());
-                break;
+                    break;
+                case HttpStatus.SC_NOT_FOUND:
+                    throw new RuntimeException("Invalid site " + siteName);
+                case HttpStatus.SC_UNAUTHORIZED:
+                    throw new RuntimeException("Invalid credentials");
+                default:
+                    logger.error("Unable to read the data lists of site " + siteName + " " + response.toString());
+                    return lists;
+            }
+        }
+        finally
+        {
+            get.releaseConnection();
+            client.close();
+        }
+        dataListIds.put(siteName, lists);
+        return lists;
+    }
+
+    private void indexDataList(final String siteName,
+                               final String dataListTitle,
+                               final List<String> ids)
+    {
+        ConcurrentMap<String, List<String>> lists = dataListIds.get(siteName);
+        if(lists == null)
+        {
+            dataListIds.putIfAbsent(siteName, new ConcurrentHashMap<String, List<String>>());
+            lists = dataListIds.get(siteName);
+        }
+        lists.put(dataListTitle.toLowerCase(), ids);
+    }
+
+    private void unindexDataList(final String siteName,
+                                 final String dataListTitle)
+    {
+        ConcurrentMap<String, List<String>> lists = dataListIds.get(siteName);
+        if(lists != null && dataListTitle != null)
+        {
+            lists.remove(dataListTitle.toLowerCase());
+        }
+    }
+
+    /**
+     * Remove the data lists of a site from the index
+     * 
+     * @param siteName String site name
+     */
+    public void invalidateDataLists(final String siteName)
+    {
+        dataListIds.remove(siteName);
+    }
+
+    /**
+     * Remove all sites from the data lists index
+     */
+    public void clearDataListsCache()
+    {
+        dataListIds.clear();
+    }
+
+    /**
+     * Get the type of a data list
+     * 
+     * @param userName String user name
+     * @param password String password
+     * @param siteName String site name
+     * @param dataListTitle String data list title
+     * @return DataList type of the list, null if the list or its type is not known
+     */
+    public DataList getDataListType(final String userName,
+                                    final String password,
+                                    final String siteName,
+                                    final String dataListTitle)
+    {
+        List<String> ids = getDataListIds(userName, password, siteName, dataListTitle);
+        if(ids.size() < 3)
+        {
+            return null;
         }
-        return ids;
+        for(DataList listType : DataList.values())
+        {
+            if(listType.listTypeId.equals(ids.get(2)))
+            {
+                return listType;
+            }
+        }
+        return null;
     }
     
     /**
@@ -265,20 +520,17 @@ public class DataListsService extends CMISUtil
     /**
      * Method to add items to a created data list
      *
-     * @param userName String identifier
-     * @param password String password
+     * @param session {@link Session} the session
      * @param objectId ObjectId ID of created data list
      * @param propertiesMap details of the item
      * @return {@link ObjectId} of new created item
      */
-    private ObjectId addItem(final String userName,
-                             final String password,
+    private ObjectId addItem(final Session session,
                              final ObjectId objectId,
                              Map<String, Object> propertiesMap)
     {
         try
         {
-            Session session = getCMISSession(userName, password);
             ObjectId itemId = session.createDocument(propertiesMap, objectId, null, null);
             return itemId;
         }
@@ -330,7 +582,7 @@ public class DataListsService extends CMISUtil
         propertyMap.put("dl:contactNotes", notes);
         Session session = getCMISSession(userName, password);
         CmisObject listNodeRef = session.getObject(getDataListNodeRef(userName, password, siteName, contactListTitle));
-        return addItem(userName, password, listNodeRef, propertyMap);
+        return addItem(session, listNodeRef, propertyMap);
     }
 
     /**
@@ -376,7 +628,7 @@ public class DataListsService extends CMISUtil
         Session session = getCMISSession(userName, password);
         CmisObject listNodeRef = session.getObject(getDataListNodeRef(userName, password, siteName, eventAgendaTitle));
         // create the item
-        ObjectId itemId = addItem(userName, password, listNodeRef, propertyMap);
+        ObjectId itemId = addItem(session, listNodeRef, propertyMap);
         if(!docsToAttach.isEmpty())
         {
             attachDocuments(userName, password, siteName, docsToAttach, itemId);
@@ -424,11 +676,11 @@ public class DataListsService extends CMISUtil
         propertyMap.put("dl:eventRegistrations", registration);
         propertyMap.put("dl:eventNote", notes);
         Session session = getCMISSession(userName, password);
-        CmisObject listNodeRef = session.getObject(getDataListNodeRef(userName, password, siteName, eventListTitle));
+        List<String> ids = getDataListIds(userName, password, siteName, eventListTitle);
+        CmisObject listNodeRef = session.getObject(ids.get(0));
         // create the item
-        ObjectId itemId = addItem(userName, password, listNodeRef, propertyMap);
-        String eventListName = getDataListName(userName, password, siteName, eventListTitle);
-        Document newItem = (Document) session.getObjectByPath("/sites/" + siteName + "/datalists/" + eventListName + "/" + uuid.toString());
+        ObjectId itemId = addItem(session, listNodeRef, propertyMap);
+        Document newItem = (Document) session.getObjectByPath("/sites/" + siteName + "/datalists/" + ids.get(1) + "/" + uuid.toString());
         Map<String, Object> newProp = new HashMap<String, Object>();
         newProp.put("cm:title", itemTitle);
         newItem.updateProperties(newProp);
@@ -482,11 +734,11 @@ public class DataListsService extends CMISUtil
         propertyMap.put("dl:issueDueDate", dueDate);
         propertyMap.put("dl:issueComments", comments);
         Session session = getCMISSession(userName, password);
-        CmisObject listNodeRef = session.getObject(getDataListNodeRef(userName, password, siteName, issueListTitle));
+        List<String> ids = getDataListIds(userName, password, siteName, issueListTitle);
+        CmisObject listNodeRef = session.getObject(ids.get(0));
         // create the item
-        ObjectId itemId = addItem(userName, password, listNodeRef, propertyMap);
-        String eventListName = getDataListName(userName, password, siteName, issueListTitle);
-        Document newItem = (Document) session.getObjectByPath("/sites/" + siteName + "/datalists/" + eventListName + "/" + uuid.toString());
+        ObjectId itemId = addItem(session, listNodeRef, propertyMap);
+        Document newItem = (Document) session.getObjectByPath("/sites/" + siteName + "/datalists/" + ids.get(1) + "/" + uuid.toString());
         Map<String, Object> newProp = new HashMap<String, Object>();
         newProp.put("cm:title", issueTitle);
         newItem.updateProperties(newProp);
@@ -548,7 +800,7 @@ public class DataListsService extends CMISUtil
         Session session = getCMISSession(userName, password);
         List<String> ids = getDataListIds(userName, password, siteName, locationListTitle);
         CmisObject listNodeRef = session.getObject(ids.get(0));
-        ObjectId itemId = addItem(userName, password, listNodeRef, propertyMap);
+        ObjectId itemId = addItem(session, listNodeRef, propertyMap);
         Document newItem = (Document) session.getObjectByPath("/sites/" + siteName + "/datalists/" + ids.get(1) + "/" + uuid.toString());
         Map<String, Object> newProp = new HashMap<String, Object>();
         newProp.put("cm:title", itemTitle);
@@ -597,7 +849,7 @@ public class DataListsService extends CMISUtil
         Session session = getCMISSession(userName, password);
         List<String> ids = getDataListIds(userName, password, siteName, meetingListTitle);
         CmisObject listNodeRef = session.getObject(ids.get(0));
-        ObjectId itemId = addItem(userName, password, listNodeRef, propertyMap);
+        ObjectId itemId = addItem(session, listNodeRef, propertyMap);
         Document newItem = (Document) session.getObjectByPath("/sites/" + siteName + "/datalists/" + ids.get(1) + "/" + uuid.toString());
         Map<String, Object> newProp = new HashMap<String, Object>();
         newProp.put("cm:title", itemTitle);
@@ -654,7 +906,7 @@ public class DataListsService extends CMISUtil
         Session session = getCMISSession(userName, password);
         List<String> ids = getDataListIds(userName, password, siteName, taskAdvListTitle);
         CmisObject listNodeRef = session.getObject(ids.get(0));
-        ObjectId itemId = addItem(userName, password, listNodeRef, propertyMap);
+        ObjectId itemId = addItem(session, listNodeRef, propertyMap);
         Document newItem = (Document) session.getObjectByPath("/sites/" + siteName + "/datalists/" + ids.get(1) + "/" + uuid.toString());
         Map<String, Object> newProp = new HashMap<String, Object>();
         newProp.put("cm:title", itemTitle);
@@ -715,7 +967,7 @@ public class DataListsService extends CMISUtil
         Session session = getCMISSession(userName, password);
         List<String> ids = getDataListIds(userName, password, siteName, taskSimpleListTitle);
         CmisObject listNodeRef = session.getObject(ids.get(0));
-        ObjectId itemId = addItem(userName, password, listNodeRef, propertyMap);
+        ObjectId itemId = addItem(session, listNodeRef, propertyMap);
         Document newItem = (Document) session.getObjectByPath("/sites/" + siteName + "/datalists/" + ids.get(1) + "/" + uuid.toString());
         Map<String, Object> newProp = new HashMap<String, Object>();
         newProp.put("cm:title", itemTitle);
@@ -763,7 +1015,7 @@ public class DataListsService extends CMISUtil
         Session session = getCMISSession(userName, password);
         List<String> ids = getDataListIds(userName, password, siteName, toDoListTitle);
         CmisObject listNodeRef = session.getObject(ids.get(0));
-        ObjectId itemId = addItem(userName, password, listNodeRef, propertyMap);
+        ObjectId itemId = addItem(session, listNodeRef, propertyMap);
         if(!StringUtils.isEmpty(assignedToUser))
         {
             List<String> user = new ArrayList<String>();
@@ -789,6 +1041,179 @@ public class DataListsService extends CMISUtil
         return itemId;
     }
     
+    /**
+     * Create the data lists from the spec and fill them with generated items.
+     * All the lists and items are created through a single CMIS session shared by the workers.
+     * 
+     * @param userName String user name
+     * @param password String password
+     * @param siteName String site name
+     * @param spec {@link DataListLoadSpec} lists to create
+     * @param threads int number of parallel workers
+     * @return {@link Report} one entry for each list and each item
+     */
+    public Report loadDataLists(final String userName,
+                                final String password,
+                                final String siteName,
+                                final DataListLoadSpec spec,
+                                final int threads)
+    {
+        if(StringUtils.isEmpty(siteName) || spec == null)
+        {
+            throw new IllegalArgumentException("Parameter missing");
+        }
+        final Session session = getCMISSession(userName, password);
+        final Folder dataLists;
+        try
+        {
+            dataLists = (Folder) session.getObjectByPath("/sites/" + siteName + "/datalists");
+        }
+        catch(CmisObjectNotFoundException nf)
+        {
+            throw new RuntimeException("Invalid site " + siteName, nf);
+        }
+        List<GeneratedList> lists = new ArrayList<GeneratedList>();
+        for(DataList listType : DataList.values())
+        {
+            for(int i = 0; i < spec.getNumberOfLists(listType); i++)
+            {
+                lists.add(new GeneratedList(listType, i, spec.getListTitle(listType, i)));
+            }
+        }
+        Report report = new Report();
+        List<GeneratedListItem> items = new ArrayList<GeneratedListItem>();
+        for(Result<GeneratedList, ObjectId> result : BatchExecutor.execute(lists, threads, list ->
+                createDataList(session, siteName, dataLists, list.type, list.title, list.title)))
+        {
+            report.add(result);
+            if(result.isSuccessful())
+            {
+                GeneratedList list = result.getItem();
+                list.id = result.getValue();
+                for(int i = 0; i < spec.getItemsPerList(list.type); i++)
+                {
+                    items.add(new GeneratedListItem(list, i));
+                }
+            }
+        }
+        report.addAll(BatchExecutor.execute(items, threads, item ->
+        {
+            Random random = new Random(Objects.hash(spec.getSeed(), item.list.type.ordinal(), item.list.index, item.index));
+            return addItem(session, item.list.id, generateItem(item.list.type, item.toString(), spec.startDate, random));
+        }));
+        if(logger.isTraceEnabled())
+        {
+            logger.trace("Data lists loaded in " + siteName + ": " + report);
+        }
+        return report;
+    }
+
+    /**
+     * Generate the properties of a data list item
+     * 
+     * @param listType DataList type of the list
+     * @param title String item title
+     * @param startDate long first day of the dates
+     * @param random {@link Random} seeded source of the values
+     * @return Map<String, Object> item properties
+     */
+    private static Map<String, Object> generateItem(final DataList listType,
+                                                    final String title,
+                                                    final long startDate,
+                                                    final Random random)
+    {
+        Map<String, Object> props = new HashMap<String, Object>();
+        props.put(PropertyIds.OBJECT_TYPE_ID, "D:" + listType.listTypeId);
+        props.put(PropertyIds.NAME, new UUID(random.nextLong(), random.nextLong()).toString());
+        String text = pick(random, WORDS) + " " + pick(random, WORDS) + " " + pick(random, WORDS);
+        Date start = new Date(startDate + random.nextInt(60) * DAY);
+        Date end = new Date(start.getTime() + (1 + random.nextInt(5)) * DAY);
+        Status status = pick(random, Status.values());
+        Priority priority = pick(random, Priority.values());
+        switch (listType)
+        {
+            case CONTACT_LIST:
+                String firstName = pick(random, FIRST_NAMES);
+                String lastName = pick(random, LAST_NAMES);
+                String company = pick(random, COMPANIES);
+                props.put("dl:contactFirstName", firstName);
+                props.put("dl:contactLastName", lastName);
+                props.put("dl:contactEmail", (firstName + "." + lastName + "@" + company + ".com").toLowerCase());
+                props.put("dl:contactCompany", company);
+                props.put("dl:contactJobTitle", pick(random, JOB_TITLES));
+                props.put("dl:contactPhoneOffice", String.format("0%09d", random.nextInt(1000000000)));
+                props.put("dl:contactPhoneMobile", String.format("07%08d", random.nextInt(100000000)));
+                props.put("dl:contactNotes", text);
+                return props;
+            case EVENT_AGENDA:
+                int hour = 8 + random.nextInt(9);
+                props.put("dl:eventAgendaRef", title);
+                props.put("dl:eventAgendaStartTime", String.format("%02d:00", hour));
+                props.put("dl:eventAgendaEndTime", String.format("%02d:00", hour + 1));
+                props.put("dl:eventAgendaSessionName", text);
+                props.put("dl:eventAgendaPresenter", pick(random, FIRST_NAMES) + " " + pick(random, LAST_NAMES));
+                props.put("dl:eventAgendaAudience", pick(random, JOB_TITLES));
+                props.put("dl:eventAgendaNotes", text);
+                return props;
+            case EVENT_LIST:
+                props.put("dl:eventLocation", pick(random, PLACES));
+                props.put("dl:eventStartDate", start);
+                props.put("dl:eventEndDate", end);
+                props.put("dl:eventRegistrations", pick(random, FIRST_NAMES));
+                props.put("dl:eventNote", text);
+                break;
+            case ISSUE_LIST:
+                props.put("dl:issueID", title);
+                props.put("dl:issueStatus", status.getValue());
+                props.put("dl:issuePriority", priority.name());
+                props.put("dl:issueDueDate", end);
+                props.put("dl:issueComments", text);
+                break;
+            case LOCATION_LIST:
+                props.put("dl:locationAddress1", (1 + random.nextInt(200)) + " " + pick(random, WORDS) + " street");
+                props.put("dl:locationZip", String.format("%06d", random.nextInt(1000000)));
+                props.put("dl:locationState", pick(random, PLACES));
+                props.put("dl:locationCountry", pick(random, PLACES));
+                break;
+            case MEETING_AGENDA:
+                props.put("dl:meetingAgendaRef", title);
+                props.put("dl:meetingAgendaTime", String.valueOf(15 * (1 + random.nextInt(8))));
+                props.put("dl:meetingAgendaOwner", pick(random, FIRST_NAMES));
+                break;
+            case TASKS_ADVANCED:
+                props.put("dl:taskPriority", priority.name());
+                props.put("dl:taskStatus", status.getValue());
+                props.put("dl:taskComments", text);
+                break;
+            case TASKS_SIMPLE:
+                props.put("dl:simpletaskPriority", priority.name());
+                props.put("dl:simpletaskStatus", status.getValue());
+                props.put("dl:simpletaskDueDate", end);
+                props.put("dl:simpletaskComments", text);
+                break;
+            case TODO_LIST:
+                props.put("dl:todoTitle", title);
+                props.put("dl:todoDueDate", end);
+                props.put("dl:todoPriority", priority.getLevel());
+                props.put("dl:todoStatus", status.getValue());
+                props.put("dl:todoNotes", text);
+                return props;
+            default:
+                throw new IllegalArgumentException("Unsupported data list type: " + listType);
+        }
+        // the rest of the item types have a title and a description
+        props.put(PropertyIds.SECONDARY_OBJECT_TYPE_IDS, Arrays.asList("P:cm:titled"));
+        props.put("cm:title", title);
+        props.put(PropertyIds.DESCRIPTION, text);
+        return props;
+    }
+
+    private static <T> T pick(final Random random,
+                              final T[] values)
+    {
+        return values[random.nextInt(values.length)];
+    }
+    
     /**
      * Assign a user to a data list item
      * 
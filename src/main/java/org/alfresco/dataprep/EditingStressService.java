@@ -0,0 +1,610 @@
+/*
+ * Copyright (C) 2005-2015 Alfresco Software Limited.
+ * This file is part of Alfresco
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.alfresco.dataprep;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
+import org.alfresco.dataprep.BatchExecutor.Report;
+import org.alfresco.dataprep.BatchExecutor.Result;
+import org.apache.chemistry.opencmis.client.api.Document;
+import org.apache.chemistry.opencmis.client.api.ObjectId;
+import org.apache.chemistry.opencmis.client.api.OperationContext;
+import org.apache.chemistry.opencmis.client.api.Session;
+import org.apache.chemistry.opencmis.commons.data.ContentStream;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisConstraintException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisUpdateConflictException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisVersioningException;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs many users checking out, editing and checking in documents at the same time, to
+ * measure the locking behaviour of the repository under editing load.
+ * <p>
+ * The first documents are shared by all the users, the others are split between the users so
+ * that each one edits its own documents. The {@link EditingModel} contention gives the share of
+ * the edits made on the shared documents. A check out refused because the document is already
+ * checked out is a lock conflict. Once all the users are done, the version history of every
+ * document is compared with the check ins that succeeded, a missing version is a lost update.
+ */
+@Service
+public class EditingStressService
+{
+    private static Log logger = LogFactory.getLog(EditingStressService.class);
+
+    @Autowired
+    private ContentActions contentActions;
+
+    public enum Operation
+    {
+        CHECK_OUT,
+        CHECK_IN,
+        CANCEL_CHECK_OUT;
+    }
+
+    /**
+     * Number of edits of each user, share of contended edits and think time between check out and check in.
+     * E.g. new EditingModel(20).setContention(0.3) makes 30% of the 20 edits of each user on the shared documents.
+     */
+    public static class EditingModel
+    {
+        private final int editsPerUser;
+        private double contention;
+        private int sharedDocuments = 1;
+        private ToLongFunction<Random> thinkTime = ThinkTime.NONE;
+        private long seed = System.currentTimeMillis();
+
+        public EditingModel(final int editsPerUser)
+        {
+            if(editsPerUser < 1)
+            {
+                throw new IllegalArgumentException("Invalid number of edits");
+            }
+            this.editsPerUser = editsPerUser;
+        }
+
+        /**
+         * @param ratio double between 0 (users never edit the same documents) and 1 (users only edit the shared documents)
+         */
+        public EditingModel setContention(final double ratio)
+        {
+            if(ratio < 0 || ratio > 1)
+            {
+                throw new IllegalArgumentException("Invalid contention ratio");
+            }
+            this.contention = ratio;
+            return this;
+        }
+
+        /**
+         * Number of documents, taken first from the list, shared by all the users (default 1)
+         */
+        public EditingModel setSharedDocuments(final int sharedDocuments)
+        {
+            if(sharedDocuments < 0)
+            {
+                throw new IllegalArgumentException("Invalid number of shared documents");
+            }
+            this.sharedDocuments = sharedDocuments;
+            return this;
+        }
+
+        /**
+         * Keep the document checked out a random time, uniform between min and max, before checking it in
+         */
+        public EditingModel setThinkTime(final long minMillis,
+                                         final long maxMillis)
+        {
+            return setThinkTime(ThinkTime.uniform(minMillis, maxMillis));
+        }
+
+        /**
+         * Keep the document checked out a random time, drawn from the sampler in milliseconds, before checking it in
+         */
+        public EditingModel setThinkTime(final ToLongFunction<Random> sampler)
+        {
+            if(sampler == null)
+            {
+                throw new IllegalArgumentException("Parameter missing");
+            }
+            this.thinkTime = sampler;
+            return this;
+        }
+
+        /**
+         * Seed of the random choices, for reproducible runs
+         */
+        public EditingModel setSeed(final long seed)
+        {
+            this.seed = seed;
+            return this;
+        }
+    }
+
+    /**
+     * One executed operation
+     */
+    public static class EditRecord
+    {
+        private final String user;
+        private final String document;
+        private final Operation operation;
+        private final boolean successful;
+        private final boolean conflict;
+        private final long durationMillis;
+
+        public EditRecord(final String user,
+                          final String document,
+                          final Operation operation,
+                          final boolean successful,
+                          final boolean conflict,
+                          final long durationMillis)
+        {
+            this.user = user;
+            this.document = document;
+            this.operation = operation;
+            this.successful = successful;
+            this.conflict = conflict;
+            this.durationMillis = durationMillis;
+        }
+
+        public String getUser()
+        {
+            return user;
+        }
+
+        public String getDocument()
+        {
+            return document;
+        }
+
+        public Operation getOperation()
+        {
+            return operation;
+        }
+
+        public boolean isSuccessful()
+        {
+            return successful;
+        }
+
+        /**
+         * @return true if the operation was refused because of a concurrent edit
+         */
+        public boolean isConflict()
+        {
+            return conflict;
+        }
+
+        public long getDurationMillis()
+        {
+            return durationMillis;
+        }
+    }
+
+    /**
+     * Latencies counted in buckets of exponentially growing width: up to 1 ms, 2 ms, 4 ms, ...
+     */
+    public static class LatencyHistogram
+    {
+        private static final int BUCKETS = 20;
+        private final int[] counts = new int[BUCKETS + 1];
+        private int total;
+
+        public void add(final long millis)
+        {
+            int bucket = 0;
+            while(bucket < BUCKETS && millis > getUpperBound(bucket))
+            {
+                bucket++;
+            }
+            counts[bucket]++;
+            total++;
+        }
+
+        public int getCount()
+        {
+            return total;
+        }
+
+        /**
+         * @return Map<Long, Integer> count by upper bound in milliseconds, Long.MAX_VALUE for the last bucket
+         */
+        public Map<Long, Integer> getBuckets()
+        {
+            Map<Long, Integer> buckets = new LinkedHashMap<Long, Integer>();
+            for(int i = 0; i <= BUCKETS; i++)
+            {
+                if(counts[i] > 0)
+                {
+                    buckets.put(getUpperBound(i), counts[i]);
+                }
+            }
+            return buckets;
+        }
+
+        /**
+         * @param percentile double between 0 and 100 (e.g. 95)
+         * @return long upper bound in milliseconds of the bucket holding the percentile, 0 if empty
+         */
+        public long getPercentileMillis(final double percentile)
+        {
+            if(total == 0)
+            {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+            long seen = 0;
+            for(int i = 0; i <= BUCKETS; i++)
+            {
+                seen += counts[i];
+                if(seen >= rank)
+                {
+                    return getUpperBound(i);
+                }
+            }
+            return getUpperBound(BUCKETS);
+        }
+
+        private static long getUpperBound(final int bucket)
+        {
+            return bucket == BUCKETS ? Long.MAX_VALUE : 1L << bucket;
+        }
+
+        @Override
+        public String toString()
+        {
+            StringBuilder histogram = new StringBuilder();
+            for(Map.Entry<Long, Integer> bucket : getBuckets().entrySet())
+            {
+                histogram.append(histogram.length() == 0 ? "" : ", ")
+                        .append(bucket.getKey() == Long.MAX_VALUE ? "more" : "<=" + bucket.getKey() + "ms")
+                        .append(": ").append(bucket.getValue());
+            }
+            return histogram.toString();
+        }
+    }
+
+    /**
+     * Outcome of a stress run: the users done, every operation and the lost updates
+     */
+    public static class StressReport
+    {
+        private final Report users;
+        private final List<EditRecord> records;
+        private final Map<String, Integer> lostUpdates;
+
+        public StressReport(final Report users,
+                            final List<EditRecord> records,
+                            final Map<String, Integer> lostUpdates)
+        {
+            this.users = users;
+            this.records = records;
+            this.lostUpdates = lostUpdates;
+        }
+
+        /**
+         * @return {@link Report} users that completed their edits and failed
+         */
+        public Report getUsers()
+        {
+            return users;
+        }
+
+        public List<EditRecord> getRecords()
+        {
+            return records;
+        }
+
+        public int getCount(final Operation operation)
+        {
+            int count = 0;
+            for(EditRecord record : records)
+            {
+                if(record.getOperation() == operation)
+                {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        public int getConflicts(final Operation operation)
+        {
+            int conflicts = 0;
+            for(EditRecord record : records)
+            {
+                if(record.getOperation() == operation && record.isConflict())
+                {
+                    conflicts++;
+                }
+            }
+            return conflicts;
+        }
+
+        public int getFailed(final Operation operation)
+        {
+            int failed = 0;
+            for(EditRecord record : records)
+            {
+                if(record.getOperation() == operation && !record.isSuccessful())
+                {
+                    failed++;
+                }
+            }
+            return failed;
+        }
+
+        /**
+         * @return double share of the check outs refused because of a concurrent edit
+         */
+        public double getConflictRate()
+        {
+            int checkOuts = getCount(Operation.CHECK_OUT);
+            return checkOuts == 0 ? 0 : (double) getConflicts(Operation.CHECK_OUT) / checkOuts;
+        }
+
+        /**
+         * @return {@link LatencyHistogram} latencies of the successful operations
+         */
+        public LatencyHistogram getHistogram(final Operation operation)
+        {
+            LatencyHistogram histogram = new LatencyHistogram();
+            for(EditRecord record : records)
+            {
+                if(record.getOperation() == operation && record.isSuccessful())
+                {
+                    histogram.add(record.getDurationMillis());
+                }
+            }
+            return histogram;
+        }
+
+        /**
+         * @return Map<String, Integer> number of missing versions by document, only documents with lost updates
+         */
+        public Map<String, Integer> getLostUpdates()
+        {
+            return lostUpdates;
+        }
+
+        public int getLostUpdateCount()
+        {
+            int lost = 0;
+            for(int count : lostUpdates.values())
+            {
+                lost += count;
+            }
+            return lost;
+        }
+
+        @Override
+        public String toString()
+        {
+            StringBuilder summary = new StringBuilder("users: " + users);
+            summary.append(String.format(", conflict rate %.3f, lost updates %d", getConflictRate(), getLostUpdateCount()));
+            for(Operation operation : Operation.values())
+            {
+                if(getCount(operation) > 0)
+                {
+                    LatencyHistogram histogram = getHistogram(operation);
+                    summary.append(String.format(", %s: %d (conflicts %d, failed %d, p95 %d ms) [%s]", operation, getCount(operation),
+                            getConflicts(operation), getFailed(operation), histogram.getPercentileMillis(95), histogram));
+                }
+            }
+            return summary.toString();
+        }
+    }
+
+    /**
+     * Run the users editing the documents, each user edits in turn and several users edit at a time
+     *
+     * @param users Map<String, String> password by user name, the users must be able to edit the documents
+     * @param pathsToDocuments List<String> paths to documents (e.g. /Shared/testFile.txt), shared ones first,
+     *        at least one more than the shared documents per user
+     * @param model {@link EditingModel} edits, contention and think time
+     * @param threads int number of users editing in parallel
+     * @return {@link StressReport} conflicts, latencies and lost updates
+     */
+    public StressReport run(final Map<String, String> users,
+                            final List<String> pathsToDocuments,
+                            final EditingModel model,
+                            final int threads)
+    {
+        if(users == null || users.isEmpty() || pathsToDocuments == null || pathsToDocuments.isEmpty() || model == null)
+        {
+            throw new IllegalArgumentException("Parameter missing");
+        }
+        if(model.sharedDocuments > pathsToDocuments.size() || (model.contention > 0 && model.sharedDocuments == 0))
+        {
+            throw new IllegalArgumentException("Invalid number of shared documents");
+        }
+        if(pathsToDocuments.size() < model.sharedDocuments + users.size())
+        {
+            throw new IllegalArgumentException("Not enough documents, each user needs at least one document of its own");
+        }
+        final List<String> userNames = new ArrayList<String>(users.keySet());
+        Map.Entry<String, String> anyUser = users.entrySet().iterator().next();
+        Session session = contentActions.getCMISSession(anyUser.getKey(), anyUser.getValue());
+        final OperationContext context = createContext(session);
+        // versions before the run, by version series id
+        final Map<String, Integer> initialVersions = new LinkedHashMap<String, Integer>();
+        final Map<String, String> seriesIds = new LinkedHashMap<String, String>();
+        for(String path : pathsToDocuments)
+        {
+            Document document = (Document) contentActions.getCmisObject(session, path);
+            seriesIds.put(path, document.getVersionSeriesId());
+            initialVersions.put(document.getVersionSeriesId(), document.getAllVersions().size());
+        }
+        final Map<String, AtomicInteger> checkIns = new ConcurrentHashMap<String, AtomicInteger>();
+        final List<EditRecord> records = Collections.synchronizedList(new ArrayList<EditRecord>());
+        List<Result<String, Integer>> results = BatchExecutor.execute(userNames, threads, user ->
+        {
+            List<String> shared = new ArrayList<String>();
+            List<String> own = new ArrayList<String>();
+            for(int i = 0; i < pathsToDocuments.size(); i++)
+            {
+                String seriesId = seriesIds.get(pathsToDocuments.get(i));
+                if(i < model.sharedDocuments)
+                {
+                    shared.add(seriesId);
+                }
+                else if((i - model.sharedDocuments) % userNames.size() == userNames.indexOf(user))
+                {
+                    own.add(seriesId);
+                }
+            }
+            return edit(user, users.get(user), shared, own, model, checkIns, records);
+        });
+        Report report = new Report();
+        report.addAll(results);
+        Map<String, Integer> lostUpdates = new LinkedHashMap<String, Integer>();
+        for(Map.Entry<String, String> document : seriesIds.entrySet())
+        {
+            String seriesId = document.getValue();
+            AtomicInteger done = checkIns.get(seriesId);
+            int expected = initialVersions.get(seriesId) + (done == null ? 0 : done.get());
+            int versions = ((Document) session.getObject(seriesId, context)).getAllVersions(context).size();
+            if(versions < expected)
+            {
+                lostUpdates.put(document.getKey(), expected - versions);
+            }
+        }
+        StressReport stress = new StressReport(report, records, lostUpdates);
+        if(logger.isTraceEnabled())
+        {
+            logger.trace("Editing stress run done, " + stress);
+        }
+        return stress;
+    }
+
+    /**
+     * @return int number of successful check ins of the user
+     */
+    private int edit(final String user,
+                     final String password,
+                     final List<String> shared,
+                     final List<String> own,
+                     final EditingModel model,
+                     final Map<String, AtomicInteger> checkIns,
+                     final List<EditRecord> records)
+    {
+        Random random = new Random(model.seed ^ user.hashCode());
+        Session session = contentActions.getCMISSession(user, password);
+        OperationContext context = createContext(session);
+        int done = 0;
+        for(int edit = 1; edit <= model.editsPerUser; edit++)
+        {
+            List<String> documents = own.isEmpty() || (!shared.isEmpty() && random.nextDouble() < model.contention) ? shared : own;
+            String seriesId = documents.get(random.nextInt(documents.size()));
+            long start = System.currentTimeMillis();
+            ObjectId pwcId;
+            try
+            {
+                pwcId = ((Document) session.getObject(seriesId, context)).checkOut();
+                records.add(new EditRecord(user, seriesId, Operation.CHECK_OUT, true, false, System.currentTimeMillis() - start));
+            }
+            catch(CmisVersioningException | CmisUpdateConflictException | CmisConstraintException conflict)
+            {
+                records.add(new EditRecord(user, seriesId, Operation.CHECK_OUT, false, true, System.currentTimeMillis() - start));
+                continue;
+            }
+            catch(RuntimeException e)
+            {
+                logger.error("Check out failed on " + seriesId + ": " + e.getMessage());
+                records.add(new EditRecord(user, seriesId, Operation.CHECK_OUT, false, false, System.currentTimeMillis() - start));
+                continue;
+            }
+            ThinkTime.pause(model.thinkTime, random);
+            if(checkIn(session, context, user, seriesId, pwcId, edit, records))
+            {
+                checkIns.computeIfAbsent(seriesId, id -> new AtomicInteger()).incrementAndGet();
+                done++;
+            }
+        }
+        return done;
+    }
+
+    private boolean checkIn(final Session session,
+                            final OperationContext context,
+                            final String user,
+                            final String seriesId,
+                            final ObjectId pwcId,
+                            final int edit,
+                            final List<EditRecord> records)
+    {
+        long start = System.currentTimeMillis();
+        Document pwc = null;
+        try
+        {
+            pwc = (Document) session.getObject(pwcId, context);
+            byte[] content = ("Edit " + edit + " by " + user).getBytes(StandardCharsets.UTF_8);
+            ContentStream contentStream = session.getObjectFactory().createContentStream(pwc.getName(),
+                    content.length, pwc.getContentStreamMimeType(), new ByteArrayInputStream(content));
+            pwc.checkIn(false, null, contentStream, "edit " + edit + " by " + user);
+            records.add(new EditRecord(user, seriesId, Operation.CHECK_IN, true, false, System.currentTimeMillis() - start));
+            return true;
+        }
+        catch(RuntimeException e)
+        {
+            boolean conflict = e instanceof CmisVersioningException || e instanceof CmisUpdateConflictException
+                    || e instanceof CmisConstraintException;
+            logger.error("Check in failed on " + seriesId + ": " + e.getMessage());
+            records.add(new EditRecord(user, seriesId, Operation.CHECK_IN, false, conflict, System.currentTimeMillis() - start));
+        }
+        // don't leave the document locked for the other users
+        start = System.currentTimeMillis();
+        try
+        {
+            if(pwc == null)
+            {
+                pwc = (Document) session.getObject(pwcId, context);
+            }
+            pwc.cancelCheckOut();
+            records.add(new EditRecord(user, seriesId, Operation.CANCEL_CHECK_OUT, true, false, System.currentTimeMillis() - start));
+        }
+        catch(RuntimeException e)
+        {
+            logger.error("Cancel check out failed on " + seriesId + ": " + e.getMessage());
+            records.add(new EditRecord(user, seriesId, Operation.CANCEL_CHECK_OUT, false, false, System.currentTimeMillis() - start));
+        }
+        return false;
+    }
+
+    /**
+     * Operation context without cache, the documents are changed by the other users
+     */
+    private OperationContext createContext(final Session session)
+    {
+        OperationContext context = session.createOperationContext();
+        context.setCacheEnabled(false);
+        context.setIncludeAcls(false);
+        context.setIncludePolicies(false);
+        context.setRenditionFilterString("cmis:none");
+        return context;
+    }
+}
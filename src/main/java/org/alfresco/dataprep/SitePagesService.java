@@ -15,17 +15,22 @@
 package org.alfresco.dataprep;
 
 import java.io.IOException;
-import java.text.DateFormat;
-import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
 
+import org.alfresco.dataprep.BatchExecutor.Report;
+import org.alfresco.dataprep.BatchExecutor.Result;
 import org.alfresco.dataprep.DashboardCustomization.Page;
 import org.apache.commons.httpclient.HttpStatus;
 import org.apache.commons.lang3.StringUtils;
@@ -55,6 +60,19 @@ public class SitePagesService
     private static Log logger = LogFactory.getLog(SitePagesService.class);
     @Autowired private AlfrescoHttpClientFactory alfrescoHttpClientFactory;
     @Autowired private SiteService siteService;
+    private static final int PAGE_ITEMS_SIZE = 100;
+    /** Depth of the discussion replies read when counting them */
+    private static final int MAX_REPLY_LEVELS = 100;
+    private static final DateTimeFormatter EVENT_DAY_FORMAT = DateTimeFormat.forPattern("yyyy-MM-dd'T'Z");
+    private static final DateTimeFormatter EVENT_FULL_DATE_FORMAT = DateTimeFormat.forPattern("EEEE, dd MMMM, yyyy");
+    private static final DateTimeFormatter TIME_12H_FORMAT = DateTimeFormat.forPattern("hh:mm a");
+    private static final DateTimeFormatter TIME_24H_FORMAT = DateTimeFormat.forPattern("HH:mm");
+    private static final String[] WORDS = { "alfresco", "content", "review", "project", "release", "meeting", "design",
+            "budget", "customer", "report", "draft", "quality", "roadmap", "support", "training", "search", "policy",
+            "contract", "migration", "archive", "dashboard", "workflow", "team", "feedback", "summary", "proposal" };
+    /** Ids of blog posts, links and discussions by site and page, then by lower case title */
+    private final ConcurrentMap<String, ConcurrentMap<String, Map<String, String>>> pageItems =
+            new ConcurrentHashMap<String, ConcurrentMap<String, Map<String, String>>>();
     
     /**
      * Add calendar event
@@ -96,6 +114,27 @@ public class SitePagesService
             throw new RuntimeException("Site doesn't exists " + siteName);
         }
         
+        return createEvent(userName, password, siteName, what, where, description, startDate, endDate,
+                timeStart, timeEnd, allDay, tag);
+    }
+
+    /**
+     * Create a calendar event, without checking the site
+     */
+    @SuppressWarnings("unchecked")
+    private boolean createEvent(final String userName,
+                                final String password,
+                                final String siteName,
+                                final String what,
+                                final String where,
+                                final String description,
+                                final Date startDate,
+                                final Date endDate,
+                                String timeStart,
+                                String timeEnd,
+                                final boolean allDay,
+                                String tag)
+    {
         AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
         String reqURL = client.getAlfrescoUrl() + "alfresco/s/calendar/create";
         // set default time if null
@@ -108,67 +147,13 @@ public class SitePagesService
             timeEnd = "13:00";
         }
         Date currentDate = new Date();
-        String pattern = "yyyy-MM-dd'T'Z";
-        SimpleDateFormat fulldate = new SimpleDateFormat("EEEE, dd MMMM, yyyy");
-        SimpleDateFormat fullFormat = new SimpleDateFormat(pattern);
-        DateTimeFormatter dtf = DateTimeFormat.forPattern(pattern);
-        String fulldatefrom = "";
-        String fulldateto = "";
-        String timeStart24 = "";
-        String startAt, endAt;
-        if(timeStart.contains("AM") || timeStart.contains("PM"))
-        {
-            timeStart24 = convertTo24Hour(timeStart);
-        }
-        else
-        {
-            timeStart24 = timeStart;
-        }
-        String timeEnd24 = "";
-        if(timeEnd.contains("AM") || timeEnd.contains("PM"))
-        {
-            timeEnd24 = convertTo24Hour(timeEnd);
-        }
-        else
-        {
-            timeEnd24 = timeEnd;
-        }
-
-        if(startDate == null)
-        {
-            // set the current date
-            fulldatefrom = fulldate.format(currentDate);
-            startAt = fullFormat.format(currentDate);
-            DateTime dateTime = dtf.parseDateTime(startAt);
-            startAt = dateTime.toString().replaceFirst("00:00", timeStart24);
-        }
-        else
-        {
-            fulldatefrom = fulldate.format(startDate); 
-            startAt = fullFormat.format(startDate);
-            DateTime dateTime = dtf.parseDateTime(startAt);
-            startAt = dateTime.toString().replaceFirst("00:00", timeStart24);
-        }
-        if(endDate == null)
-        {
-            // set the current date
-            fulldateto = fulldate.format(currentDate);
-            endAt = fullFormat.format(currentDate);
-            DateTime dateTime = dtf.parseDateTime(endAt);
-            endAt = dateTime.toString().replaceFirst("00:00", timeEnd24);
-        }
-        else
-        {
-            fulldateto = fulldate.format(endDate); 
-            endAt = fullFormat.format(endDate);
-            DateTime dateTime = dtf.parseDateTime(endAt);
-            endAt = dateTime.toString().replaceFirst("00:00", timeEnd24);
-        }
+        Date from = startDate == null ? currentDate : startDate;
+        Date to = endDate == null ? currentDate : endDate;
         HttpPost post = new HttpPost(reqURL);
         JSONObject body = new JSONObject();
-        body.put("fromdate", fulldatefrom);
+        body.put("fromdate", EVENT_FULL_DATE_FORMAT.print(from.getTime()));
         body.put("start", timeStart);
-        body.put("todate", fulldateto);
+        body.put("todate", EVENT_FULL_DATE_FORMAT.print(to.getTime()));
         body.put("end", timeEnd);
         if(tag == null)
         {
@@ -181,8 +166,8 @@ public class SitePagesService
         body.put("what", what);
         body.put("where", where);
         body.put("desc", description);
-        body.put("startAt", startAt);
-        body.put("endAt", endAt);
+        body.put("startAt", getEventDateTime(from, timeStart));
+        body.put("endAt", getEventDateTime(to, timeEnd));
         if(allDay)
         {
             body.put("allday", "on");
@@ -199,6 +184,24 @@ public class SitePagesService
         return false;
     }
 
+    /**
+     * Event date in ISO format at the given time of the day
+     * @param day Date the day
+     * @param time String time (e.g. 13:00 or 1:00 PM)
+     * @return String the date time
+     */
+    private String getEventDateTime(final Date day,
+                                    final String time)
+    {
+        String time24 = time;
+        if(time.contains("AM") || time.contains("PM"))
+        {
+            time24 = convertTo24Hour(time);
+        }
+        DateTime dateTime = EVENT_DAY_FORMAT.parseDateTime(EVENT_DAY_FORMAT.print(day.getTime()));
+        return dateTime.toString().replaceFirst("00:00", time24);
+    }
+
     /**
      * Get the name (ID) of the event
      * @param userName String user name
@@ -260,9 +263,8 @@ public class SitePagesService
                             String eTime = events.getJSONObject(i).getJSONObject("endAt").getString("iso8601");
                             DateTime st = new DateTime(sTime);
                             DateTime et = new DateTime(eTime);
-                            DateTimeFormatter  sdf = DateTimeFormat.forPattern("HH:mm");
-                            sTime = st.toString(sdf);
-                            eTime = et.toString(sdf);
+                            sTime = st.toString(TIME_24H_FORMAT);
+                            eTime = et.toString(TIME_24H_FORMAT);
                             if(timeStart.contains("AM") || timeStart.contains("PM"))
                             {
                                 timeStart = convertTo24Hour(timeStart);
@@ -390,62 +392,12 @@ public class SitePagesService
         AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
         String reqURL = client.getAlfrescoUrl() + "alfresco/s/calendar/event/" + siteName + "/" + eventName;
         Date currentDate = new Date();
-        String pattern = "yyyy-MM-dd'T'Z";
-        SimpleDateFormat fulldate = new SimpleDateFormat("EEEE, dd MMMM, yyyy");
-        SimpleDateFormat fullFormat = new SimpleDateFormat(pattern);
-        DateTimeFormatter dtf = DateTimeFormat.forPattern(pattern);
-        String fulldatefrom = "";
-        String fulldateto = "";
-        String timeStart24 = "";
-        String startAt, endAt;
-        if(newTimeStart.contains("AM") || newTimeStart.contains("PM"))
-        {
-            timeStart24 = convertTo24Hour(newTimeStart);
-        }
-        else
-        {
-            timeStart24 = newTimeStart;
-        }
-        String timeEnd24 = "";
-        if(newTimeEnd.contains("AM") || newTimeEnd.contains("PM"))
-        {
-            timeEnd24 = convertTo24Hour(newTimeEnd);
-        }
-        else
-        {
-            timeEnd24 = newTimeEnd;
-        }
-
-        if(newStartDate == null)
-        {
-            // set the current date
-            fulldatefrom = fulldate.format(currentDate);
-            startAt = fullFormat.format(currentDate);
-            DateTime dateTime = dtf.parseDateTime(startAt);
-            startAt = dateTime.toString().replaceFirst("00:00", timeStart24);
-        }
-        else
-        {
-            fulldatefrom = fulldate.format(newStartDate); 
-            startAt = fullFormat.format(newStartDate);
-            DateTime dateTime = dtf.parseDateTime(startAt);
-            startAt = dateTime.toString().replaceFirst("00:00", timeStart24);
-        }
-        if(newEndDate == null)
-        {
-            // set the current date
-            fulldateto = fulldate.format(currentDate);
-            endAt = fullFormat.format(currentDate);
-            DateTime dateTime = dtf.parseDateTime(endAt);
-            endAt = dateTime.toString().replaceFirst("00:00", timeEnd24);
-        }
-        else
-        {
-            fulldateto = fulldate.format(newEndDate); 
-            endAt = fullFormat.format(newEndDate);
-            DateTime dateTime = dtf.parseDateTime(endAt);
-            endAt = dateTime.toString().replaceFirst("00:00", timeEnd24);
-        }
+        Date from = newStartDate == null ? currentDate : newStartDate;
+        Date to = newEndDate == null ? currentDate : newEndDate;
+        String fulldatefrom = EVENT_FULL_DATE_FORMAT.print(from.getTime());
+        String fulldateto = EVENT_FULL_DATE_FORMAT.print(to.getTime());
+        String startAt = getEventDateTime(from, newTimeStart);
+        String endAt = getEventDateTime(to, newTimeEnd);
         HttpPut put=new HttpPut(reqURL);
         JSONObject body= new JSONObject();
         body.put("fromdate", fulldatefrom);
@@ -481,24 +433,19 @@ public class SitePagesService
     /**
      * Convert time to 24 hour format
      * @param time String time
-     * @throws ParseException if error
+     * @throws RuntimeException if the time can't be parsed
      * @return String converted hour
      */
     private String convertTo24Hour(String time)
     {
-        DateFormat f1 = new SimpleDateFormat("hh:mm a"); 
-        Date d = null;
         try
         {
-            d = f1.parse(time);
+            return TIME_24H_FORMAT.print(TIME_12H_FORMAT.parseLocalTime(time));
         }
-        catch (ParseException e)
+        catch (IllegalArgumentException e)
         {
-           throw new RuntimeException("Failed to parse the date:" + d, e);
+           throw new RuntimeException("Failed to parse the date:" + time, e);
         }
-        DateFormat f2 = new SimpleDateFormat("HH:mm");
-        String x = f2.format(d);
-        return x;
     }
 
     @SuppressWarnings("unchecked")
@@ -721,20 +668,30 @@ public class SitePagesService
         body.put("content", content);
         body.put("draft", draft);
         body.put("tags", createTagsArray(tags));
-        HttpResponse response = client.executeAndRelease(userName, password, body, post);
-        switch (response.getStatusLine().getStatusCode())
+        post.setEntity(client.setMessageBody(body));
+        try
         {
-            case HttpStatus.SC_OK:
-                if (logger.isTraceEnabled())
-                {
-                    logger.trace("Blog " + blogTitle + " is created successfuly");
-                }
-                return true;
-            case HttpStatus.SC_NOT_FOUND:
-                throw new RuntimeException("Invalid site " + siteName);
-            default:
-                logger.error("Unable to create blog page: " + response.toString());
-                break;
+            HttpResponse response = client.execute(userName, password, post);
+            switch (response.getStatusLine().getStatusCode())
+            {
+                case HttpStatus.SC_OK:
+                    if (logger.isTraceEnabled())
+                    {
+                        logger.trace("Blog " + blogTitle + " is created successfuly");
+                    }
+                    indexCreatedItem(client, response, siteName, Page.BLOG);
+                    return true;
+                case HttpStatus.SC_NOT_FOUND:
+                    throw new RuntimeException("Invalid site " + siteName);
+                default:
+                    logger.error("Unable to create blog page: " + response.toString());
+                    break;
+            }
+        }
+        finally
+        {
+            post.releaseConnection();
+            client.close();
         }
         return false;
     }
@@ -821,8 +778,10 @@ public class SitePagesService
         switch (response.getStatusLine().getStatusCode())
         {
             case HttpStatus.SC_OK:
+                renameIndexedItem(siteName, Page.BLOG, blogTitle, newBlogTitle);
                 return true;
             case HttpStatus.SC_NOT_FOUND:
+                unindexItem(siteName, Page.BLOG, blogTitle);
                 throw new RuntimeException("Blog doesn't exists " + blogTitle);
             default:
                 logger.error("Unable to update blog post: " + response.toString());
@@ -852,6 +811,7 @@ public class SitePagesService
         String url = client.getApiUrl() + "blog/post/site/" + siteName + "/blog/" + blogName + "?page=blog-postlist";
         HttpDelete delete = new HttpDelete(url);
         HttpResponse response = client.executeAndRelease(userName, password, delete);
+        unindexItem(siteName, Page.BLOG, blogTitle);
         switch (response.getStatusLine().getStatusCode())
         {
             case HttpStatus.SC_OK:
@@ -995,89 +955,214 @@ public class SitePagesService
     }
 
     /**
-     * Get the name (id) for blog post, link, discussion
+     * Get the name (id) for blog post, link, discussion. The ids are read from the index of the
+     * site page, the index is (re)loaded when the title is not in it.
      * @param userName String user name
      * @param password String password
      * @param siteName String site name
      * @param title String blog title
-     * @param draftBlog boolean is blog draft
+     * @param page Page blog, links or discussions
      * @return Map<String, String> name, nodeRef and replyUrl
      * @throws RuntimeException if site is not found
      */
-    @SuppressWarnings("unchecked")
     private Map<String, String> getIds(final String userName,
                                        final String password,
                                        final String siteName,
                                        final String title,
                                        final Page page)
     {
-        String url = "";
-        Map<String, String> ids = new HashMap<String, String>();
-        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
-        switch(page)
+        ConcurrentMap<String, Map<String, String>> items = pageItems.get(pageItemsKey(siteName, page));
+        if(items == null || !items.containsKey(title.toLowerCase()))
         {
-            case LINKS:
-                url = client.getApiUrl() + "links/site/" + siteName + "/links?filter=all&contentLength=512&page=1&pageSize=10&startIndex=0";
-                break;
-            case BLOG:
-                url = client.getApiUrl() + "blog/site/" + siteName + "/blog/posts";
-                break;
-            case DISCUSSIONS:
-                url = client.getApiUrl() + "forum/site/" + siteName + "/discussions/posts";
-                break;
-            default:
-                break;
+            items = loadPageItems(userName, password, siteName, page);
         }
-        HttpGet get = new HttpGet(url);
-        try
+        Map<String, String> ids = items.get(title.toLowerCase());
+        return ids == null ? new HashMap<String, String>() : new HashMap<String, String>(ids);
+    }
+
+    /**
+     * Read all the blog posts, links or discussions of a site page by page and replace the index of the site page
+     * @param userName String user name
+     * @param password String password
+     * @param siteName String site name
+     * @param page Page blog, links or discussions
+     * @return ConcurrentMap<String, Map<String, String>> ids by lower case title
+     * @throws RuntimeException if site is not found
+     */
+    @SuppressWarnings("unchecked")
+    private ConcurrentMap<String, Map<String, String>> loadPageItems(final String userName,
+                                                                   final String password,
+                                                                   final String siteName,
+                                                                   final Page page)
+    {
+        ConcurrentMap<String, Map<String, String>> items = new ConcurrentHashMap<String, Map<String, String>>();
+        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
+        int startIndex = 0;
+        boolean hasMoreItems = true;
+        while(hasMoreItems)
         {
-            HttpResponse response = client.execute(userName, password, get);
-            switch (response.getStatusLine().getStatusCode())
+            String url = "";
+            switch(page)
             {
-                case HttpStatus.SC_OK:
-                    JSONArray jArray = client.getJSONArray(response, "", "items");
-                    Iterator<JSONObject> iterator = ((List<JSONObject>) jArray).iterator();
-                    while (iterator.hasNext() && jArray.size() > 0)
-                    {
-                        JSONObject factObj = (JSONObject) iterator.next();
-                        String theTitle = (String) factObj.get("title");
-                        if(title.toString().equalsIgnoreCase(theTitle))
+                case LINKS:
+                    url = client.getApiUrl() + "links/site/" + siteName + "/links?filter=all&contentLength=512&page="
+                            + (startIndex / PAGE_ITEMS_SIZE + 1) + "&pageSize=" + PAGE_ITEMS_SIZE + "&startIndex=" + startIndex;
+                    break;
+                case BLOG:
+                    url = client.getApiUrl() + "blog/site/" + siteName + "/blog/posts?startIndex=" + startIndex + "&pageSize=" + PAGE_ITEMS_SIZE;
+                    break;
+                case DISCUSSIONS:
+                    url = client.getApiUrl() + "forum/site/" + siteName + "/discussions/posts?startIndex=" + startIndex + "&pageSize=" + PAGE_ITEMS_SIZE;
+                    break;
+                default:
+                    break;
+            }
+            HttpGet get = new HttpGet(url);
+            try
+            {
+                HttpResponse response = client.execute(userName, password, get);
+                switch (response.getStatusLine().getStatusCode())
+                {
+                    case HttpStatus.SC_OK:
+                        JSONObject result = client.readStream(response.getEntity());
+                        JSONArray jArray = (JSONArray) result.get("items");
+                        Iterator<JSONObject> iterator = ((List<JSONObject>) jArray).iterator();
+                        while (iterator.hasNext())
                         {
-                            ids.put("name", (String) factObj.get("name"));
-                            ids.put("nodeRef", (String) factObj.get("nodeRef"));
-                            if(page.pageId.equals("discussions-topiclist"))
+                            JSONObject factObj = iterator.next();
+                            String theTitle = (String) factObj.get("title");
+                            if(theTitle != null)
                             {
-                                ids.put("repliesUrl", (String) factObj.get("repliesUrl"));
+                                items.putIfAbsent(theTitle.toLowerCase(), toIds(factObj, page));
                             }
-                            else if(page.pageId.equals("blog-postlist") || page.pageId.equals("links"))
-                            {
-                                ids.put("commentsUrl", (String) factObj.get("commentsUrl"));
-                            }
-                            return ids;
                         }
-                    }
-                    return ids;
-                case HttpStatus.SC_NOT_FOUND:
-                    throw new RuntimeException("Invalid site " + siteName);
-                case HttpStatus.SC_UNAUTHORIZED:
-                    throw new RuntimeException("Invalid credentials");
-                default:
-                    logger.error("Unable to find: " + title + " " + response.toString());
-                    break;
+                        startIndex += jArray.size();
+                        Object total = result.get("total");
+                        hasMoreItems = jArray.size() == PAGE_ITEMS_SIZE
+                                && (!(total instanceof Number) || startIndex < ((Number) total).intValue());
+                        break;
+                    case HttpStatus.SC_NOT_FOUND:
+                        throw new RuntimeException("Invalid site " + siteName);
+                    case HttpStatus.SC_UNAUTHORIZED:
+                        throw new RuntimeException("Invalid credentials");
+                    default:
+                        logger.error("Unable to read " + page.pageId + " of site " + siteName + " " + response.toString());
+                        return items;
+                }
+            }
+            catch (Exception e)
+            {
+                throw new RuntimeException("Failed to execute request:" + get, e);
+            }
+            finally
+            {
+                get.releaseConnection();
+                client.close();
             }
         }
-        catch (Exception e)
+        pageItems.put(pageItemsKey(siteName, page), items);
+        return items;
+    }
+
+    private String pageItemsKey(final String siteName,
+                                final Page page)
+    {
+        return siteName + "/" + page.pageId;
+    }
+
+    private Map<String, String> toIds(final JSONObject item,
+                                      final Page page)
+    {
+        Map<String, String> ids = new HashMap<String, String>();
+        ids.put("name", (String) item.get("name"));
+        ids.put("nodeRef", (String) item.get("nodeRef"));
+        if(page.pageId.equals("discussions-topiclist"))
         {
-            throw new RuntimeException("Failed to execute request:" + get, e);
+            ids.put("repliesUrl", (String) item.get("repliesUrl"));
         }
-        finally
+        else if(page.pageId.equals("blog-postlist") || page.pageId.equals("links"))
         {
-            get.releaseConnection();
-            client.close();
+            ids.put("commentsUrl", (String) item.get("commentsUrl"));
         }
         return ids;
     }
 
+    /**
+     * Add the item returned by a create request to the index of the site page
+     */
+    private void indexCreatedItem(final AlfrescoHttpClient client,
+                                  final HttpResponse response,
+                                  final String siteName,
+                                  final Page page)
+    {
+        try
+        {
+            JSONObject item = (JSONObject) client.readStream(response.getEntity()).get("item");
+            if(item != null && item.get("title") != null && item.get("name") != null)
+            {
+                ConcurrentMap<String, Map<String, String>> items = pageItems.get(pageItemsKey(siteName, page));
+                if(items == null)
+                {
+                    pageItems.putIfAbsent(pageItemsKey(siteName, page), new ConcurrentHashMap<String, Map<String, String>>());
+                    items = pageItems.get(pageItemsKey(siteName, page));
+                }
+                items.put(((String) item.get("title")).toLowerCase(), toIds(item, page));
+            }
+        }
+        catch (RuntimeException e)
+        {
+            // the item will be found when the index is loaded
+            logger.error("Unable to read the created item: " + e.getMessage());
+        }
+    }
+
+    private void unindexItem(final String siteName,
+                             final Page page,
+                             final String title)
+    {
+        ConcurrentMap<String, Map<String, String>> items = pageItems.get(pageItemsKey(siteName, page));
+        if(items != null && title != null)
+        {
+            items.remove(title.toLowerCase());
+        }
+    }
+
+    private void renameIndexedItem(final String siteName,
+                                   final Page page,
+                                   final String title,
+                                   final String newTitle)
+    {
+        ConcurrentMap<String, Map<String, String>> items = pageItems.get(pageItemsKey(siteName, page));
+        if(items != null)
+        {
+            Map<String, String> ids = items.remove(title.toLowerCase());
+            if(ids != null && !StringUtils.isEmpty(newTitle))
+            {
+                items.put(newTitle.toLowerCase(), ids);
+            }
+        }
+    }
+
+    /**
+     * Remove the blog posts, links and discussions of a site from the index
+     * @param siteName String site name
+     */
+    public void invalidatePageItems(final String siteName)
+    {
+        for(Page page : new Page[] { Page.BLOG, Page.LINKS, Page.DISCUSSIONS })
+        {
+            pageItems.remove(pageItemsKey(siteName, page));
+        }
+    }
+
+    /**
+     * Remove all sites from the blog posts, links and discussions index
+     */
+    public void clearPageItemsCache()
+    {
+        pageItems.clear();
+    }
+
     /**
      * Delete link
      * @param userName String user name
@@ -1101,6 +1186,7 @@ public class SitePagesService
         array.add(linkName);
         body.put("items", array);
         HttpResponse response = client.executeAndRelease(userName, password, body, post);
+        unindexItem(siteName, Page.LINKS, linkTitle);
         switch (response.getStatusLine().getStatusCode())
         {
             case HttpStatus.SC_OK:
@@ -1155,8 +1241,10 @@ public class SitePagesService
         switch (response.getStatusLine().getStatusCode())
         {
             case HttpStatus.SC_OK:
+                renameIndexedItem(siteName, Page.LINKS, linkTitle, newLinkTitle);
                 return true;
             case HttpStatus.SC_NOT_FOUND:
+                unindexItem(siteName, Page.LINKS, linkTitle);
                 throw new RuntimeException("Link doesn't exists " + linkTitle);
             default:
                 logger.error("Unable to update link: " + response.toString());
@@ -1196,20 +1284,30 @@ public class SitePagesService
         body.put("title", discussionTitle);
         body.put("content", text);
         body.put("tags", createTagsArray(tags));
-        HttpResponse response = client.executeAndRelease(userName, password, body, post);
-        switch (response.getStatusLine().getStatusCode())
+        post.setEntity(client.setMessageBody(body));
+        try
         {
-            case HttpStatus.SC_OK:
-                if (logger.isTraceEnabled())
-                {
-                    logger.trace("Discussion " + discussionTitle + " is created successfuly");
-                }
-                return true;
-            case HttpStatus.SC_NOT_FOUND:
-                throw new RuntimeException("Invalid site " + siteName);
-            default:
-                logger.error("Unable to create link: " + response.toString());
-                break;
+            HttpResponse response = client.execute(userName, password, post);
+            switch (response.getStatusLine().getStatusCode())
+            {
+                case HttpStatus.SC_OK:
+                    if (logger.isTraceEnabled())
+                    {
+                        logger.trace("Discussion " + discussionTitle + " is created successfuly");
+                    }
+                    indexCreatedItem(client, response, siteName, Page.DISCUSSIONS);
+                    return true;
+                case HttpStatus.SC_NOT_FOUND:
+                    throw new RuntimeException("Invalid site " + siteName);
+                default:
+                    logger.error("Unable to create link: " + response.toString());
+                    break;
+            }
+        }
+        finally
+        {
+            post.releaseConnection();
+            client.close();
         }
         return false;
     }
@@ -1293,8 +1391,10 @@ public class SitePagesService
         switch (response.getStatusLine().getStatusCode())
         {
             case HttpStatus.SC_OK:
+                renameIndexedItem(siteName, Page.DISCUSSIONS, discussionTitle, newDiscussionTitle);
                 return true;
             case HttpStatus.SC_NOT_FOUND:
+                unindexItem(siteName, Page.DISCUSSIONS, discussionTitle);
                 throw new RuntimeException("Topic doesn't exists " + discussionTitle);
             default:
                 logger.error("Unable to updated topic post: " + response.toString());
@@ -1321,6 +1421,7 @@ public class SitePagesService
         String url = client.getApiUrl() + "forum/post/site/" + siteName + "/discussions/" + discussionName + "?page=discussions-topicview";
         HttpDelete delete = new HttpDelete(url);
         HttpResponse response = client.executeAndRelease(userName, password, delete);
+        unindexItem(siteName, Page.DISCUSSIONS, discussionTitle);
         switch (response.getStatusLine().getStatusCode())
         {
             case HttpStatus.SC_OK:
@@ -1411,7 +1512,6 @@ public class SitePagesService
      * @param comment String comment to add
      * @return true if comment is added successfully
      */
-    @SuppressWarnings("unchecked")
     private boolean addComment(final String userName,
                                final String password, 
                                final String siteName,
@@ -1419,29 +1519,52 @@ public class SitePagesService
                                final Page page,
                                final String comment)
     {
-        String commentsUrl = null;
         if (StringUtils.isEmpty(userName) || StringUtils.isEmpty(password) || StringUtils.isEmpty(siteName)
                 || StringUtils.isEmpty(itemTitle) || StringUtils.isEmpty(comment))
         {
             throw new IllegalArgumentException("Parameter missing");
         }
-        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
+        String commentsUrl = getCommentsUrl(userName, password, siteName, itemTitle, page);
+        return postComment(userName, password, siteName, itemTitle, page, commentsUrl, comment) != null;
+    }
+
+    /**
+     * Get the url used to comment a blog post or link, or to reply to a discussion
+     * @throws RuntimeException if the item doesn't exist
+     */
+    private String getCommentsUrl(final String userName,
+                                  final String password,
+                                  final String siteName,
+                                  final String itemTitle,
+                                  final Page page)
+    {
         Map<String, String> id = getIds(userName, password, siteName, itemTitle, page);
-        if(!id.isEmpty())
+        if(id.isEmpty())
         {
-            if(page.pageId.equals("discussions-topiclist"))
-            {
-                commentsUrl = id.get("repliesUrl");
-            }
-            else if(page.pageId.equals("blog-postlist") || page.pageId.equals("links"))
-            {
-                commentsUrl = id.get("commentsUrl");
-            }
+            throw new RuntimeException(itemTitle +  " doesn't exists ");
         }
-        else
+        if(page.pageId.equals("discussions-topiclist"))
         {
-            throw new RuntimeException(itemTitle +  " doesn't exists ");
+            return id.get("repliesUrl");
         }
+        return id.get("commentsUrl");
+    }
+
+    /**
+     * Post a comment or a reply
+     * @param commentsUrl String comments url of the item or replies url of a topic or reply
+     * @return JSONObject the created comment (empty if the response doesn't describe it), null if the comment is not added
+     */
+    @SuppressWarnings("unchecked")
+    private JSONObject postComment(final String userName,
+                                   final String password,
+                                   final String siteName,
+                                   final String itemTitle,
+                                   final Page page,
+                                   final String commentsUrl,
+                                   final String comment)
+    {
+        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
         String reqUrl = client.getApiUrl() + commentsUrl.replaceFirst("/", "");
         HttpPost post  = new HttpPost(reqUrl);
         JSONObject body = new JSONObject();
@@ -1449,20 +1572,30 @@ public class SitePagesService
         body.put("page", page.pageId);
         body.put("itemTitle", itemTitle);
         body.put("content", comment);
-        HttpResponse response = client.executeAndRelease(userName, password, body, post);
-        if(HttpStatus.SC_OK == response.getStatusLine().getStatusCode())
+        post.setEntity(client.setMessageBody(body));
+        try
         {
-            if (logger.isTraceEnabled())
+            HttpResponse response = client.execute(userName, password, post);
+            if(HttpStatus.SC_OK == response.getStatusLine().getStatusCode())
             {
-                logger.trace("Comment added successfully");
+                if (logger.isTraceEnabled())
+                {
+                    logger.trace("Comment added successfully");
+                }
+                JSONObject item = (JSONObject) client.readStream(response.getEntity()).get("item");
+                return item == null ? new JSONObject() : item;
+            }
+            else
+            {
+                logger.error("Unable to add comment: " + response.toString());
             }
-            return true;
         }
-        else
+        finally
         {
-            logger.error("Unable to add comment: " + response.toString());
+            post.releaseConnection();
+            client.close();
         }
-        return false;
+        return null;
     }
     
     /**
@@ -1646,4 +1779,414 @@ public class SitePagesService
     {
         return deleteComment(userName, password, siteName, Page.LINKS, linkTitle, comment);
     }
+
+    /**
+     * Count the comments of a blog post or link, or the replies of a discussion, reading the
+     * response as a stream instead of building the list. Comments are paged, their count is
+     * the total of a one comment page. Replies are counted at every depth.
+     * @param userName String user name
+     * @param password String password
+     * @param siteName String site name
+     * @param page Page blog, links or discussions
+     * @param itemTitle String title of the item
+     * @return int number of comments (replies at every depth for discussions)
+     * @throws RuntimeException if the item doesn't exist
+     */
+    public int countComments(final String userName,
+                             final String password,
+                             final String siteName,
+                             final Page page,
+                             final String itemTitle)
+    {
+        boolean discussion = Page.DISCUSSIONS.equals(page);
+        String discussionName = null;
+        String commentsUrl = null;
+        if(discussion)
+        {
+            discussionName = getDiscussionName(userName, password, siteName, itemTitle);
+            if(StringUtils.isEmpty(discussionName))
+            {
+                throw new RuntimeException("Discussion doesn't exists " + itemTitle);
+            }
+        }
+        else
+        {
+            commentsUrl = getCommentsUrl(userName, password, siteName, itemTitle, page);
+        }
+        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
+        HttpGet get = null;
+        try
+        {
+            String url = discussion
+                    ? client.getApiUrl() + "forum/post/site/" + siteName + "/discussions/" + discussionName + "/replies?levels=" + MAX_REPLY_LEVELS
+                    : client.getApiUrl() + commentsUrl.replaceFirst("/", "") + "?startIndex=0&pageSize=1";
+            get = new HttpGet(url);
+            HttpResponse response = client.execute(userName, password, get);
+            if(HttpStatus.SC_OK != response.getStatusLine().getStatusCode())
+            {
+                EntityUtils.consumeQuietly(response.getEntity());
+                logger.error("Unable to read comments of " + itemTitle + " " + response.toString());
+                return 0;
+            }
+            if(discussion)
+            {
+                return client.countNestedJsonItems(response, "items", "children");
+            }
+            String total = client.readJsonValue(response, "total");
+            if(total == null)
+            {
+                throw new RuntimeException("Missing total in the comments of " + itemTitle);
+            }
+            return Integer.parseInt(total);
+        }
+        finally
+        {
+            if(get != null)
+            {
+                get.releaseConnection();
+            }
+            client.close();
+        }
+    }
+
+    /**
+     * Add a thread of comments to a blog post or link, or of replies to a discussion. The item is
+     * resolved once, then each level is posted in parallel. Replies of discussions can be nested,
+     * every reply of a level gets <code>branching</code> replies on the next level.
+     * Comments of blog posts and links are flat, the depth must be 1.
+     * 
+     * @param userName String user name
+     * @param password String password
+     * @param siteName String site name
+     * @param page Page blog, links or discussions
+     * @param itemTitle String title of the item
+     * @param text String text of the comments, each comment gets its position appended (e.g. "text 1.2")
+     * @param depth int number of levels
+     * @param branching int comments per level and parent
+     * @param threads int number of parallel requests
+     * @return {@link Report} added and failed comments
+     * @throws RuntimeException if the item doesn't exist
+     */
+    public Report createCommentThread(final String userName,
+                                      final String password,
+                                      final String siteName,
+                                      final Page page,
+                                      final String itemTitle,
+                                      final String text,
+                                      final int depth,
+                                      final int branching,
+                                      final int threads)
+    {
+        if (StringUtils.isEmpty(userName) || StringUtils.isEmpty(password) || StringUtils.isEmpty(siteName)
+                || StringUtils.isEmpty(itemTitle) || depth < 1 || branching < 1)
+        {
+            throw new IllegalArgumentException("Parameter missing");
+        }
+        if(depth > 1 && !Page.DISCUSSIONS.equals(page))
+        {
+            throw new IllegalArgumentException("Only discussion replies can be nested");
+        }
+        Report report = new Report();
+        Map<String, String> parents = new LinkedHashMap<String, String>();
+        parents.put("", getCommentsUrl(userName, password, siteName, itemTitle, page));
+        for(int level = 1; level <= depth && !parents.isEmpty(); level++)
+        {
+            // position of the comment (e.g. 1.2) to the url it is posted to
+            final Map<String, String> comments = new LinkedHashMap<String, String>();
+            for(Map.Entry<String, String> parent : parents.entrySet())
+            {
+                for(int i = 1; i <= branching; i++)
+                {
+                    String position = parent.getKey().isEmpty() ? String.valueOf(i) : parent.getKey() + "." + i;
+                    comments.put(position, parent.getValue());
+                }
+            }
+            List<Result<String, JSONObject>> results = BatchExecutor.execute(comments.keySet(), threads, position ->
+            {
+                JSONObject item = postComment(userName, password, siteName, itemTitle, page, comments.get(position), text + " " + position);
+                if(item == null)
+                {
+                    throw new RuntimeException("Unable to add comment " + position);
+                }
+                return item;
+            });
+            parents = new LinkedHashMap<String, String>();
+            for(Result<String, JSONObject> result : results)
+            {
+                report.add(result);
+                if(result.isSuccessful() && Page.DISCUSSIONS.equals(page))
+                {
+                    String repliesUrl = (String) result.getValue().get("repliesUrl");
+                    String nodeRef = (String) result.getValue().get("nodeRef");
+                    if(repliesUrl == null && nodeRef != null)
+                    {
+                        repliesUrl = "/forum/post/node/" + nodeRef.replace("://", "/") + "/replies";
+                    }
+                    if(repliesUrl != null)
+                    {
+                        parents.put(result.getItem(), repliesUrl);
+                    }
+                }
+            }
+        }
+        if (logger.isTraceEnabled())
+        {
+            logger.trace("Added comment thread to " + itemTitle + ", " + report);
+        }
+        return report;
+    }
+
+    /**
+     * Number of items to generate per site page, with the comments and replies added to them.
+     * Titles are built from the prefix, texts and tags are drawn from the seed, so the same
+     * spec generates the same content.
+     */
+    public static class SiteContentSpec
+    {
+        private final String prefix;
+        private final long seed;
+        private int wikiPages;
+        private int blogPosts;
+        private int links;
+        private int discussions;
+        private int events;
+        private int commentsPerItem;
+        private int repliesPerDiscussion;
+        private List<String> tags = new ArrayList<String>();
+
+        /**
+         * @param prefix String prefix of the titles, should be unique in the site
+         * @param seed long seed of the generated texts and tags
+         */
+        public SiteContentSpec(final String prefix,
+                               final long seed)
+        {
+            this.prefix = prefix;
+            this.seed = seed;
+        }
+
+        public SiteContentSpec setWikiPages(final int wikiPages)
+        {
+            this.wikiPages = wikiPages;
+            return this;
+        }
+
+        public SiteContentSpec setBlogPosts(final int blogPosts)
+        {
+            this.blogPosts = blogPosts;
+            return this;
+        }
+
+        public SiteContentSpec setLinks(final int links)
+        {
+            this.links = links;
+            return this;
+        }
+
+        public SiteContentSpec setDiscussions(final int discussions)
+        {
+            this.discussions = discussions;
+            return this;
+        }
+
+        public SiteContentSpec setEvents(final int events)
+        {
+            this.events = events;
+            return this;
+        }
+
+        /**
+         * Comments added to each blog post and link
+         */
+        public SiteContentSpec setCommentsPerItem(final int commentsPerItem)
+        {
+            this.commentsPerItem = commentsPerItem;
+            return this;
+        }
+
+        public SiteContentSpec setRepliesPerDiscussion(final int repliesPerDiscussion)
+        {
+            this.repliesPerDiscussion = repliesPerDiscussion;
+            return this;
+        }
+
+        /**
+         * Tags to choose from, each item gets up to two of them
+         */
+        public SiteContentSpec setTags(final List<String> tags)
+        {
+            this.tags = tags;
+            return this;
+        }
+
+        public String getTitle(final Page page,
+                               final int index)
+        {
+            return prefix + "-" + page.pageId + "-" + index;
+        }
+    }
+
+    /**
+     * An item to create, the label is used in the report
+     */
+    private static class GeneratedItem
+    {
+        private final String label;
+        private final Supplier<Boolean> operation;
+
+        private GeneratedItem(final String label,
+                              final Supplier<Boolean> operation)
+        {
+            this.label = label;
+            this.operation = operation;
+        }
+
+        @Override
+        public String toString()
+        {
+            return label;
+        }
+    }
+
+    /**
+     * Fill a site with wiki pages, blog posts, links, discussions and calendar events, then add
+     * the comments and replies. The site is checked once, the items are created in parallel.
+     * 
+     * @param userName String user name
+     * @param password String password
+     * @param siteName String site name
+     * @param spec SiteContentSpec number of items per page
+     * @param threads int number of parallel requests
+     * @return {@link Report} created and failed items, comments and replies
+     * @throws RuntimeException if site is not found
+     */
+    public Report generateSiteContent(final String userName,
+                                      final String password,
+                                      final String siteName,
+                                      final SiteContentSpec spec,
+                                      final int threads)
+    {
+        if (StringUtils.isEmpty(userName) || StringUtils.isEmpty(password) || StringUtils.isEmpty(siteName) || spec == null)
+        {
+            throw new IllegalArgumentException("Parameter missing");
+        }
+        if(!siteService.exists(siteName, userName, password))
+        {
+            throw new RuntimeException("Site doesn't exists " + siteName);
+        }
+        List<GeneratedItem> items = new ArrayList<GeneratedItem>();
+        List<GeneratedItem> comments = new ArrayList<GeneratedItem>();
+        for(int i = 0; i < spec.wikiPages; i++)
+        {
+            final String title = spec.getTitle(Page.WIKI, i);
+            final Random random = getRandom(spec, Page.WIKI, i);
+            final String text = getText(random, 40);
+            final List<String> tags = getTags(random, spec.tags);
+            items.add(new GeneratedItem(title, () -> createWiki(userName, password, siteName, title, text, tags)));
+        }
+        for(int i = 0; i < spec.blogPosts; i++)
+        {
+            final String title = spec.getTitle(Page.BLOG, i);
+            final Random random = getRandom(spec, Page.BLOG, i);
+            final String text = getText(random, 60);
+            final List<String> tags = getTags(random, spec.tags);
+            items.add(new GeneratedItem(title, () -> createBlogPost(userName, password, siteName, title, text, false, tags)));
+            for(int c = 0; c < spec.commentsPerItem; c++)
+            {
+                final String comment = getText(random, 12);
+                comments.add(new GeneratedItem(title + " comment " + c, () -> commentBlog(userName, password, siteName, title, false, comment)));
+            }
+        }
+        for(int i = 0; i < spec.links; i++)
+        {
+            final String title = spec.getTitle(Page.LINKS, i);
+            final Random random = getRandom(spec, Page.LINKS, i);
+            final String url = "http://www." + WORDS[random.nextInt(WORDS.length)] + ".com/" + i;
+            final String description = getText(random, 15);
+            final List<String> tags = getTags(random, spec.tags);
+            items.add(new GeneratedItem(title, () -> createLink(userName, password, siteName, title, url, description, false, tags)));
+            for(int c = 0; c < spec.commentsPerItem; c++)
+            {
+                final String comment = getText(random, 12);
+                comments.add(new GeneratedItem(title + " comment " + c, () -> commentLink(userName, password, siteName, title, comment)));
+            }
+        }
+        for(int i = 0; i < spec.discussions; i++)
+        {
+            final String title = spec.getTitle(Page.DISCUSSIONS, i);
+            final Random random = getRandom(spec, Page.DISCUSSIONS, i);
+            final String text = getText(random, 30);
+            final List<String> tags = getTags(random, spec.tags);
+            items.add(new GeneratedItem(title, () -> createDiscussion(userName, password, siteName, title, text, tags)));
+            for(int r = 0; r < spec.repliesPerDiscussion; r++)
+            {
+                final String reply = getText(random, 12);
+                comments.add(new GeneratedItem(title + " reply " + r, () -> replyToDiscussion(userName, password, siteName, title, reply)));
+            }
+        }
+        for(int i = 0; i < spec.events; i++)
+        {
+            final String title = spec.getTitle(Page.CALENDAR, i);
+            final Random random = getRandom(spec, Page.CALENDAR, i);
+            final Date day = new DateTime().plusDays(random.nextInt(61) - 30).toDate();
+            final int hour = 8 + random.nextInt(10);
+            final String where = WORDS[random.nextInt(WORDS.length)];
+            final String description = getText(random, 15);
+            final boolean allDay = random.nextInt(5) == 0;
+            final String tag = spec.tags.isEmpty() ? null : spec.tags.get(random.nextInt(spec.tags.size()));
+            items.add(new GeneratedItem(title, () -> createEvent(userName, password, siteName, title, where, description, day, day,
+                    String.format("%02d:00", hour), String.format("%02d:00", hour + 1), allDay, tag)));
+        }
+        Report report = new Report();
+        report.addAll(BatchExecutor.execute(items, threads, item -> item.operation.get()));
+        // comments and replies need their item, they are added once all the items exist
+        report.addAll(BatchExecutor.execute(comments, threads, item -> item.operation.get()));
+        if (logger.isTraceEnabled())
+        {
+            logger.trace("Generated content of site " + siteName + ", " + report);
+        }
+        return report;
+    }
+
+    private Random getRandom(final SiteContentSpec spec,
+                             final Page page,
+                             final int index)
+    {
+        return new Random(spec.seed * 31 + page.ordinal() * 1000003L + index);
+    }
+
+    private String getText(final Random random,
+                           final int words)
+    {
+        StringBuilder text = new StringBuilder();
+        for(int i = 0; i < words; i++)
+        {
+            if(i > 0)
+            {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    private List<String> getTags(final Random random,
+                                 final List<String> tags)
+    {
+        List<String> chosen = new ArrayList<String>();
+        if(tags.isEmpty())
+        {
+            return chosen;
+        }
+        int count = random.nextInt(3);
+        for(int i = 0; i < count; i++)
+        {
+            String tag = tags.get(random.nextInt(tags.size()));
+            if(!chosen.contains(tag))
+            {
+                chosen.add(tag);
+            }
+        }
+        return chosen;
+    }
 }
@@ -21,7 +21,6 @@ package org.alfresco.dataprep;
 import org.alfresco.dataprep.DashboardCustomization.DashletLayout;
 import org.alfresco.dataprep.DashboardCustomization.Page;
 import org.alfresco.dataprep.DashboardCustomization.SiteDashlet;
-import org.apache.commons.httpclient.HttpState;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
@@ -48,6 +47,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Site utility helper that performs crud operation on Site.
@@ -73,6 +74,10 @@ public class SiteService
 
     @Autowired
     private UserService userService;
+
+    /** Site metadata known to this service, keyed by site id */
+    private final ConcurrentMap<String, SiteMetadata> siteCache = new ConcurrentHashMap<String, SiteMetadata>();
+    private static final int SITE_PAGE_SIZE = 100;
     
     public enum RMSiteCompliance
     {
@@ -89,6 +94,47 @@ public class SiteService
     {
         PRIVATE, PUBLIC, MODERATED
     };
+
+    /**
+     * Cached details of a site: id, node ref (guid), visibility and document library id.
+     * The document library id is resolved lazily by {@link SiteService#getDocumentLibraryNodeRef}.
+     */
+    public static class SiteMetadata
+    {
+        private final String siteId;
+        private final String guid;
+        private final Visibility visibility;
+        private volatile String documentLibraryId;
+
+        public SiteMetadata(final String siteId,
+                            final String guid,
+                            final Visibility visibility)
+        {
+            this.siteId = siteId;
+            this.guid = guid;
+            this.visibility = visibility;
+        }
+
+        public String getSiteId()
+        {
+            return siteId;
+        }
+
+        public String getGuid()
+        {
+            return guid;
+        }
+
+        public Visibility getVisibility()
+        {
+            return visibility;
+        }
+
+        public String getDocumentLibraryId()
+        {
+            return documentLibraryId;
+        }
+    }
     
     /**
      * Create site using Alfresco public API.
@@ -126,16 +172,26 @@ public class SiteService
         body.put("title", title);
         body.put("description", description);
         body.put("visibility", visibility.toString());
-        
-        HttpResponse response = client.executeAndRelease(username, password, body, post);
-        if(HttpStatus.SC_CREATED == response.getStatusLine().getStatusCode())
+        post.setEntity(client.setMessageBody(body));
+        try
         {
-            logger.info(String.format("Successfuly created site with id '%s' ", siteId));
-            return true;
+            HttpResponse response = client.execute(username, password, post);
+            if(HttpStatus.SC_CREATED == response.getStatusLine().getStatusCode())
+            {
+                JSONObject entry = (JSONObject) client.readStream(response.getEntity()).get("entry");
+                cacheSite(siteId, (String) entry.get("guid"), visibility);
+                logger.info(String.format("Successfuly created site with id '%s' ", siteId));
+                return true;
+            }
+            else
+            {
+                logger.error(client.getParameterFromJSON(response,"briefSummary", "error"));
+            }
         }
-        else
+        finally
         {
-            logger.error(client.getParameterFromJSON(response,"briefSummary", "error"));
+            post.releaseConnection();
+            client.close();
         }
         return false;
     }
@@ -209,6 +265,7 @@ public class SiteService
                    response = clientWithAuth.execute(get); 
                    if(200 == response.getStatusLine().getStatusCode())
                    {
+                       siteCache.remove(siteId);
                        logger.info(String.format("Successfully created %s site", siteId));
                        return true;
                    }
@@ -250,6 +307,11 @@ public class SiteService
                           final String username,
                           final String password)
     {
+        SiteMetadata cached = siteCache.get(siteId);
+        if(cached != null && !Visibility.PRIVATE.equals(cached.getVisibility()))
+        {
+            return true;
+        }
         AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
         String apiUrl = client.getApiUrl();
         String url = String.format("%ssites/%s",apiUrl, siteId);
@@ -259,8 +321,16 @@ public class SiteService
             HttpResponse response = client.execute(username, password, get);
             if( 200 == response.getStatusLine().getStatusCode())
             {
+                JSONObject site = client.readStream(response.getEntity());
+                String node = (String) site.get("node");
+                String visibility = (String) site.get("visibility");
+                if(!StringUtils.isEmpty(node) && !StringUtils.isEmpty(visibility))
+                {
+                    cacheSite(siteId, StringUtils.substringAfterLast(node, "/"), Visibility.valueOf(visibility));
+                }
                 return true;
             }
+            siteCache.remove(siteId);
             return false;
         } 
         finally
@@ -288,6 +358,7 @@ public class SiteService
         String url = String.format(client.getApiUrl() + "sites/%s", siteId);
         HttpDelete httpDelete = new HttpDelete(url);
         HttpResponse response = client.executeAndRelease(username, password, httpDelete);
+        siteCache.remove(siteId);
         if(response.getStatusLine().getStatusCode() == HttpStatus.SC_OK)
         {
             logger.info(String.format("Site deleted successfully: ", siteId));
@@ -313,6 +384,7 @@ public class SiteService
         String url = String.format(client.getApiUrl() + "sites/%s", siteId);
         HttpDelete httpDelete = new HttpDelete(url);
         HttpResponse response = client.executeAndRelease(username, password, httpDelete);
+        siteCache.remove(siteId);
         switch (response.getStatusLine().getStatusCode())
         {
             case HttpStatus.SC_OK:
@@ -383,11 +455,32 @@ public class SiteService
                                  final String password,
                                  final String siteName)
     {
-        String siteNodeRef = "";
+        SiteMetadata metadata = getSiteMetadata(userName, password, siteName);
+        return metadata == null ? "" : metadata.getGuid();
+    }
+
+    /**
+     * Get the cached metadata of a site. On a cache miss, or for private sites
+     * where the answer depends on the user, the site is read from the server.
+     * 
+     * @param userName String identifier
+     * @param password String password
+     * @param siteName String site name
+     * @return {@link SiteMetadata} or null if the site doesn't exist
+     */
+    public SiteMetadata getSiteMetadata(final String userName,
+                                        final String password,
+                                        final String siteName)
+    {
         if (StringUtils.isEmpty(userName) || StringUtils.isEmpty(password) || StringUtils.isEmpty(siteName))
         {
             throw new IllegalArgumentException("Parameter missing");
         }
+        SiteMetadata cached = siteCache.get(siteName);
+        if(cached != null && !Visibility.PRIVATE.equals(cached.getVisibility()))
+        {
+            return cached;
+        }
         AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
         String reqUrl = client.getApiVersionUrl() + "sites/" + siteName;
         HttpGet get = new HttpGet(reqUrl);
@@ -396,7 +489,50 @@ public class SiteService
             HttpResponse response = client.execute(userName, password, get);
             if( HttpStatus.SC_OK  == response.getStatusLine().getStatusCode())
             {
-                return client.getParameterFromJSON(response,"guid", "entry");
+                JSONObject entry = (JSONObject) client.readStream(response.getEntity()).get("entry");
+                return cacheSite(entry);
+            }
+        }
+        finally
+        {
+            get.releaseConnection();
+            client.close();
+        }
+        return null;
+    }
+
+    /**
+     * Get the node ref of the site document library. The value is kept in the site cache.
+     * 
+     * @param userName String identifier
+     * @param password String password
+     * @param siteName String site name
+     * @return String document library node ref
+     * @throws RuntimeException if site doesn't exists
+     */
+    public String getDocumentLibraryNodeRef(final String userName,
+                                            final String password,
+                                            final String siteName)
+    {
+        SiteMetadata metadata = getSiteMetadata(userName, password, siteName);
+        if(metadata == null)
+        {
+            throw new RuntimeException("Site doesn't exists " + siteName);
+        }
+        if(!StringUtils.isEmpty(metadata.documentLibraryId))
+        {
+            return metadata.documentLibraryId;
+        }
+        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
+        String reqUrl = client.getApiVersionUrl() + "sites/" + siteName + "/containers/documentLibrary";
+        HttpGet get = new HttpGet(reqUrl);
+        try
+        {
+            HttpResponse response = client.execute(userName, password, get);
+            if( HttpStatus.SC_OK  == response.getStatusLine().getStatusCode())
+            {
+                metadata.documentLibraryId = client.getParameterFromJSON(response, "id", "entry");
+                return metadata.documentLibraryId;
             }
         }
         finally
@@ -404,7 +540,97 @@ public class SiteService
             get.releaseConnection();
             client.close();
         }
-        return siteNodeRef;
+        return "";
+    }
+
+    /**
+     * Load the metadata of all sites visible to the user into the site cache,
+     * reading the site listing page by page.
+     * 
+     * @param userName String identifier
+     * @param password String password
+     * @return int number of cached sites
+     */
+    @SuppressWarnings("unchecked")
+    public int warmSiteCache(final String userName,
+                             final String password)
+    {
+        if (StringUtils.isEmpty(userName) || StringUtils.isEmpty(password))
+        {
+            throw new IllegalArgumentException("Parameter missing");
+        }
+        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
+        int skipCount = 0;
+        boolean hasMoreItems = true;
+        while(hasMoreItems)
+        {
+            String reqUrl = client.getApiVersionUrl() + "sites?skipCount=" + skipCount + "&maxItems=" + SITE_PAGE_SIZE;
+            HttpGet get = new HttpGet(reqUrl);
+            try
+            {
+                HttpResponse response = client.execute(userName, password, get);
+                if(HttpStatus.SC_OK != response.getStatusLine().getStatusCode())
+                {
+                    logger.error("Unable to read sites: " + response.toString());
+                    break;
+                }
+                JSONObject list = (JSONObject) client.readStream(response.getEntity()).get("list");
+                JSONArray entries = (JSONArray) list.get("entries");
+                Iterator<JSONObject> iterator = entries.iterator();
+                while(iterator.hasNext())
+                {
+                    cacheSite((JSONObject) iterator.next().get("entry"));
+                }
+                skipCount += entries.size();
+                JSONObject pagination = (JSONObject) list.get("pagination");
+                hasMoreItems = Boolean.TRUE.equals(pagination.get("hasMoreItems")) && !entries.isEmpty();
+            }
+            finally
+            {
+                get.releaseConnection();
+                client.close();
+            }
+        }
+        return skipCount;
+    }
+
+    /**
+     * Remove a site from the site cache
+     * 
+     * @param siteName String site name
+     */
+    public void invalidateSite(final String siteName)
+    {
+        siteCache.remove(siteName);
+    }
+
+    /**
+     * Remove all sites from the site cache
+     */
+    public void clearSiteCache()
+    {
+        siteCache.clear();
+    }
+
+    private SiteMetadata cacheSite(final JSONObject entry)
+    {
+        return cacheSite((String) entry.get("id"),
+                         (String) entry.get("guid"),
+                         Visibility.valueOf((String) entry.get("visibility")));
+    }
+
+    private SiteMetadata cacheSite(final String siteId,
+                                   final String guid,
+                                   final Visibility visibility)
+    {
+        SiteMetadata metadata = new SiteMetadata(siteId, guid, visibility);
+        SiteMetadata previous = siteCache.get(siteId);
+        if(previous != null && StringUtils.equals(previous.getGuid(), guid))
+        {
+            metadata.documentLibraryId = previous.documentLibraryId;
+        }
+        siteCache.put(siteId, metadata);
+        return metadata;
     }
     
     /**
@@ -576,8 +802,6 @@ public class SiteService
             throw new RuntimeException("Site doesn't exists " + siteName);
         }
 
-        HttpState httpState = userService.login(userName, password);
-
         AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
         String url = client.getShareUrl() + DashboardCustomization.SITE_PAGES_URL;
         JSONObject body = new JSONObject();
@@ -605,8 +829,7 @@ public class SiteService
         body.put("themeId", "");
         HttpPost post  = new HttpPost(url);
         post.setEntity(client.setMessageBody(body));
-        client.setRequestWithCSRFToken(post, httpState);
-        HttpResponse response = client.executeAndReleaseWithoutBasicAuthHeader(userName, password, post);
+        HttpResponse response = userService.executeInShareSession(userName, password, post);
         if (HttpStatus.SC_OK == response.getStatusLine().getStatusCode())
         {
             if(!multiplePages)
@@ -698,8 +921,6 @@ public class SiteService
             throw new RuntimeException("Site doesn't exists " + siteName);
         }
 
-        HttpState httpState = userService.login(userName, password);
-
         AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
         String url = client.getShareUrl() + DashboardCustomization.ADD_DASHLET_URL;
         JSONObject body = new JSONObject();
@@ -728,8 +949,7 @@ public class SiteService
         body.put("dashlets", array);
         HttpPost post  = new HttpPost(url);
         post.setEntity(client.setMessageBody(body));
-        client.setRequestWithCSRFToken(post, httpState);
-        HttpResponse response = client.executeAndReleaseWithoutBasicAuthHeader(userName, password, post);
+        HttpResponse response = userService.executeInShareSession(userName, password, post);
         if (HttpStatus.SC_OK == response.getStatusLine().getStatusCode())
         {
             logger.trace("Dashlet " + dashlet.name + " was added to site " + siteName);
@@ -943,6 +1163,7 @@ public class SiteService
         JSONObject body = new JSONObject();
         body.put("visibility", newVisibility.toString());
         HttpResponse response = client.executeAndRelease(userName, password, body, put);
+        siteCache.remove(siteName);
         switch (response.getStatusLine().getStatusCode())
         {
             case HttpStatus.SC_OK:
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2005-2015 Alfresco Software Limited.
+ * This file is part of Alfresco
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.alfresco.dataprep;
+
+import java.util.Random;
+import java.util.function.ToLongFunction;
+
+/**
+ * Think time of the simulated users: samplers of the time, in milliseconds,
+ * a user waits between two operations, and the pause itself.
+ */
+public class ThinkTime
+{
+    /** No think time */
+    public static final ToLongFunction<Random> NONE = random -> 0;
+
+    private ThinkTime()
+    {
+    }
+
+    /**
+     * @param minMillis long shortest think time
+     * @param maxMillis long longest think time
+     * @return ToLongFunction<Random> think time uniform between min and max
+     */
+    public static ToLongFunction<Random> uniform(final long minMillis,
+                                                 final long maxMillis)
+    {
+        if(minMillis < 0 || maxMillis < minMillis)
+        {
+            throw new IllegalArgumentException("Invalid think time");
+        }
+        return random -> minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+    }
+
+    /**
+     * Sleep for a think time drawn from the sampler
+     * 
+     * @param sampler ToLongFunction<Random> think time in milliseconds
+     * @param random Random source of the sampler
+     */
+    public static void pause(final ToLongFunction<Random> sampler,
+                             final Random random)
+    {
+        long millis = sampler.applyAsLong(random);
+        if(millis <= 0)
+        {
+            return;
+        }
+        try
+        {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Think time was interrupted", e);
+        }
+    }
+}
@@ -16,14 +16,35 @@ package org.alfresco.dataprep;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 
+import org.alfresco.dataprep.BatchExecutor.ProgressListener;
+import org.alfresco.dataprep.BatchExecutor.Report;
+import org.alfresco.dataprep.BatchExecutor.Result;
 import org.alfresco.dataprep.DashboardCustomization.DashletLayout;
 import org.alfresco.dataprep.DashboardCustomization.UserDashlet;
+import org.apache.chemistry.opencmis.client.api.CmisObject;
+import org.apache.chemistry.opencmis.client.api.SecondaryType;
+import org.apache.chemistry.opencmis.client.api.Session;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
 import org.apache.commons.httpclient.HttpState;
 import org.apache.commons.httpclient.NameValuePair;
 import org.apache.commons.httpclient.URIException;
@@ -31,7 +52,6 @@ import org.apache.commons.httpclient.util.URIUtil;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.CookieStore;
@@ -39,10 +59,10 @@ import org.apache.http.client.methods.*;
 import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.BasicCookieStore;
-import org.apache.http.util.EntityUtils;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
-import org.json.simple.JSONValue;
+import org.joda.time.format.DateTimeFormatter;
+import org.joda.time.format.ISODateTimeFormat;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -58,6 +78,119 @@ public class UserService extends CMISUtil
     public static String DEFAULT_LAST_NAME = "lastName";
     public static String PAGE_ACCEPT_URL = "page/accept-invite";
     public static String PAGE_REJECT_URL = "page/reject-invite";
+    private static final int TRASHCAN_PAGE_SIZE = 100;
+    private static final DateTimeFormatter ISO_DATE_PARSER = ISODateTimeFormat.dateTimeParser();
+    /** Idle time after which a Share session is considered expired, Share default session timeout is 60 minutes */
+    public static final long SHARE_SESSION_TIMEOUT = TimeUnit.MINUTES.toMillis(30);
+    /** Logged in Share sessions by user name */
+    private final ConcurrentMap<String, ShareSession> shareSessions = new ConcurrentHashMap<String, ShareSession>();
+
+    /**
+     * Category of a taxonomy, with its subcategories
+     */
+    public static class Category
+    {
+        private final String name;
+        private final List<Category> children = new ArrayList<Category>();
+
+        public Category(final String name)
+        {
+            this.name = name;
+        }
+
+        /**
+         * Add a subcategory
+         * 
+         * @param childName String subcategory name
+         * @return Category the new subcategory
+         */
+        public Category addChild(final String childName)
+        {
+            Category child = new Category(childName);
+            children.add(child);
+            return child;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public List<Category> getChildren()
+        {
+            return children;
+        }
+    }
+
+    /**
+     * Item from the trashcan (archive store)
+     */
+    public static class TrashcanItem
+    {
+        private final String nodeRef;
+        private final String name;
+        private final String archivedBy;
+        private final Date archivedDate;
+
+        public TrashcanItem(final String nodeRef,
+                            final String name,
+                            final String archivedBy,
+                            final Date archivedDate)
+        {
+            this.nodeRef = nodeRef;
+            this.name = name;
+            this.archivedBy = archivedBy;
+            this.archivedDate = archivedDate;
+        }
+
+        /**
+         * @return String archived node ref (e.g. archive://SpacesStore/id)
+         */
+        public String getNodeRef()
+        {
+            return nodeRef;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public String getArchivedBy()
+        {
+            return archivedBy;
+        }
+
+        public Date getArchivedDate()
+        {
+            return archivedDate;
+        }
+
+        @Override
+        public String toString()
+        {
+            return name + " (" + nodeRef + ")";
+        }
+    }
+
+    /**
+     * Share login of a user, reused until it is idle for longer than {@link #SHARE_SESSION_TIMEOUT}
+     * or a cookie expires. The instance is also the lock for logging in the user.
+     */
+    private static class ShareSession
+    {
+        private String password;
+        private HttpState state;
+        private long lastUsed;
+
+        private boolean isValid(final String password)
+        {
+            return state != null
+                    && password.equals(this.password)
+                    && System.currentTimeMillis() - lastUsed < SHARE_SESSION_TIMEOUT
+                    && !state.purgeExpiredCookies();
+        }
+    }
 
     /**
      * Create an Alfresco user on enterprise.
@@ -712,6 +845,24 @@ public class UserService extends CMISUtil
     public int countSiteMembers(final String userName,
                                 final String userPass,
                                 final String siteName)
+    { 
+        return countSiteMembers(userName, userPass, siteName, null);
+    }
+
+    /**
+     * Count members of a site that have a given role. The memberships are counted
+     * while the response is streamed, so memory use doesn't grow with the site size.
+     * 
+     * @param userName login user that owns the site
+     * @param userPass user password
+     * @param siteName String site name
+     * @param role String site role (e.g. SiteManager). If empty all members are counted
+     * @return number of site members with the role
+     */
+    public int countSiteMembers(final String userName,
+                                final String userPass,
+                                final String siteName,
+                                final String role)
     { 
         int count=0;
         if (StringUtils.isEmpty(userName) || StringUtils.isEmpty(userPass) || StringUtils.isEmpty(siteName))
@@ -720,23 +871,19 @@ public class UserService extends CMISUtil
         }
         AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
         String reqURL = client.getApiUrl() + "sites/" + siteName + "/memberships";
+        if(!StringUtils.isEmpty(role))
+        {
+            reqURL = reqURL + "?rf=" + URLEncoder.encode(role, StandardCharsets.UTF_8);
+        }
         HttpGet request = new HttpGet(reqURL);
         try
         {
             HttpResponse response = client.execute(userName, userPass, request);
             if(HttpStatus.SC_OK == response.getStatusLine().getStatusCode())
             {
-                HttpEntity entity = response.getEntity();
-                String responseString = EntityUtils.toString(entity, "UTF-8");
-                Object obj = JSONValue.parse(responseString);
-                JSONArray array = (JSONArray)obj;
-                count = array.size();
+                count = client.countJsonArrayItems(response);
             }
         }
-        catch (IOException e)
-        {
-            logger.error("Failed to read the response");
-        }
         finally
         {
             request.releaseConnection();
@@ -795,6 +942,102 @@ public class UserService extends CMISUtil
         return state;
     }
     
+    /**
+     * Get the Share session of a user, the user is logged in only if there is no valid session.
+     * 
+     * @param userName login user name
+     * @param userPass login user password
+     * @return HttpState the session cookies, including the CSRF token
+     * @throws RuntimeException if the user can't login
+     */
+    public HttpState getShareSession(final String userName,
+                                     final String userPass)
+    {
+        if (StringUtils.isEmpty(userName) || StringUtils.isEmpty(userPass))
+        {
+            throw new IllegalArgumentException("Parameter missing");
+        }
+        ShareSession session = shareSessions.computeIfAbsent(userName, user -> new ShareSession());
+        synchronized (session)
+        {
+            if(!session.isValid(userPass))
+            {
+                HttpState state = login(userName, userPass);
+                if(state == null)
+                {
+                    session.state = null;
+                    throw new RuntimeException("Failed to login in Share as " + userName);
+                }
+                session.state = state;
+                session.password = userPass;
+            }
+            session.lastUsed = System.currentTimeMillis();
+            return session.state;
+        }
+    }
+
+    /**
+     * Execute a Share request in the session of the user. The request is sent again with a new
+     * session if the one in use has expired.
+     * 
+     * @param userName login user name
+     * @param userPass login user password
+     * @param request HttpRequestBase the request
+     * @return {@link HttpResponse} response, the connection is released
+     */
+    public HttpResponse executeInShareSession(final String userName,
+                                              final String userPass,
+                                              final HttpRequestBase request)
+    {
+        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
+        HttpResponse response = null;
+        client.setRequestWithCSRFToken(request, getShareSession(userName, userPass));
+        try
+        {
+            response = client.executeAndReleaseWithoutBasicAuthHeader(userName, userPass, request);
+        }
+        catch (RuntimeException e)
+        {
+            // expired sessions are rejected as unauthorized
+            if(logger.isTraceEnabled())
+            {
+                logger.trace("Share request failed for " + userName + ", logging in again", e);
+            }
+        }
+        if(response == null || HttpStatus.SC_FORBIDDEN == response.getStatusLine().getStatusCode())
+        {
+            invalidateShareSession(userName);
+            client.setRequestWithCSRFToken(request, getShareSession(userName, userPass));
+            response = client.executeAndReleaseWithoutBasicAuthHeader(userName, userPass, request);
+        }
+        return response;
+    }
+
+    /**
+     * Forget the Share session of a user, the next request will login again
+     * 
+     * @param userName String user name
+     */
+    public void invalidateShareSession(final String userName)
+    {
+        ShareSession session = shareSessions.get(userName);
+        if(session != null)
+        {
+            synchronized (session)
+            {
+                session.state = null;
+            }
+        }
+    }
+
+    /**
+     * Forget the Share sessions of all users
+     */
+    public void clearShareSessions()
+    {
+        shareSessions.clear();
+    }
+    
     /**
      * Add dashlet to user dashboard
      * 
@@ -814,7 +1057,6 @@ public class UserService extends CMISUtil
                               final int column,
                               final int position)
     {
-        HttpState httpState = login(userName, password);
         if(column > 4 || column < 1)
         {
             throw new RuntimeException("Maximum number of columns must be at between 1 and 4");
@@ -855,24 +1097,15 @@ public class UserService extends CMISUtil
         body.put("dashlets", array);
         HttpPost post  = new HttpPost(url);
         post.setEntity(client.setMessageBody(body));
-        client.setRequestWithCSRFToken(post, httpState);
-        try
+        HttpResponse response = executeInShareSession(userName, password, post);
+        if (HttpStatus.SC_OK == response.getStatusLine().getStatusCode())
         {
-            HttpResponse response = client.executeAndReleaseWithoutBasicAuthHeader(userName, password, post);
-            if (HttpStatus.SC_OK == response.getStatusLine().getStatusCode())
-            {
-                logger.info("Dashlet " + dashlet.name + " was added on user: " + userName + " dashboard");
-                return true;
-            }
-            else
-            {
-                logger.error("Unable to add dashlet to user dashboard " + userName);
-            }
+            logger.info("Dashlet " + dashlet.name + " was added on user: " + userName + " dashboard");
+            return true;
         }
-        finally
+        else
         {
-            post.releaseConnection();
-            client.close();
+            logger.error("Unable to add dashlet to user dashboard " + userName);
         }
         return false;
     }
@@ -912,13 +1145,30 @@ public class UserService extends CMISUtil
                                        final String password,
                                        final String userToFollowOrNot,
                                        final boolean follow)
+    {
+        if (StringUtils.isEmpty(userToFollowOrNot))
+        {
+            throw new IllegalArgumentException("Parameter missing");
+        }
+        List<String> users = new ArrayList<String>();
+        users.add(userToFollowOrNot);
+        return toFollowOrUnfollow(userName, password, users, follow);
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean toFollowOrUnfollow(final String userName,
+                                       final String password,
+                                       final List<String> usersToFollowOrNot,
+                                       final boolean follow)
     {
         String url;
         AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
-        if (StringUtils.isEmpty(userName) || StringUtils.isEmpty(password) || StringUtils.isEmpty(userToFollowOrNot))
+        if (StringUtils.isEmpty(userName) || StringUtils.isEmpty(password) || usersToFollowOrNot == null
+                || usersToFollowOrNot.isEmpty())
         {
             throw new IllegalArgumentException("Parameter missing");
         }
+        String userToFollowOrNot = StringUtils.join(usersToFollowOrNot, ", ");
         if(follow)
         {
             url = client.getApiUrl() + "subscriptions/" + userName + "/follow";
@@ -929,7 +1179,7 @@ public class UserService extends CMISUtil
         }
         HttpPost request = new HttpPost(url);
         JSONArray requestBody = new JSONArray();
-        requestBody.add(userToFollowOrNot);
+        requestBody.addAll(usersToFollowOrNot);
         try
         {
             request.setEntity(new StringEntity(requestBody.toString()));
@@ -981,6 +1231,21 @@ public class UserService extends CMISUtil
         return toFollowOrUnfollow(userName, password, userToFollow, true);
     }
     
+    /**
+     * Follow several users with a single request
+     * 
+     * @param userName String user name
+     * @param password String password
+     * @param usersToFollow List<String> users to be followed
+     * @return true if users are followed successfully
+     */
+    public boolean followUsers(final String userName,
+                               final String password,
+                               final List<String> usersToFollow)
+    {
+        return toFollowOrUnfollow(userName, password, usersToFollow, true);
+    }
+    
     /**
      * Unfollow a user
      * 
@@ -1024,7 +1289,7 @@ public class UserService extends CMISUtil
             HttpResponse response = client.execute(userName, password, get);
             if(200 == response.getStatusLine().getStatusCode())
             {
-                userFollowers = client.getElementsFromJsonArray(response, null, "people", "userName");
+                userFollowers = client.readJsonValues(response, "people", "userName");
             }
             return userFollowers;
         }
@@ -1048,6 +1313,172 @@ public class UserService extends CMISUtil
         return getFollowUsers(userName, password, true);
     }
     
+    private int countFollowUsers(final String userName,
+                                 final String password,
+                                 final boolean followers)
+    {
+        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
+        String reqURL = client.getApiUrl() + "subscriptions/" + userName + (followers ? "/followers" : "/following");
+        HttpGet get = new HttpGet(reqURL);
+        try
+        {
+            HttpResponse response = client.execute(userName, password, get);
+            if(200 == response.getStatusLine().getStatusCode())
+            {
+                return client.countJsonArrayItems(response, "people");
+            }
+            return 0;
+        }
+        finally
+        {
+            get.releaseConnection();
+            client.close();
+        }
+    }
+    
+    /**
+     * Count the followers of a user, streaming the response
+     * 
+     * @param userName String user name
+     * @param password String password
+     * @return int number of followers
+     */
+    public int countFollowers(final String userName,
+                              final String password)
+    {
+        return countFollowUsers(userName, password, true);
+    }
+    
+    /**
+     * Count the users followed by a user, streaming the response
+     * 
+     * @param userName String user name
+     * @param password String password
+     * @return int number of followed users
+     */
+    public int countFollowingUsers(final String userName,
+                                   final String password)
+    {
+        return countFollowUsers(userName, password, false);
+    }
+    
+    /**
+     * Generate a follow graph. The number of users followed by each user is drawn from a
+     * power-law distribution between minFollowing and maxFollowing, and the followed users
+     * are drawn from a Zipf distribution over the list, so the first users get the most followers.
+     * No request is made, use {@link #createFollowGraph} to create the graph.
+     * 
+     * @param users List<String> users, ordered by popularity
+     * @param minFollowing int minimum number of users followed by each user
+     * @param maxFollowing int maximum number of users followed by each user
+     * @param exponent double skew of both distributions (e.g. 1.0), 0 for uniform
+     * @param seed long random seed, the same seed gives the same graph
+     * @return Map<String, List<String>> each user with the users it follows
+     */
+    public Map<String, List<String>> generateFollowGraph(final List<String> users,
+                                                         final int minFollowing,
+                                                         final int maxFollowing,
+                                                         final double exponent,
+                                                         final long seed)
+    {
+        if(users == null || users.size() < 2 || minFollowing < 0 || maxFollowing < minFollowing)
+        {
+            throw new IllegalArgumentException("Invalid follow graph parameters");
+        }
+        Random random = new Random(seed);
+        int maxDegree = Math.min(maxFollowing, users.size() - 1);
+        int minDegree = Math.min(minFollowing, maxDegree);
+        ZipfDistribution degrees = new ZipfDistribution(maxDegree - minDegree + 1, exponent);
+        ZipfDistribution popularity = new ZipfDistribution(users.size(), exponent);
+        Map<String, List<String>> graph = new LinkedHashMap<String, List<String>>();
+        for(String follower : users)
+        {
+            int degree = minDegree + degrees.sample(random);
+            Set<String> followed = new LinkedHashSet<String>();
+            int attempts = degree * 20;
+            while(followed.size() < degree && attempts-- > 0)
+            {
+                String candidate = users.get(popularity.sample(random));
+                if(!candidate.equals(follower))
+                {
+                    followed.add(candidate);
+                }
+            }
+            // dense graphs: fill up with the most popular users not picked yet
+            for(int i = 0; followed.size() < degree; i++)
+            {
+                if(!users.get(i).equals(follower))
+                {
+                    followed.add(users.get(i));
+                }
+            }
+            graph.put(follower, new ArrayList<String>(followed));
+        }
+        return graph;
+    }
+    
+    /**
+     * Create the follow relations in parallel, one request for each follower.
+     * All users must have the same password.
+     * 
+     * @param password String password of the users
+     * @param graph Map<String, List<String>> each user with the users to follow, see {@link #generateFollowGraph}
+     * @param threads int number of parallel requests
+     * @return {@link Report} number of followers with all relations created
+     */
+    public Report createFollowGraph(final String password,
+                                    final Map<String, List<String>> graph,
+                                    final int threads)
+    {
+        Report report = new Report();
+        List<String> followers = new ArrayList<String>();
+        for(Map.Entry<String, List<String>> entry : graph.entrySet())
+        {
+            if(!entry.getValue().isEmpty())
+            {
+                followers.add(entry.getKey());
+            }
+        }
+        report.addAll(BatchExecutor.execute(followers, threads,
+                follower -> followUsers(follower, password, graph.get(follower))));
+        logger.info("Follow graph created, " + report);
+        return report;
+    }
+    
+    /**
+     * Verify the follow relations in parallel. The followed user names are read from the
+     * streamed response, a follower passes if it follows every user from the graph.
+     * 
+     * @param password String password of the users
+     * @param graph Map<String, List<String>> each user with the followed users
+     * @param threads int number of parallel requests
+     * @return {@link Report} followers that passed and failed the check
+     */
+    public Report verifyFollowGraph(final String password,
+                                    final Map<String, List<String>> graph,
+                                    final int threads)
+    {
+        Report report = new Report();
+        report.addAll(BatchExecutor.execute(graph.keySet(), threads, follower ->
+        {
+            Set<String> following = new HashSet<String>(getFollowingUsers(follower, password));
+            List<String> missing = new ArrayList<String>();
+            for(String followed : graph.get(follower))
+            {
+                if(!following.contains(followed))
+                {
+                    missing.add(followed);
+                }
+            }
+            if(!missing.isEmpty())
+            {
+                throw new RuntimeException(follower + " doesn't follow " + missing);
+            }
+            return true;
+        }));
+        return report;
+    }
+    
     /**
      * Get a list of followers
      * 
@@ -1187,6 +1618,209 @@ public class UserService extends CMISUtil
         }
     }
     
+    /**
+     * Create a category and return its node ref
+     * 
+     * @param parentNodeRef String parent category node ref, null for a root category
+     * @return String node ref of the new category, empty if not created
+     */
+    @SuppressWarnings("unchecked")
+    private String createCategory(final String adminUser,
+                                  final String adminPass,
+                                  final String parentNodeRef,
+                                  final String categoryName)
+    {
+        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
+        String url = client.getApiUrl() + "category";
+        if(!StringUtils.isEmpty(parentNodeRef))
+        {
+            url = url + "/workspace/SpacesStore/" + parentNodeRef;
+        }
+        HttpPost post = new HttpPost(url);
+        JSONObject body = new JSONObject();
+        body.put("name", categoryName);
+        post.setEntity(client.setMessageBody(body));
+        String nodeRef = "";
+        try
+        {
+            HttpResponse response = client.execute(adminUser, adminPass, post);
+            if(HttpStatus.SC_OK != response.getStatusLine().getStatusCode())
+            {
+                logger.error("Unable to create category " + categoryName + " " +  response.toString());
+                return "";
+            }
+            Object persisted = client.readStream(response.getEntity()).get("persistedObject");
+            if(persisted != null)
+            {
+                nodeRef = StringUtils.substringAfterLast(persisted.toString(), "/");
+            }
+        }
+        catch (RuntimeException e)
+        {
+            logger.error("Unable to create category " + categoryName, e);
+            return "";
+        }
+        finally
+        {
+            post.releaseConnection();
+            client.close();
+        }
+        if(StringUtils.isEmpty(nodeRef))
+        {
+            nodeRef = getCategoryNodeRef(adminUser, adminPass, categoryName);
+        }
+        return nodeRef;
+    }
+    
+    /**
+     * Generate a taxonomy with the same number of subcategories on each level.
+     * Category names are unique: prefix followed by the position on each level (e.g. prefix-1-2).
+     * 
+     * @param prefix String prefix of the category names
+     * @param depth int number of levels
+     * @param breadth int number of subcategories of each category
+     * @return List<Category> root categories
+     */
+    public List<Category> generateTaxonomy(final String prefix,
+                                           final int depth,
+                                           final int breadth)
+    {
+        if(StringUtils.isEmpty(prefix) || depth < 1 || breadth < 1)
+        {
+            throw new IllegalArgumentException("Invalid taxonomy parameters");
+        }
+        List<Category> roots = new ArrayList<Category>();
+        for(int i = 1; i <= breadth; i++)
+        {
+            roots.add(new Category(prefix + "-" + i));
+        }
+        List<Category> level = roots;
+        for(int d = 1; d < depth; d++)
+        {
+            List<Category> nextLevel = new ArrayList<Category>();
+            for(Category parent : level)
+            {
+                for(int i = 1; i <= breadth; i++)
+                {
+                    nextLevel.add(parent.addChild(parent.getName() + "-" + i));
+                }
+            }
+            level = nextLevel;
+        }
+        return roots;
+    }
+    
+    /**
+     * Create a taxonomy level by level, the categories of a level are created in parallel.
+     * The node refs of the new categories are kept in the returned index, so no lookup
+     * is made for the parents. Subcategories of a category that failed are not created.
+     * Category names should be unique, the index is keyed by name.
+     * 
+     * @param adminUser String admin user
+     * @param adminPass String admin password
+     * @param roots List<Category> root categories, see {@link #generateTaxonomy}
+     * @param threads int number of parallel requests
+     * @return Map<String, String> category name to node ref for the created categories
+     */
+    public Map<String, String> loadTaxonomy(final String adminUser,
+                                            final String adminPass,
+                                            final List<Category> roots,
+                                            final int threads)
+    {
+        if(StringUtils.isEmpty(adminUser) || StringUtils.isEmpty(adminPass) || roots == null)
+        {
+            throw new IllegalArgumentException("Parameter missing");
+        }
+        final Map<String, String> index = new ConcurrentHashMap<String, String>();
+        final Map<Category, String> parents = new ConcurrentHashMap<Category, String>();
+        Report report = new Report();
+        List<Category> level = roots;
+        while(!level.isEmpty())
+        {
+            List<Result<Category, String>> results = BatchExecutor.execute(level, threads,
+                    category -> createCategory(adminUser, adminPass, parents.get(category), category.getName()));
+            List<Category> nextLevel = new ArrayList<Category>();
+            for(Result<Category, String> result : results)
+            {
+                String nodeRef = result.getValue();
+                if(StringUtils.isEmpty(nodeRef))
+                {
+                    report.add(new Result<Category, Boolean>(result.getItem(), false, result.getError(), result.getDurationMillis()));
+                    continue;
+                }
+                report.add(result);
+                index.put(result.getItem().getName(), nodeRef);
+                for(Category child : result.getItem().getChildren())
+                {
+                    parents.put(child, nodeRef);
+                    nextLevel.add(child);
+                }
+            }
+            level = nextLevel;
+        }
+        logger.info("Taxonomy loaded, " + report);
+        return index;
+    }
+    
+    /**
+     * Classify documents or folders in parallel, using a single CMIS session.
+     * Categories missing from the index are looked up once with {@link #getCategoryNodeRef}.
+     * 
+     * @param userName String user name
+     * @param password String password
+     * @param classification Map<String, List<String>> node ref of the content to its category names
+     * @param index Map<String, String> category name to node ref, see {@link #loadTaxonomy}
+     * @param threads int number of parallel requests
+     * @return {@link Report} number of classified items
+     */
+    public Report classifyContent(final String userName,
+                                  final String password,
+                                  final Map<String, List<String>> classification,
+                                  final Map<String, String> index,
+                                  final int threads)
+    {
+        final Session session = getCMISSession(userName, password);
+        final Map<String, String> categories = new ConcurrentHashMap<String, String>(index);
+        Report report = new Report();
+        report.addAll(BatchExecutor.execute(classification.keySet(), threads, contentNodeRef ->
+        {
+            List<String> categoryRefs = new ArrayList<String>();
+            for(String categoryName : classification.get(contentNodeRef))
+            {
+                String categoryRef = categories.get(categoryName);
+                if(categoryRef == null)
+                {
+                    categoryRef = getCategoryNodeRef(userName, password, categoryName);
+                    if(StringUtils.isEmpty(categoryRef))
+                    {
+                        throw new RuntimeException("Category doesn't exists " + categoryName);
+                    }
+                    categories.put(categoryName, categoryRef);
+                }
+                categoryRefs.add("workspace://SpacesStore/" + categoryRef);
+            }
+            CmisObject content = session.getObject(contentNodeRef);
+            List<String> secondaryTypes = new ArrayList<String>();
+            if(content.getSecondaryTypes() != null)
+            {
+                for(SecondaryType secondaryType : content.getSecondaryTypes())
+                {
+                    secondaryTypes.add(secondaryType.getId());
+                }
+            }
+            if(!secondaryTypes.contains(DocumentAspect.CLASSIFIABLE.getProperty()))
+            {
+                secondaryTypes.add(DocumentAspect.CLASSIFIABLE.getProperty());
+            }
+            Map<String, Object> properties = new HashMap<String, Object>();
+            properties.put(PropertyIds.SECONDARY_OBJECT_TYPE_IDS, secondaryTypes);
+            properties.put("cm:categories", categoryRefs);
+            content.updateProperties(properties);
+            return true;
+        }));
+        return report;
+    }
+    
     private boolean manageTrashcan(final String userName,
                                    final String password,
                                    final boolean isItem,
@@ -1309,6 +1943,190 @@ public class UserService extends CMISUtil
         }
     }
     
+    /**
+     * Create a filter for trashcan items. Empty or null criteria are ignored.
+     * 
+     * @param namePattern String regular expression for the item name
+     * @param archivedAfter Date items deleted after this date
+     * @param archivedBefore Date items deleted before this date
+     * @param archivedBy String user that deleted the items
+     * @return Predicate<TrashcanItem> filter
+     */
+    public static Predicate<TrashcanItem> trashcanFilter(final String namePattern,
+                                                         final Date archivedAfter,
+                                                         final Date archivedBefore,
+                                                         final String archivedBy)
+    {
+        final Pattern pattern = StringUtils.isEmpty(namePattern) ? null : Pattern.compile(namePattern);
+        return new Predicate<TrashcanItem>()
+        {
+            public boolean test(TrashcanItem item)
+            {
+                if(pattern != null && (item.getName() == null || !pattern.matcher(item.getName()).matches()))
+                {
+                    return false;
+                }
+                if(!StringUtils.isEmpty(archivedBy) && !archivedBy.equals(item.getArchivedBy()))
+                {
+                    return false;
+                }
+                if(archivedAfter != null && (item.getArchivedDate() == null || !item.getArchivedDate().after(archivedAfter)))
+                {
+                    return false;
+                }
+                if(archivedBefore != null && (item.getArchivedDate() == null || !item.getArchivedDate().before(archivedBefore)))
+                {
+                    return false;
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Read one page of the trashcan
+     * 
+     * @return List<TrashcanItem> items, empty if there are no more items
+     */
+    @SuppressWarnings("unchecked")
+    private List<TrashcanItem> getTrashcanPage(final String userName,
+                                               final String password,
+                                               final int skipCount,
+                                               final int maxItems)
+    {
+        List<TrashcanItem> items = new ArrayList<TrashcanItem>();
+        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
+        String reqURL = client.getApiUrl() + "archive/workspace/SpacesStore?skipCount=" + skipCount + "&maxItems=" + maxItems;
+        HttpGet get = new HttpGet(reqURL);
+        try
+        {
+            HttpResponse response = client.execute(userName, password, get);
+            if(200 != response.getStatusLine().getStatusCode())
+            {
+                throw new RuntimeException("Unable to read the trashcan: " + response.toString());
+            }
+            JSONArray deletedNodes = client.getJSONArray(response, "data", "deletedNodes");
+            Iterator<JSONObject> iterator = deletedNodes.iterator();
+            while (iterator.hasNext())
+            {
+                JSONObject node = iterator.next();
+                Date archivedDate = null;
+                String date = (String) node.get("archivedDate");
+                if(!StringUtils.isEmpty(date))
+                {
+                    try
+                    {
+                        archivedDate = ISO_DATE_PARSER.parseDateTime(date).toDate();
+                    }
+                    catch (IllegalArgumentException e)
+                    {
+                        logger.error("Unable to parse archived date " + date);
+                    }
+                }
+                items.add(new TrashcanItem((String) node.get("nodeRef"), (String) node.get("name"),
+                        (String) node.get("archivedBy"), archivedDate));
+            }
+            return items;
+        }
+        finally
+        {
+            get.releaseConnection();
+            client.close();
+        }
+    }
+
+    /**
+     * Read the trashcan page by page and delete or recover the items accepted by the filter.
+     * Each page is processed in parallel before the next page is read.
+     */
+    private Report processTrashcan(final String userName,
+                                   final String password,
+                                   final Predicate<TrashcanItem> filter,
+                                   final boolean recover,
+                                   final int threads,
+                                   final ProgressListener listener)
+    {
+        if(StringUtils.isEmpty(userName) || StringUtils.isEmpty(password))
+        {
+            throw new IllegalArgumentException("Parameter missing");
+        }
+        final Report report = new Report();
+        int skipCount = 0;
+        List<TrashcanItem> page;
+        do
+        {
+            page = getTrashcanPage(userName, password, skipCount, TRASHCAN_PAGE_SIZE);
+            List<TrashcanItem> selected = new ArrayList<TrashcanItem>();
+            for(TrashcanItem item : page)
+            {
+                if(filter == null || filter.test(item))
+                {
+                    selected.add(item);
+                }
+            }
+            List<Result<TrashcanItem, Boolean>> results = BatchExecutor.execute(selected, threads,
+                    item -> manageTrashcan(userName, password, true, recover, StringUtils.substringAfterLast(item.getNodeRef(), "/")));
+            int processed = 0;
+            for(Result<TrashcanItem, Boolean> result : results)
+            {
+                report.add(result);
+                if(result.isSuccessful())
+                {
+                    processed++;
+                }
+            }
+            if(listener != null)
+            {
+                listener.onProgress(report.getTotal(), report.getFailed());
+            }
+            // processed items are no longer in the archive store
+            skipCount += page.size() - processed;
+        }
+        while(page.size() == TRASHCAN_PAGE_SIZE);
+        logger.info((recover ? "Recovered items from trashcan, " : "Purged items from trashcan, ") + report);
+        return report;
+    }
+
+    /**
+     * Delete from trashcan the items accepted by the filter. The trashcan is read
+     * page by page and the items of each page are deleted in parallel.
+     * 
+     * @param userName String user name
+     * @param password String password
+     * @param filter Predicate<TrashcanItem> see {@link #trashcanFilter}. If null all items are deleted
+     * @param threads int number of parallel requests
+     * @param listener {@link ProgressListener} called after each page, can be null
+     * @return {@link Report} the number of deleted and failed items
+     */
+    public Report purgeFromTrashcan(final String userName,
+                                    final String password,
+                                    final Predicate<TrashcanItem> filter,
+                                    final int threads,
+                                    final ProgressListener listener)
+    {
+        return processTrashcan(userName, password, filter, false, threads, listener);
+    }
+
+    /**
+     * Recover from trashcan the items accepted by the filter. The trashcan is read
+     * page by page and the items of each page are recovered in parallel.
+     * 
+     * @param userName String user name
+     * @param password String password
+     * @param filter Predicate<TrashcanItem> see {@link #trashcanFilter}. If null all items are recovered
+     * @param threads int number of parallel requests
+     * @param listener {@link ProgressListener} called after each page, can be null
+     * @return {@link Report} the number of recovered and failed items
+     */
+    public Report restoreFromTrashcan(final String userName,
+                                      final String password,
+                                      final Predicate<TrashcanItem> filter,
+                                      final int threads,
+                                      final ProgressListener listener)
+    {
+        return processTrashcan(userName, password, filter, true, threads, listener);
+    }
+
     /**
      * Get the deleted items from trash can by name
      * 
@@ -14,12 +14,21 @@
  */
 package org.alfresco.dataprep;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
 
+import org.alfresco.dataprep.BatchExecutor.Report;
+import org.alfresco.dataprep.BatchExecutor.Result;
+import org.apache.chemistry.opencmis.client.api.Session;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -32,7 +41,6 @@ import org.apache.http.client.methods.HttpPut;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.message.BasicHeader;
 import org.apache.http.protocol.HTTP;
-import org.joda.time.DateTime;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 import org.json.simple.JSONArray;
@@ -49,7 +57,19 @@ public class WorkflowService extends CMISUtil implements InitializingBean
 {
     private static Log logger = LogFactory.getLog(WorkflowService.class);
     private static String version = AlfrescoHttpClient.ALFRESCO_API_VERSION.replace("alfresco", "workflow");
-    private static HashMap<String,String> workflowIds;
+    /** Process definition ids by key, loaded on first use */
+    private static final ConcurrentMap<String, String> processDefinitions = new ConcurrentHashMap<String, String>();
+    private static final Object processDefinitionsLock = new Object();
+    private static volatile long processDefinitionsLoadedAt;
+    private static volatile WorkflowService processDefinitionsLoader;
+    private static final int PROCESS_DEFINITION_PAGE_SIZE = 100;
+    /** Minimum time between two reloads caused by keys that are not deployed */
+    private static final long PROCESS_DEFINITION_REFRESH_INTERVAL = 5000;
+    private static final DateTimeFormatter DUE_DATE_FORMAT = DateTimeFormat.forPattern("yyyy-MM-dd'T'Z");
+    /** Task ids by process id and (lower case) assignee, refreshed from the server on a miss */
+    private final ConcurrentMap<String, ConcurrentMap<String, String>> taskIds = new ConcurrentHashMap<String, ConcurrentMap<String, String>>();
+    /** Process id of each cached task id */
+    private final ConcurrentMap<String, String> taskWorkflows = new ConcurrentHashMap<String, String>();
 
     private static final String ADHOC = "activitiAdhoc";
     private static final String PARALLELGROUPREVIEW = "activitiParallelGroupReview";
@@ -65,27 +85,187 @@ public class WorkflowService extends CMISUtil implements InitializingBean
         SingleReviewer("Review And Approve (single reviewer)", REVIEW),
         PooledReview("Review and Approve (pooled review)", REVIEWPOOLED);
         private String title;
-        private String id;
+        private String key;
         private WorkflowType(String title, String key)
         {
             this.title = title;
-            this.id = workflowIds.get(key);
+            this.key = key;
         }
         public String getTitle()
         {
             return this.title;
         }
+        /**
+         * @return String id of the deployed process definition, null if not deployed
+         */
         public String getId()
         {
-            return id;
+            return lookupProcessDefinitionId(key);
         }
         public String getProcessDefinitionKey()
         {
-            return this.id.substring(0, this.id.indexOf(":"));
+            return this.key;
         }
         
     }
 
+    /**
+     * Description of a process to start with {@link WorkflowService#startWorkflows}.
+     * Users are set for single reviewer, new task and multiple reviewers, the group for group and pooled reviews.
+     * Items come from a site (by name) and/or by path.
+     */
+    public static class WorkflowSpec
+    {
+        private final WorkflowType type;
+        private final String message;
+        private final Date dueDate;
+        private final Priority priority;
+        private String processDefinitionId;
+        private List<String> assignees;
+        private String assignedGroup;
+        private String documentsSite;
+        private List<String> documents;
+        private List<String> pathsToDocs;
+        private int requiredApprovePercent;
+        private boolean sendEmail;
+
+        public WorkflowSpec(final WorkflowType type,
+                            final String message,
+                            final Date dueDate,
+                            final Priority priority)
+        {
+            this.type = type;
+            this.message = message;
+            this.dueDate = dueDate;
+            this.priority = priority;
+        }
+
+        /**
+         * Use a process definition id instead of the id of the workflow type (e.g. for tenants)
+         */
+        public WorkflowSpec setProcessDefinitionId(final String processDefinitionId)
+        {
+            this.processDefinitionId = processDefinitionId;
+            return this;
+        }
+
+        public WorkflowSpec setAssignees(final List<String> assignees)
+        {
+            this.assignees = assignees;
+            return this;
+        }
+
+        public WorkflowSpec setAssignedGroup(final String assignedGroup)
+        {
+            this.assignedGroup = assignedGroup;
+            return this;
+        }
+
+        public WorkflowSpec setDocuments(final String documentsSite,
+                                         final List<String> documents)
+        {
+            this.documentsSite = documentsSite;
+            this.documents = documents;
+            return this;
+        }
+
+        public WorkflowSpec setPathsToDocs(final List<String> pathsToDocs)
+        {
+            this.pathsToDocs = pathsToDocs;
+            return this;
+        }
+
+        public WorkflowSpec setRequiredApprovePercent(final int requiredApprovePercent)
+        {
+            this.requiredApprovePercent = requiredApprovePercent;
+            return this;
+        }
+
+        public WorkflowSpec setSendEmail(final boolean sendEmail)
+        {
+            this.sendEmail = sendEmail;
+            return this;
+        }
+
+        public WorkflowType getType()
+        {
+            return type;
+        }
+
+        public String getMessage()
+        {
+            return message;
+        }
+
+        public List<String> getAssignees()
+        {
+            return assignees;
+        }
+
+        public String getAssignedGroup()
+        {
+            return assignedGroup;
+        }
+    }
+
+    /**
+     * Active task of a process
+     */
+    public static class ProcessTask
+    {
+        private final String id;
+        private final String name;
+        private final String assignee;
+        private final String state;
+        private final String formResourceKey;
+
+        public ProcessTask(final String id,
+                           final String name,
+                           final String assignee,
+                           final String state,
+                           final String formResourceKey)
+        {
+            this.id = id;
+            this.name = name;
+            this.assignee = assignee;
+            this.state = state;
+            this.formResourceKey = formResourceKey;
+        }
+
+        public String getId()
+        {
+            return id;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public String getAssignee()
+        {
+            return assignee;
+        }
+
+        public String getState()
+        {
+            return state;
+        }
+
+        /**
+         * @return String task type (e.g. wf:activitiReviewTask, wf:adhocTask)
+         */
+        public String getFormResourceKey()
+        {
+            return formResourceKey;
+        }
+
+        public boolean isUnclaimed()
+        {
+            return "unclaimed".equals(state);
+        }
+    }
+
     public enum TaskStatus
     {
         NOT_STARTED("Not Yet Started"),
@@ -105,78 +285,152 @@ public class WorkflowService extends CMISUtil implements InitializingBean
         
     }
 
-    private HashMap<String,String> getWorkflowSystemIdsAndKeys()
+    /**
+     * Read all the process definitions, page by page
+     * 
+     * @return Map<String, String> process definition id by key
+     * @throws RuntimeException if the process definitions can't be read
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, String> loadProcessDefinitions()
     {
-        HashMap<String,String> workflows = new HashMap<String,String>();
+        Map<String, String> workflows = new HashMap<String, String>();
         AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
-        String api = client.getAlfrescoUrl() + "alfresco/api/" + version + "process-definitions";
-        HttpGet get = new HttpGet(api);
-
-        try
+        int skipCount = 0;
+        boolean hasMoreItems = true;
+        while(hasMoreItems)
         {
-            HttpResponse response = client.executeAsAdmin(get);
-            if (HttpStatus.SC_OK == response.getStatusLine().getStatusCode())
+            String api = client.getAlfrescoUrl() + "alfresco/api/" + version + "process-definitions?skipCount=" + skipCount
+                    + "&maxItems=" + PROCESS_DEFINITION_PAGE_SIZE;
+            HttpGet get = new HttpGet(api);
+            try
             {
-                JSONArray jArray = client.getJSONArray(response, "list", "entries");
-                for (Object item : jArray)
+                HttpResponse response = client.executeAsAdmin(get);
+                if (HttpStatus.SC_OK != response.getStatusLine().getStatusCode())
                 {
-                    JSONObject jobject = (JSONObject) item;
-                    JSONObject entry = (JSONObject) jobject.get("entry");
+                    throw new RuntimeException("Unable to read process definitions: " + response.toString());
+                }
+                JSONObject list = (JSONObject) client.readStream(response.getEntity()).get("list");
+                JSONArray entries = (JSONArray) list.get("entries");
+                for (Object item : entries)
+                {
+                    JSONObject entry = (JSONObject) ((JSONObject) item).get("entry");
                     String key = (String) entry.get("key");
-                    String id = (String) entry.get("id");
                     if (!workflows.containsKey(key))
                     {
-                        workflows.put(key, id);
+                        workflows.put(key, (String) entry.get("id"));
                     }
                 }
+                skipCount += entries.size();
+                JSONObject pagination = (JSONObject) list.get("pagination");
+                hasMoreItems = pagination != null && Boolean.TRUE.equals(pagination.get("hasMoreItems")) && !entries.isEmpty();
+            }
+            finally
+            {
+                client.close();
+                get.releaseConnection();
             }
         }
-        catch (Exception e) {
-			// nothing to do
-        	logger.error(e);
-		}
-        finally
+        return workflows;
+    }
+
+    /**
+     * Reload the process definitions from the server
+     * 
+     * @return int number of process definitions
+     * @throws RuntimeException if the process definitions can't be read
+     */
+    public int refreshProcessDefinitions()
+    {
+        synchronized (processDefinitionsLock)
         {
-            client.close();
-            get.releaseConnection();
+            Map<String, String> loaded = loadProcessDefinitions();
+            processDefinitions.putAll(loaded);
+            processDefinitions.keySet().retainAll(loaded.keySet());
+            processDefinitionsLoadedAt = System.currentTimeMillis();
+            if (logger.isTraceEnabled())
+            {
+                logger.trace("Loaded " + loaded.size() + " process definitions");
+            }
+            return loaded.size();
         }
+    }
 
-        /*
-         * this is failing tests when no workflow is found.
-        if (workflows.isEmpty())
+    /**
+     * Load the process definitions in the background, e.g. while the test data is being prepared.
+     * Failures are logged, the definitions are then loaded on first use.
+     * 
+     * @return CompletableFuture<Integer> number of process definitions
+     */
+    public CompletableFuture<Integer> warmProcessDefinitions()
+    {
+        return CompletableFuture.supplyAsync(this::refreshProcessDefinitions).whenComplete((count, error) ->
         {
-            throw new RuntimeException("Could not find workflows in system");
-        }        
-        */
-        return workflows;
+            if (error != null)
+            {
+                logger.error("Unable to load process definitions: " + error.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Get the id of the deployed process definition. The definitions are loaded on first use
+     * and reloaded when the key is unknown.
+     * 
+     * @param key String process definition key (e.g. activitiAdhoc)
+     * @return String process definition id, null if not deployed
+     */
+    public String getProcessDefinitionId(final String key)
+    {
+        return lookupProcessDefinitionId(key);
+    }
+
+    private static String lookupProcessDefinitionId(final String key)
+    {
+        String id = processDefinitions.get(key);
+        if (id != null)
+        {
+            return id;
+        }
+        WorkflowService loader = processDefinitionsLoader;
+        if (loader == null)
+        {
+            throw new IllegalStateException("WorkflowService is not initialized");
+        }
+        synchronized (processDefinitionsLock)
+        {
+            id = processDefinitions.get(key);
+            if (id == null && (processDefinitionsLoadedAt == 0
+                    || System.currentTimeMillis() - processDefinitionsLoadedAt >= PROCESS_DEFINITION_REFRESH_INTERVAL))
+            {
+                loader.refreshProcessDefinitions();
+                id = processDefinitions.get(key);
+            }
+        }
+        if (id == null)
+        {
+            logger.error("Process definition not found: " + key);
+        }
+        return id;
+    }
+
+    /**
+     * Due date in the format expected by the process variables. The date keeps only the day,
+     * at the start of the day in the local time zone.
+     */
+    private String formatDueDate(final Date due)
+    {
+        return DUE_DATE_FORMAT.parseDateTime(DUE_DATE_FORMAT.print(due.getTime())).toString();
     }
 
     @SuppressWarnings("unchecked")
-    private String startWorkflow(final String userName,
-                                 final String password,
-                                 final WorkflowType workflowType,
-                                 final String message,
-                                 Date due,
-                                 Priority priority,
-                                 final List<String> assignedUsers,
-                                 final String assignedGroup,
-                                 final boolean docsByPath,
-                                 final String documentsSite,
-                                 final List<String> docsToAttach,
-                                 final List<String> pathsToDocs,
-                                 final int requiredApprovePercent,
-                                 final boolean sendEmail)
+    private JSONArray getItems(final String userName,
+                               final String password,
+                               final boolean docsByPath,
+                               final String documentsSite,
+                               final List<String> docsToAttach,
+                               final List<String> pathsToDocs)
     {
-        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
-        String api = client.getAlfrescoUrl() + "alfresco/api/" + version + "processes";
-        logger.info("Create process using url: " + api);
-        DateTimeFormatter dtf = DateTimeFormat.forPattern("yyyy-MM-dd'T'Z");
-        SimpleDateFormat fullFormat = new SimpleDateFormat("yyyy-MM-dd'T'Z");
-        String dueDate = fullFormat.format(due);
-        DateTime dateTime = dtf.parseDateTime(dueDate);
-        HttpPost post = new HttpPost(api);
-        JSONObject body = new JSONObject();
-        body.put("processDefinitionId", workflowType.getId());
         JSONArray items = new JSONArray();
         if(!(docsToAttach == null) || !(pathsToDocs == null))
         {
@@ -195,12 +449,29 @@ public class WorkflowService extends CMISUtil implements InitializingBean
                 }
             }
         }
+        return items;
+    }
+
+    @SuppressWarnings("unchecked")
+    private JSONObject getProcessBody(final String processDefId,
+                                      final WorkflowType workflowType,
+                                      final String message,
+                                      final Date due,
+                                      final Priority priority,
+                                      final List<String> assignedUsers,
+                                      final String assignedGroup,
+                                      final JSONArray items,
+                                      final int requiredApprovePercent,
+                                      final boolean sendEmail)
+    {
+        JSONObject body = new JSONObject();
+        body.put("processDefinitionId", processDefId);
         JSONObject variables = new JSONObject();
-        if(workflowType.equals(WorkflowType.GroupReview) || workflowType.equals(WorkflowType.PooledReview))
+        if(WorkflowType.GroupReview.equals(workflowType) || WorkflowType.PooledReview.equals(workflowType))
         {
             variables.put("bpm_groupAssignee", "GROUP_" + assignedGroup);
         }
-        else if(workflowType.equals(WorkflowType.MultipleReviewers))
+        else if(WorkflowType.MultipleReviewers.equals(workflowType))
         {
             variables.put("bpm_assignees", assignedUsers);
         }
@@ -211,13 +482,25 @@ public class WorkflowService extends CMISUtil implements InitializingBean
         variables.put("bpm_workflowDescription", message);
         variables.put("bpm_sendEMailNotifications", sendEmail);
         variables.put("bpm_workflowPriority", priority.getLevel());
-        variables.put("bpm_workflowDueDate", dateTime.toString());
-        if(workflowType.equals(WorkflowType.GroupReview) || workflowType.equals(WorkflowType.MultipleReviewers))
+        variables.put("bpm_workflowDueDate", formatDueDate(due));
+        if(WorkflowType.GroupReview.equals(workflowType) || WorkflowType.MultipleReviewers.equals(workflowType))
         {
             variables.put("wf_requiredApprovePercent", requiredApprovePercent);
         }
         body.put("variables", variables);
         body.put("items", items);
+        return body;
+    }
+
+    private String createProcess(final String userName,
+                                 final String password,
+                                 final JSONObject body,
+                                 final String message)
+    {
+        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
+        String api = client.getAlfrescoUrl() + "alfresco/api/" + version + "processes";
+        logger.info("Create process using url: " + api);
+        HttpPost post = new HttpPost(api);
         post.setEntity(client.setMessageBody(body));
         try
         {
@@ -242,8 +525,28 @@ public class WorkflowService extends CMISUtil implements InitializingBean
         }
         return "";
     }
+
+    private String startWorkflow(final String userName,
+                                 final String password,
+                                 final WorkflowType workflowType,
+                                 final String message,
+                                 Date due,
+                                 Priority priority,
+                                 final List<String> assignedUsers,
+                                 final String assignedGroup,
+                                 final boolean docsByPath,
+                                 final String documentsSite,
+                                 final List<String> docsToAttach,
+                                 final List<String> pathsToDocs,
+                                 final int requiredApprovePercent,
+                                 final boolean sendEmail)
+    {
+        JSONArray items = getItems(userName, password, docsByPath, documentsSite, docsToAttach, pathsToDocs);
+        JSONObject body = getProcessBody(workflowType.getId(), workflowType, message, due, priority,
+                assignedUsers, assignedGroup, items, requiredApprovePercent, sendEmail);
+        return createProcess(userName, password, body, message);
+    }
     
-    @SuppressWarnings("unchecked")
     private String startProcessWithId(final String processDefId,
                                  final String userName,
                                  final String password,
@@ -259,65 +562,95 @@ public class WorkflowService extends CMISUtil implements InitializingBean
                                  final int requiredApprovePercent,
                                  final boolean sendEmail)
     {
-        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
-        String api = client.getAlfrescoUrl() + "alfresco/api/" + version + "processes";
-        logger.info("Create process using url: " + api);
-        DateTimeFormatter dtf = DateTimeFormat.forPattern("yyyy-MM-dd'T'Z");
-        SimpleDateFormat fullFormat = new SimpleDateFormat("yyyy-MM-dd'T'Z");
-        String dueDate = fullFormat.format(due);
-        DateTime dateTime = dtf.parseDateTime(dueDate);
-        HttpPost post = new HttpPost(api);
-        JSONObject body = new JSONObject();
-        body.put("processDefinitionId", processDefId);
-        JSONArray items = new JSONArray();
-        if(!(docsToAttach == null) || !(pathsToDocs == null))
+        JSONArray items = getItems(userName, password, docsByPath, documentsSite, docsToAttach, pathsToDocs);
+        JSONObject body = getProcessBody(processDefId, null, message, due, priority,
+                assignedUsers, assignedGroup, items, requiredApprovePercent, sendEmail);
+        return createProcess(userName, password, body, message);
+    }
+
+    /**
+     * Start many processes in parallel. The items of all specs are resolved before
+     * starting the processes, with one CMIS session and one document library walk per site.
+     * 
+     * @param userName String user name that starts the processes
+     * @param password String password
+     * @param specs List<WorkflowSpec> processes to start
+     * @param threads int number of parallel requests
+     * @return List<Result<WorkflowSpec, String>> process id and duration for each spec, in the same order
+     */
+    @SuppressWarnings("unchecked")
+    public List<Result<WorkflowSpec, String>> startWorkflows(final String userName,
+                                                             final String password,
+                                                             final List<WorkflowSpec> specs,
+                                                             final int threads)
+    {
+        if(StringUtils.isEmpty(userName) || StringUtils.isEmpty(password) || specs == null)
         {
-            if(!docsByPath)
+            throw new IllegalArgumentException("Parameter missing");
+        }
+        Session session = getCMISSession(userName, password);
+        Map<String, Set<String>> docsBySite = new HashMap<String, Set<String>>();
+        Set<String> paths = new HashSet<String>();
+        for(WorkflowSpec spec : specs)
+        {
+            if(spec.documents != null)
             {
-                for(int i = 0; i<docsToAttach.size(); i++)
+                if(!docsBySite.containsKey(spec.documentsSite))
                 {
-                    items.add(getNodeRef(userName, password, documentsSite, docsToAttach.get(i)));
+                    docsBySite.put(spec.documentsSite, new HashSet<String>());
                 }
+                docsBySite.get(spec.documentsSite).addAll(spec.documents);
             }
-            else
+            if(spec.pathsToDocs != null)
             {
-                for(int i=0; i<pathsToDocs.size(); i++)
-                {
-                    items.add(getNodeRefByPath(userName, password, pathsToDocs.get(i)));
-                }
+                paths.addAll(spec.pathsToDocs);
             }
         }
-        JSONObject variables = new JSONObject();
-        variables.put("bpm_assignee", assignedUsers.get(0));
-        variables.put("bpm_workflowDescription", message);
-        variables.put("bpm_sendEMailNotifications", sendEmail);
-        variables.put("bpm_workflowPriority", priority.getLevel());
-        variables.put("bpm_workflowDueDate", dateTime.toString());
-        body.put("variables", variables);
-        body.put("items", items);
-        post.setEntity(client.setMessageBody(body));
-        try
+        final Map<String, Map<String, String>> siteNodeRefs = new HashMap<String, Map<String, String>>();
+        for(Map.Entry<String, Set<String>> site : docsBySite.entrySet())
         {
-            HttpResponse response = client.execute(userName, password, post);
-            logger.info("Response code: " + response.getStatusLine().getStatusCode());
-            switch (response.getStatusLine().getStatusCode())
+            siteNodeRefs.put(site.getKey(), getNodeRefs(session, site.getKey(), site.getValue()));
+        }
+        final Map<String, String> pathNodeRefs = new HashMap<String, String>();
+        for(String path : paths)
+        {
+            pathNodeRefs.put(path, getNodeRefByPath(session, path));
+        }
+        List<Result<WorkflowSpec, String>> results = BatchExecutor.execute(specs, threads, spec ->
+        {
+            JSONArray items = new JSONArray();
+            if(spec.documents != null)
             {
-                case HttpStatus.SC_CREATED:
-                    if (logger.isTraceEnabled())
-                    {
-                        logger.trace("Successfuly started workflow: " + message);
-                    }
-                    return client.getParameterFromJSON(response, "id", "entry");
-                default:
-                    logger.error("Unable to start workflow " + response.toString());
+                for(String document : spec.documents)
+                {
+                    String nodeRef = siteNodeRefs.get(spec.documentsSite).get(document);
+                    items.add(nodeRef == null ? "" : nodeRef);
+                }
             }
-        }
-        finally
+            if(spec.pathsToDocs != null)
+            {
+                for(String path : spec.pathsToDocs)
+                {
+                    items.add(pathNodeRefs.get(path));
+                }
+            }
+            String processDefId = StringUtils.isEmpty(spec.processDefinitionId) ? spec.type.getId() : spec.processDefinitionId;
+            JSONObject body = getProcessBody(processDefId, spec.type, spec.message, spec.dueDate, spec.priority,
+                    spec.assignees, spec.assignedGroup, items, spec.requiredApprovePercent, spec.sendEmail);
+            String processId = createProcess(userName, password, body, spec.message);
+            if(StringUtils.isEmpty(processId))
+            {
+                throw new RuntimeException("Unable to start workflow " + spec.message);
+            }
+            return processId;
+        });
+        if(logger.isTraceEnabled())
         {
-            client.close();
-            post.releaseConnection();
+            Report report = new Report();
+            report.addAll(results);
+            logger.trace("Started processes, " + report);
         }
-        return "";
+        return results;
     }
     
     /**
@@ -659,24 +992,39 @@ public class WorkflowService extends CMISUtil implements InitializingBean
             HttpResponse response = client.execute(assignedUser, password, get);
             if (HttpStatus.SC_OK == response.getStatusLine().getStatusCode())
             {
+                String taskId = "";
+                boolean ownTask = false;
                 JSONArray jArray = client.getJSONArray(response, "list", "entries");
                 for (Object item:jArray)
                 {
                     JSONObject jobject = (JSONObject) item;
                     JSONObject entry = (JSONObject) jobject.get("entry");
+                    String id = (String) entry.get("id");
                     String assignee = (String) entry.get("assignee");
                     if(!StringUtils.isEmpty(assignee))
                     {
-                        if(assignee.equalsIgnoreCase(assignedUser))
+                        cacheTaskId(workflowId, assignee, id);
+                        if(!ownTask && assignee.equalsIgnoreCase(assignedUser))
                         {
-                            return (String) entry.get("id");
+                            taskId = id;
+                            ownTask = true;
                         }
                     }
-                    if(entry.get("state").equals("unclaimed"))
+                    if(taskId.isEmpty() && entry.get("state").equals("unclaimed"))
                     {
-                        return (String) entry.get("id");
+                        taskId = id;
                     }
                 }
+                // unclaimed pooled tasks are not cached, another candidate can claim them
+                if(jArray.isEmpty())
+                {
+                    invalidateTasks(workflowId);
+                }
+                else if(!ownTask)
+                {
+                    evictTask(workflowId, assignedUser);
+                }
+                return taskId;
             }
         }
         finally
@@ -686,6 +1034,192 @@ public class WorkflowService extends CMISUtil implements InitializingBean
         }
         return "";
     }
+
+    /**
+     * Get the active tasks of a process
+     * 
+     * @param userName String user involved in the process
+     * @param password String password
+     * @param workflowId String workflow id
+     * @return List<ProcessTask> active tasks, empty if the process has ended or is not found
+     */
+    public List<ProcessTask> getProcessTasks(final String userName,
+                                             final String password,
+                                             final String workflowId)
+    {
+        List<ProcessTask> tasks = new ArrayList<ProcessTask>();
+        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
+        String api = client.getAlfrescoUrl() + "alfresco/api/" + version + "processes/" + workflowId + "/tasks";
+        HttpGet get = new HttpGet(api);
+        try
+        {
+            HttpResponse response = client.execute(userName, password, get);
+            if (HttpStatus.SC_OK == response.getStatusLine().getStatusCode())
+            {
+                JSONArray jArray = client.getJSONArray(response, "list", "entries");
+                for (Object item:jArray)
+                {
+                    JSONObject entry = (JSONObject) ((JSONObject) item).get("entry");
+                    ProcessTask task = new ProcessTask((String) entry.get("id"),
+                                                       (String) entry.get("name"),
+                                                       (String) entry.get("assignee"),
+                                                       (String) entry.get("state"),
+                                                       (String) entry.get("formResourceKey"));
+                    if(!StringUtils.isEmpty(task.getAssignee()))
+                    {
+                        cacheTaskId(workflowId, task.getAssignee(), task.getId());
+                    }
+                    tasks.add(task);
+                }
+                if(tasks.isEmpty())
+                {
+                    invalidateTasks(workflowId);
+                }
+            }
+        }
+        finally
+        {
+            client.close();
+            get.releaseConnection();
+        }
+        return tasks;
+    }
+
+    private void cacheTaskId(final String workflowId,
+                             final String assignee,
+                             final String taskId)
+    {
+        ConcurrentMap<String, String> tasks = taskIds.get(workflowId);
+        if(tasks == null)
+        {
+            taskIds.putIfAbsent(workflowId, new ConcurrentHashMap<String, String>());
+            tasks = taskIds.get(workflowId);
+        }
+        taskWorkflows.put(taskId, workflowId);
+        String previous = tasks.put(assignee.toLowerCase(), taskId);
+        if(previous != null && !previous.equals(taskId) && !tasks.containsValue(previous))
+        {
+            taskWorkflows.remove(previous, workflowId);
+        }
+    }
+
+    private String getCachedTaskId(final String workflowId,
+                                   final String assignee)
+    {
+        ConcurrentMap<String, String> tasks = taskIds.get(workflowId);
+        return tasks == null ? null : tasks.get(assignee.toLowerCase());
+    }
+
+    private void evictTask(final String workflowId,
+                           final String assignee)
+    {
+        ConcurrentMap<String, String> tasks = taskIds.get(workflowId);
+        if(tasks != null)
+        {
+            String taskId = tasks.remove(assignee.toLowerCase());
+            if(taskId != null && !tasks.containsValue(taskId))
+            {
+                taskWorkflows.remove(taskId, workflowId);
+            }
+        }
+    }
+
+    /**
+     * Forget a task that was completed, reassigned or no longer exists
+     */
+    private void evictTask(final String taskId)
+    {
+        String workflowId = taskWorkflows.remove(taskId);
+        if(workflowId != null)
+        {
+            ConcurrentMap<String, String> tasks = taskIds.get(workflowId);
+            if(tasks != null)
+            {
+                tasks.values().removeIf(taskId::equals);
+                if(tasks.isEmpty())
+                {
+                    taskIds.remove(workflowId, tasks);
+                }
+            }
+        }
+    }
+
+    /**
+     * Forget the cached task ids of a process
+     * 
+     * @param workflowId String workflow id
+     */
+    public void invalidateTasks(final String workflowId)
+    {
+        ConcurrentMap<String, String> tasks = taskIds.remove(workflowId);
+        if(tasks != null)
+        {
+            for(String taskId : tasks.values())
+            {
+                taskWorkflows.remove(taskId, workflowId);
+            }
+        }
+    }
+
+    /**
+     * Forget all cached task ids
+     */
+    public void clearTaskCache()
+    {
+        taskIds.clear();
+        taskWorkflows.clear();
+    }
+
+    /**
+     * Thrown by the task operations when the server doesn't know the task id
+     */
+    public static class TaskNotFoundException extends RuntimeException
+    {
+        private static final long serialVersionUID = 1L;
+
+        public TaskNotFoundException(final String taskId)
+        {
+            super("Invalid task id: " + taskId);
+        }
+    }
+
+    /**
+     * Run an operation on the task of the assigned user. The cached task id is used first,
+     * if the server doesn't know it anymore or rejects the operation the task id is looked up again.
+     */
+    private boolean executeOnTask(final String assignedUser,
+                                  final String password,
+                                  final String workflowId,
+                                  final Function<String, Boolean> operation)
+    {
+        String cachedTaskId = getCachedTaskId(workflowId, assignedUser);
+        if(cachedTaskId != null)
+        {
+            try
+            {
+                if(operation.apply(cachedTaskId))
+                {
+                    return true;
+                }
+            }
+            catch (TaskNotFoundException e)
+            {
+                // looked up again below
+            }
+            // the task may have been completed, claimed or reassigned by another user
+            evictTask(cachedTaskId);
+        }
+        String taskId = checkTaskId(assignedUser, password, workflowId);
+        try
+        {
+            return operation.apply(taskId);
+        }
+        catch (TaskNotFoundException e)
+        {
+            evictTask(taskId);
+            throw new RuntimeException("Invalid process id: " + workflowId);
+        }
+    }
     
     private String checkTaskId(final String assignedUser,
                                final String password,
@@ -712,9 +1246,27 @@ public class WorkflowService extends CMISUtil implements InitializingBean
                                     final String password,
                                     final String workflowId,
                                     final TaskStatus status)
+    {
+        return executeOnTask(assignedUser, password, workflowId,
+                taskId -> updateTaskStatusById(assignedUser, password, taskId, status));
+    }
+
+    /**
+     * Update the status of a task with known id
+     * 
+     * @param assignedUser String user assigned to the task
+     * @param password String password
+     * @param taskId String task id
+     * @param status TaskStatus the status
+     * @return true if 201 code is returned
+     * @throws TaskNotFoundException if the task id is not found
+     */
+    public boolean updateTaskStatusById(final String assignedUser,
+                                        final String password,
+                                        final String taskId,
+                                        final TaskStatus status)
     {
         AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
-        String taskId = checkTaskId(assignedUser, password, workflowId);
         String api = client.getAlfrescoUrl() + "alfresco/api/" + version + "tasks/" + taskId + "/variables";
         HttpPost post = new HttpPost(api); 
         String jsonInput =  "[{" + "\"name\": \"bpm_status\",\"value\": \"" + status.getStatus() + "\", \"scope\": \"local\"";
@@ -732,7 +1284,7 @@ public class WorkflowService extends CMISUtil implements InitializingBean
                 }
                 return true;
             case HttpStatus.SC_NOT_FOUND:
-                throw new RuntimeException("Invalid process id: " + workflowId);
+                throw new TaskNotFoundException(taskId);
             default:
                 logger.error("Unable to change the task status " + response.toString());
                 break;
@@ -749,14 +1301,32 @@ public class WorkflowService extends CMISUtil implements InitializingBean
      * @param reassignTo String user to reassign task
      * @return
      */
-    @SuppressWarnings("unchecked")
     public boolean reassignTask(final String assignedUser,
                                 final String password,
                                 final String workflowId,
                                 final String reassignTo)
+    {
+        return executeOnTask(assignedUser, password, workflowId,
+                taskId -> reassignTaskById(assignedUser, password, taskId, reassignTo));
+    }
+
+    /**
+     * Reassign a task with known id to another user
+     * 
+     * @param assignedUser String assigned user
+     * @param password String password
+     * @param taskId String task id
+     * @param reassignTo String user to reassign task
+     * @return true if task is reassigned
+     * @throws TaskNotFoundException if the task id is not found
+     */
+    @SuppressWarnings("unchecked")
+    public boolean reassignTaskById(final String assignedUser,
+                                    final String password,
+                                    final String taskId,
+                                    final String reassignTo)
     {
         AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
-        String taskId = checkTaskId(assignedUser, password, workflowId);
         String api = client.getAlfrescoUrl() + "alfresco/api/" + version + "tasks/" + taskId + "?select=state,assignee";
         HttpPut put = new HttpPut(api);
         JSONObject body = new JSONObject();
@@ -770,9 +1340,10 @@ public class WorkflowService extends CMISUtil implements InitializingBean
                 {
                     logger.trace("Successfuly reassigned the task to " + reassignTo);
                 }
+                evictTask(taskId);
                 return true;
             case HttpStatus.SC_NOT_FOUND:
-                throw new RuntimeException("Invalid process id: " + workflowId);
+                throw new TaskNotFoundException(taskId);
             default:
                 logger.error("Unable to reassign the task to " + reassignTo + " " + response.toString());
                 break;
@@ -780,6 +1351,47 @@ public class WorkflowService extends CMISUtil implements InitializingBean
         return false;
     }
     
+    /**
+     * Assign a task with known id to another user. Unlike {@link #reassignTaskById} the task
+     * is not delegated, the new assignee owns it and can complete it.
+     * 
+     * @param assignedUser String assigned user
+     * @param password String password
+     * @param taskId String task id
+     * @param assignTo String new assignee
+     * @return true if task is assigned
+     * @throws TaskNotFoundException if the task id is not found
+     */
+    @SuppressWarnings("unchecked")
+    public boolean assignTaskById(final String assignedUser,
+                                  final String password,
+                                  final String taskId,
+                                  final String assignTo)
+    {
+        AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
+        String api = client.getAlfrescoUrl() + "alfresco/api/" + version + "tasks/" + taskId + "?select=assignee";
+        HttpPut put = new HttpPut(api);
+        JSONObject body = new JSONObject();
+        body.put("assignee", assignTo);
+        HttpResponse response = client.executeAndRelease(assignedUser, password, body, put);
+        switch (response.getStatusLine().getStatusCode())
+        {
+            case HttpStatus.SC_OK:
+                if (logger.isTraceEnabled())
+                {
+                    logger.trace("Successfuly assigned the task to " + assignTo);
+                }
+                evictTask(taskId);
+                return true;
+            case HttpStatus.SC_NOT_FOUND:
+                throw new TaskNotFoundException(taskId);
+            default:
+                logger.error("Unable to assign the task to " + assignTo + " " + response.toString());
+                break;
+        }
+        return false;
+    }
+
     /**
      * Complete a task
      * 
@@ -790,15 +1402,35 @@ public class WorkflowService extends CMISUtil implements InitializingBean
      * @param comment String comment
      * @return true if task is completed
      */
-    @SuppressWarnings("unchecked")
     public boolean taskDone(final String assignedUser,
                             final String password,
                             final String workflowId,
                             final TaskStatus status,
                             final String comment)
+    {
+        return executeOnTask(assignedUser, password, workflowId,
+                taskId -> taskDoneById(assignedUser, password, taskId, status, comment));
+    }
+
+    /**
+     * Complete a task with known id
+     * 
+     * @param assignedUser String assigned user
+     * @param password String password
+     * @param taskId String task id
+     * @param status TaskStatus status
+     * @param comment String comment
+     * @return true if task is completed
+     * @throws TaskNotFoundException if the task id is not found
+     */
+    @SuppressWarnings("unchecked")
+    public boolean taskDoneById(final String assignedUser,
+                                final String password,
+                                final String taskId,
+                                final TaskStatus status,
+                                final String comment)
     {
         AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
-        String taskId = checkTaskId(assignedUser, password, workflowId);
         String api = client.getAlfrescoUrl() + "alfresco/api/" + version + "tasks/" + taskId + "?select=state,variables";
         HttpPut put = new HttpPut(api);
         JSONObject body = new JSONObject();
@@ -826,9 +1458,10 @@ public class WorkflowService extends CMISUtil implements InitializingBean
                 {
                     logger.trace("Successfuly completed task " + taskId);
                 }
+                evictTask(taskId);
                 return true;
             case HttpStatus.SC_NOT_FOUND:
-                throw new RuntimeException("Invalid process id: " + workflowId);
+                throw new TaskNotFoundException(taskId);
             default:
                 logger.error("Unable to complete the task " + taskId + " " + response.toString());
                 break;
@@ -837,13 +1470,12 @@ public class WorkflowService extends CMISUtil implements InitializingBean
     }
     
     @SuppressWarnings("unchecked")
-    private boolean claimTask(final String assignedUser,
-                              final String password,
-                              final String workflowId,
-                              final boolean claim)
+    private boolean claimTaskById(final String assignedUser,
+                                  final String password,
+                                  final String taskId,
+                                  final boolean claim)
     {
         AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
-        String taskId = checkTaskId(assignedUser, password, workflowId);
         String api = client.getAlfrescoUrl() + "alfresco/api/" + version + "tasks/" + taskId + "?select=state";
         HttpPut put = new HttpPut(api);
         JSONObject body = new JSONObject();
@@ -865,7 +1497,7 @@ public class WorkflowService extends CMISUtil implements InitializingBean
                 }
                 return true;
             case HttpStatus.SC_NOT_FOUND:
-                throw new RuntimeException("Invalid process id: " + workflowId);
+                throw new TaskNotFoundException(taskId);
             default:
                 logger.error("Unable to execute request " + taskId + " " + response.toString());
                 break;
@@ -885,7 +1517,24 @@ public class WorkflowService extends CMISUtil implements InitializingBean
                              final String password,
                              final String workflowId)
     {
-        return claimTask(assignedUser, password, workflowId, true);
+        return executeOnTask(assignedUser, password, workflowId,
+                taskId -> claimTaskById(assignedUser, password, taskId, true));
+    }
+
+    /**
+     * Claim a task with known id
+     * 
+     * @param assignedUser String assigned user
+     * @param password String password
+     * @param taskId String task id
+     * @return true if task is claimed
+     * @throws TaskNotFoundException if the task id is not found
+     */
+    public boolean claimTaskById(final String assignedUser,
+                                 final String password,
+                                 final String taskId)
+    {
+        return claimTaskById(assignedUser, password, taskId, true);
     }
     
     /**
@@ -900,7 +1549,24 @@ public class WorkflowService extends CMISUtil implements InitializingBean
                                  final String password,
                                  final String workflowId)
     {
-        return claimTask(assignedUser, password, workflowId, false);
+        return executeOnTask(assignedUser, password, workflowId,
+                taskId -> claimTaskById(assignedUser, password, taskId, false));
+    }
+
+    /**
+     * Realese a task with known id to pool
+     * 
+     * @param assignedUser String assigned user
+     * @param password String password
+     * @param taskId String task id
+     * @return true if task is released
+     * @throws TaskNotFoundException if the task id is not found
+     */
+    public boolean releaseToPoolById(final String assignedUser,
+                                     final String password,
+                                     final String taskId)
+    {
+        return claimTaskById(assignedUser, password, taskId, false);
     }
     
     /**
@@ -914,16 +1580,38 @@ public class WorkflowService extends CMISUtil implements InitializingBean
      * @param comment String comment
      * @return 200 OK if successful
      */
-    @SuppressWarnings("unchecked")
     public boolean approveTask(final String assignedUser,
                                final String password,
                                final String workflowId,
                                final boolean approve,
                                final TaskStatus status,
                                final String comment)
+    {
+        return executeOnTask(assignedUser, password, workflowId,
+                taskId -> approveTaskById(assignedUser, password, taskId, approve, status, comment));
+    }
+
+    /**
+     * Approve or reject a task with known id
+     * 
+     * @param assignedUser String assigned user
+     * @param password String password
+     * @param taskId String task id
+     * @param approve boolean approve or reject
+     * @param status TaskStatus task status
+     * @param comment String comment
+     * @return true if the task was approved or rejected
+     * @throws TaskNotFoundException if the task id is not found
+     */
+    @SuppressWarnings("unchecked")
+    public boolean approveTaskById(final String assignedUser,
+                                   final String password,
+                                   final String taskId,
+                                   final boolean approve,
+                                   final TaskStatus status,
+                                   final String comment)
     {
         AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
-        String taskId = checkTaskId(assignedUser, password, workflowId);
         String api = client.getAlfrescoUrl() + "alfresco/s/api/task/activiti%24" + taskId + "/formprocessor";
         HttpPost post = new HttpPost(api);
         JSONObject data = new JSONObject();
@@ -946,9 +1634,10 @@ public class WorkflowService extends CMISUtil implements InitializingBean
                 {
                     logger.trace("Successfuly executed " + post);
                 }
+                evictTask(taskId);
                 return true;
             case HttpStatus.SC_NOT_FOUND:
-                throw new RuntimeException("Invalid process id: " + workflowId);
+                throw new TaskNotFoundException(taskId);
             default:
                 logger.error("Unable to execute request " + taskId + " " + response.toString());
                 break;
@@ -1028,6 +1717,7 @@ public class WorkflowService extends CMISUtil implements InitializingBean
                  {
                      logger.trace("Successfuly canceled workflow " + workflowId);
                  }
+                 invalidateTasks(workflowId);
                  return true;
              case HttpStatus.SC_NOT_FOUND:
                  throw new RuntimeException("Invalid process id: " + workflowId);
@@ -1061,6 +1751,7 @@ public class WorkflowService extends CMISUtil implements InitializingBean
                  {
                      logger.trace("Successfuly deleted workflow " + workflowID);
                  }
+                 invalidateTasks(workflowID);
                  return true;
              case HttpStatus.SC_NOT_FOUND:
                  throw new RuntimeException("Invalid process id: " + workflowID);
@@ -1081,7 +1772,11 @@ public class WorkflowService extends CMISUtil implements InitializingBean
                                   final String pathToItem)
     {
         AlfrescoHttpClient client = alfrescoHttpClientFactory.getObject();
-        String taskId = checkTaskId(assignedUser, password, workflowId);
+        String taskId = getCachedTaskId(workflowId, assignedUser);
+        if(taskId == null)
+        {
+            taskId = checkTaskId(assignedUser, password, workflowId);
+        }
         String api = client.getAlfrescoUrl() + "alfresco/api/" + version + "tasks/" + taskId + "/items";
         HttpPost post = new HttpPost(api);
         JSONObject data = new JSONObject();
@@ -1103,6 +1798,7 @@ public class WorkflowService extends CMISUtil implements InitializingBean
                 }
                 return true;
             case HttpStatus.SC_NOT_FOUND:
+                evictTask(taskId);
                 throw new RuntimeException("Invalid task id: " + workflowId);
             default:
                 logger.error("Unable to add items to " + taskId + " " + response.toString());
@@ -1192,7 +1888,7 @@ public class WorkflowService extends CMISUtil implements InitializingBean
         @Override
         public void afterPropertiesSet() throws Exception
         {
-            workflowIds = getWorkflowSystemIdsAndKeys();
+            processDefinitionsLoader = this;
         }
 }
 
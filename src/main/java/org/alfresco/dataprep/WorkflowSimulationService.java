@@ -0,0 +1,493 @@
+/*
+ * Copyright (C) 2005-2015 Alfresco Software Limited.
+ * This file is part of Alfresco
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.alfresco.dataprep;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToLongFunction;
+
+import org.alfresco.dataprep.BatchExecutor.Report;
+import org.alfresco.dataprep.BatchExecutor.Result;
+import org.alfresco.dataprep.WorkflowService.ProcessTask;
+import org.alfresco.dataprep.WorkflowService.TaskStatus;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Drives started processes to completion the way users would, to load inboxes, task lists
+ * and workflow reports with realistic activity.
+ * <p>
+ * Each process is advanced by its own worker: the active tasks are read, every task is
+ * claimed (pooled tasks), approved, rejected or reassigned according to the {@link TransitionModel},
+ * and the loop ends when the process has no active task left. Review tasks get an approve, reject
+ * or reassign outcome, other tasks (ad hoc, approved and rejected notifications) are completed.
+ * All the users involved must share the same password.
+ */
+@Service
+public class WorkflowSimulationService
+{
+    private static Log logger = LogFactory.getLog(WorkflowSimulationService.class);
+    public static final int DEFAULT_MAX_TRANSITIONS = 50;
+
+    @Autowired
+    private WorkflowService workflowService;
+
+    public enum Transition
+    {
+        CLAIM,
+        APPROVE,
+        REJECT,
+        REASSIGN,
+        COMPLETE;
+    }
+
+    /**
+     * Weights of the outcomes of a review task and the think time before each transition.
+     * E.g. new TransitionModel(70, 20, 10) approves 70%, rejects 20% and reassigns 10% of the review tasks.
+     */
+    public static class TransitionModel
+    {
+        private final double approve;
+        private final double reject;
+        private final double reassign;
+        private ToLongFunction<Random> thinkTime = ThinkTime.NONE;
+        private List<String> reassignTo = Collections.emptyList();
+        private int maxTransitions = DEFAULT_MAX_TRANSITIONS;
+        private long seed = System.currentTimeMillis();
+
+        public TransitionModel(final double approve,
+                               final double reject,
+                               final double reassign)
+        {
+            if(approve < 0 || reject < 0 || reassign < 0 || approve + reject + reassign <= 0)
+            {
+                throw new IllegalArgumentException("Invalid transition weights");
+            }
+            this.approve = approve;
+            this.reject = reject;
+            this.reassign = reassign;
+        }
+
+        /**
+         * Wait a random time, uniform between min and max, before each transition
+         */
+        public TransitionModel setThinkTime(final long minMillis,
+                                            final long maxMillis)
+        {
+            return setThinkTime(ThinkTime.uniform(minMillis, maxMillis));
+        }
+
+        /**
+         * Wait a random time, drawn from the sampler in milliseconds, before each transition.
+         * E.g. random -> (long) (-1000 * Math.log(1 - random.nextDouble())) gives an exponential think time with a mean of 1s.
+         */
+        public TransitionModel setThinkTime(final ToLongFunction<Random> sampler)
+        {
+            if(sampler == null)
+            {
+                throw new IllegalArgumentException("Parameter missing");
+            }
+            this.thinkTime = sampler;
+            return this;
+        }
+
+        /**
+         * Users that reassigned tasks are given to. Without users, review tasks are never reassigned.
+         */
+        public TransitionModel setReassignTo(final List<String> users)
+        {
+            this.reassignTo = users;
+            return this;
+        }
+
+        /**
+         * Give up on a process that is not completed after this number of transitions
+         */
+        public TransitionModel setMaxTransitions(final int maxTransitions)
+        {
+            this.maxTransitions = maxTransitions;
+            return this;
+        }
+
+        /**
+         * Seed of the random choices, for reproducible runs
+         */
+        public TransitionModel setSeed(final long seed)
+        {
+            this.seed = seed;
+            return this;
+        }
+
+        private Transition next(final Random random)
+        {
+            double value = random.nextDouble() * (approve + reject + reassign);
+            if(value < approve)
+            {
+                return Transition.APPROVE;
+            }
+            if(value < approve + reject)
+            {
+                return Transition.REJECT;
+            }
+            return Transition.REASSIGN;
+        }
+    }
+
+    /**
+     * A started process to drive
+     */
+    public static class SimulatedProcess
+    {
+        private final String workflowId;
+        private final String initiator;
+        private List<String> candidates = Collections.emptyList();
+
+        /**
+         * @param workflowId String workflow id
+         * @param initiator String user that started the process, used to read the active tasks
+         */
+        public SimulatedProcess(final String workflowId,
+                                final String initiator)
+        {
+            this.workflowId = workflowId;
+            this.initiator = initiator;
+        }
+
+        /**
+         * Users that may claim the pooled tasks of the process
+         */
+        public SimulatedProcess setCandidates(final List<String> candidates)
+        {
+            this.candidates = candidates;
+            return this;
+        }
+
+        public String getWorkflowId()
+        {
+            return workflowId;
+        }
+
+        public String getInitiator()
+        {
+            return initiator;
+        }
+
+        @Override
+        public String toString()
+        {
+            return workflowId;
+        }
+    }
+
+    /**
+     * One executed transition
+     */
+    public static class TransitionRecord
+    {
+        private final String workflowId;
+        private final String taskId;
+        private final String user;
+        private final Transition transition;
+        private final boolean successful;
+        private final long durationMillis;
+
+        public TransitionRecord(final String workflowId,
+                                final String taskId,
+                                final String user,
+                                final Transition transition,
+                                final boolean successful,
+                                final long durationMillis)
+        {
+            this.workflowId = workflowId;
+            this.taskId = taskId;
+            this.user = user;
+            this.transition = transition;
+            this.successful = successful;
+            this.durationMillis = durationMillis;
+        }
+
+        public String getWorkflowId()
+        {
+            return workflowId;
+        }
+
+        public String getTaskId()
+        {
+            return taskId;
+        }
+
+        public String getUser()
+        {
+            return user;
+        }
+
+        public Transition getTransition()
+        {
+            return transition;
+        }
+
+        public boolean isSuccessful()
+        {
+            return successful;
+        }
+
+        public long getDurationMillis()
+        {
+            return durationMillis;
+        }
+    }
+
+    /**
+     * Outcome of a simulation: the completed processes and the latency of every transition
+     */
+    public static class SimulationReport
+    {
+        private final Report processes;
+        private final List<TransitionRecord> transitions;
+
+        public SimulationReport(final Report processes,
+                                final List<TransitionRecord> transitions)
+        {
+            this.processes = processes;
+            this.transitions = transitions;
+        }
+
+        /**
+         * @return {@link Report} processes completed and failed
+         */
+        public Report getProcesses()
+        {
+            return processes;
+        }
+
+        public List<TransitionRecord> getTransitions()
+        {
+            return transitions;
+        }
+
+        public int getCount(final Transition transition)
+        {
+            return getDurations(transition).size();
+        }
+
+        public int getFailed(final Transition transition)
+        {
+            int failed = 0;
+            for(TransitionRecord record : transitions)
+            {
+                if(record.getTransition() == transition && !record.isSuccessful())
+                {
+                    failed++;
+                }
+            }
+            return failed;
+        }
+
+        public double getAverageMillis(final Transition transition)
+        {
+            List<Long> durations = getDurations(transition);
+            if(durations.isEmpty())
+            {
+                return 0;
+            }
+            long total = 0;
+            for(long duration : durations)
+            {
+                total += duration;
+            }
+            return (double) total / durations.size();
+        }
+
+        /**
+         * @param transition {@link Transition} type of transition
+         * @param percentile double between 0 and 100 (e.g. 95)
+         * @return long latency in milliseconds, 0 if there was no such transition
+         */
+        public long getPercentileMillis(final Transition transition,
+                                        final double percentile)
+        {
+            List<Long> durations = getDurations(transition);
+            if(durations.isEmpty())
+            {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * durations.size()) - 1;
+            return durations.get(Math.max(0, Math.min(index, durations.size() - 1)));
+        }
+
+        private List<Long> getDurations(final Transition transition)
+        {
+            List<Long> durations = new ArrayList<Long>();
+            for(TransitionRecord record : transitions)
+            {
+                if(record.getTransition() == transition)
+                {
+                    durations.add(record.getDurationMillis());
+                }
+            }
+            Collections.sort(durations);
+            return durations;
+        }
+
+        @Override
+        public String toString()
+        {
+            StringBuilder summary = new StringBuilder("processes: " + processes);
+            for(Transition transition : Transition.values())
+            {
+                if(getCount(transition) > 0)
+                {
+                    summary.append(String.format(", %s: %d (failed %d, avg %.1f ms, p95 %d ms)", transition, getCount(transition),
+                            getFailed(transition), getAverageMillis(transition), getPercentileMillis(transition, 95)));
+                }
+            }
+            return summary.toString();
+        }
+    }
+
+    /**
+     * Drive the processes to completion, several processes at a time
+     *
+     * @param password String password shared by all the users involved
+     * @param processes List<SimulatedProcess> started processes
+     * @param model {@link TransitionModel} outcome weights and think time
+     * @param threads int number of processes advanced in parallel
+     * @return {@link SimulationReport} completed processes and transition latencies
+     */
+    public SimulationReport simulate(final String password,
+                                     final List<SimulatedProcess> processes,
+                                     final TransitionModel model,
+                                     final int threads)
+    {
+        if(StringUtils.isEmpty(password) || processes == null || model == null)
+        {
+            throw new IllegalArgumentException("Parameter missing");
+        }
+        final List<TransitionRecord> transitions = Collections.synchronizedList(new ArrayList<TransitionRecord>());
+        List<Result<SimulatedProcess, Integer>> results = BatchExecutor.execute(processes, threads,
+                process -> drive(password, process, model, transitions));
+        Report report = new Report();
+        report.addAll(results);
+        SimulationReport simulation = new SimulationReport(report, transitions);
+        if(logger.isTraceEnabled())
+        {
+            logger.trace("Workflow simulation done, " + simulation);
+        }
+        return simulation;
+    }
+
+    /**
+     * @return int number of transitions needed to complete the process
+     */
+    private int drive(final String password,
+                      final SimulatedProcess process,
+                      final TransitionModel model,
+                      final List<TransitionRecord> transitions)
+    {
+        Random random = new Random(model.seed ^ process.getWorkflowId().hashCode());
+        int count = 0;
+        List<ProcessTask> tasks = workflowService.getProcessTasks(process.getInitiator(), password, process.getWorkflowId());
+        while(!tasks.isEmpty())
+        {
+            for(ProcessTask task : tasks)
+            {
+                if(count++ >= model.maxTransitions)
+                {
+                    throw new RuntimeException("Process not completed after " + model.maxTransitions + " transitions");
+                }
+                ThinkTime.pause(model.thinkTime, random);
+                transitions.add(advance(password, process, task, model, random));
+            }
+            tasks = workflowService.getProcessTasks(process.getInitiator(), password, process.getWorkflowId());
+        }
+        return count;
+    }
+
+    private TransitionRecord advance(final String password,
+                                     final SimulatedProcess process,
+                                     final ProcessTask task,
+                                     final TransitionModel model,
+                                     final Random random)
+    {
+        String user = task.getAssignee();
+        Transition transition;
+        if(task.isUnclaimed())
+        {
+            if(process.candidates.isEmpty())
+            {
+                throw new RuntimeException("No candidate to claim task " + task.getId());
+            }
+            user = process.candidates.get(random.nextInt(process.candidates.size()));
+            transition = Transition.CLAIM;
+        }
+        else if(StringUtils.containsIgnoreCase(task.getFormResourceKey(), "ReviewTask"))
+        {
+            transition = model.next(random);
+        }
+        else
+        {
+            transition = Transition.COMPLETE;
+        }
+        String reassignTo = null;
+        if(transition == Transition.REASSIGN)
+        {
+            List<String> targets = new ArrayList<String>(model.reassignTo);
+            targets.remove(user);
+            if(targets.isEmpty())
+            {
+                transition = Transition.APPROVE;
+            }
+            else
+            {
+                reassignTo = targets.get(random.nextInt(targets.size()));
+            }
+        }
+        long start = System.currentTimeMillis();
+        boolean successful;
+        try
+        {
+            switch (transition)
+            {
+                case CLAIM:
+                    successful = workflowService.claimTaskById(user, password, task.getId());
+                    break;
+                case APPROVE:
+                    successful = workflowService.approveTaskById(user, password, task.getId(), true, TaskStatus.COMPLETED, "approved");
+                    break;
+                case REJECT:
+                    successful = workflowService.approveTaskById(user, password, task.getId(), false, TaskStatus.COMPLETED, "rejected");
+                    break;
+                case REASSIGN:
+                    successful = workflowService.assignTaskById(user, password, task.getId(), reassignTo);
+                    break;
+                default:
+                    successful = workflowService.taskDoneById(user, password, task.getId(), TaskStatus.COMPLETED, "done");
+                    break;
+            }
+        }
+        catch (RuntimeException e)
+        {
+            logger.error("Transition " + transition + " failed on task " + task.getId() + ": " + e.getMessage());
+            successful = false;
+        }
+        return new TransitionRecord(process.getWorkflowId(), task.getId(), user, transition, successful,
+                System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2005-2015 Alfresco Software Limited.
+ * This file is part of Alfresco
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.alfresco.dataprep;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Zipf (discrete power-law) distribution over the ranks 0..size-1.
+ * The probability of rank k is proportional to 1 / (k + 1)^exponent,
+ * an exponent of 0 gives a uniform distribution.
+ * Used to generate realistic popularity and degree distributions.
+ */
+public class ZipfDistribution
+{
+    private final double[] cumulative;
+
+    /**
+     * @param size int number of ranks
+     * @param exponent double skew of the distribution, usually around 1
+     */
+    public ZipfDistribution(final int size,
+                            final double exponent)
+    {
+        if(size < 1 || exponent < 0)
+        {
+            throw new IllegalArgumentException("Invalid distribution size or exponent");
+        }
+        cumulative = new double[size];
+        double sum = 0;
+        for(int i = 0; i < size; i++)
+        {
+            sum += 1 / Math.pow(i + 1, exponent);
+            cumulative[i] = sum;
+        }
+        for(int i = 0; i < size; i++)
+        {
+            cumulative[i] = cumulative[i] / sum;
+        }
+    }
+
+    public int size()
+    {
+        return cumulative.length;
+    }
+
+    /**
+     * Draw a rank
+     *
+     * @param random {@link Random} source, seeded for reproducible data
+     * @return int rank between 0 and size-1, 0 being the most frequent
+     */
+    public int sample(final Random random)
+    {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        if(index < 0)
+        {
+            index = -index - 1;
+        }
+        return Math.min(index, cumulative.length - 1);
+    }
+}
@@ -15,8 +15,14 @@
 package org.alfresco.test.util;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import org.alfresco.dataprep.AlfrescoHttpClient;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
 import org.json.simple.parser.ParseException;
 import org.testng.Assert;
 import org.testng.annotations.AfterMethod;
@@ -48,4 +54,34 @@ public class AlfrescoHttpClientTest
         Assert.assertEquals(ticket, "");
     }
 
+    @Test
+    public void readJsonValue()
+    {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.setEntity(new StringEntity("{\"entry\":{\"id\":\"likes\",\"myRating\":true,"
+                + "\"aggregate\":{\"numberOfRatings\":3}},\"numberOfRatings\":0}", StandardCharsets.UTF_8));
+        Assert.assertEquals(client.readJsonValue(response, "entry", "aggregate", "numberOfRatings"), "3");
+        response.setEntity(new StringEntity("{\"list\":{\"entries\":[]}}", StandardCharsets.UTF_8));
+        Assert.assertNull(client.readJsonValue(response, "entry", "aggregate", "numberOfRatings"));
+    }
+
+    @Test
+    public void readJsonValues()
+    {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.setEntity(new StringEntity("{\"people\":[{\"userName\":\"user1\",\"firstName\":\"first\"},"
+                + "{\"userName\":\"user2\"}],\"userName\":\"owner\"}", StandardCharsets.UTF_8));
+        Assert.assertEquals(client.readJsonValues(response, "people", "userName"), Arrays.asList("user1", "user2"));
+    }
+
+    @Test
+    public void countNestedJsonItems()
+    {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.setEntity(new StringEntity("{\"items\":[{\"title\":\"1\",\"tags\":[\"a\"],\"author\":{\"username\":\"u\"},"
+                + "\"children\":[{\"title\":\"1.1\",\"children\":[]},{\"title\":\"1.2\",\"children\":[{\"title\":\"1.2.1\"}]}]},"
+                + "{\"title\":\"2\"}],\"metadata\":{\"items\":[]}}", StandardCharsets.UTF_8));
+        Assert.assertEquals(client.countNestedJsonItems(response, "items", "children"), 5);
+    }
+
 }
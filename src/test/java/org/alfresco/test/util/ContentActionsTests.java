@@ -15,13 +15,28 @@
 package org.alfresco.test.util;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
+import org.alfresco.dataprep.BatchExecutor.Report;
+import org.alfresco.dataprep.BatchExecutor.Result;
 import org.alfresco.dataprep.CMISUtil.DocumentType;
 import org.alfresco.dataprep.ContentActions;
+import org.alfresco.dataprep.ContentActions.CommentSpec;
+import org.alfresco.dataprep.ContentActions.ConflictStrategy;
+import org.alfresco.dataprep.ContentActions.EngagementSpec;
+import org.alfresco.dataprep.ContentActions.NodePermissions;
+import org.alfresco.dataprep.ContentActions.Relocation;
+import org.alfresco.dataprep.ContentActions.TaggingSpec;
+import org.alfresco.dataprep.ContentActions.VersionHistorySpec;
 import org.alfresco.dataprep.ContentService;
+import org.alfresco.dataprep.EditingStressService;
+import org.alfresco.dataprep.EditingStressService.EditingModel;
+import org.alfresco.dataprep.EditingStressService.Operation;
+import org.alfresco.dataprep.EditingStressService.StressReport;
 import org.alfresco.dataprep.GroupService;
 import org.alfresco.dataprep.SiteService;
 import org.alfresco.dataprep.SiteService.Visibility;
@@ -29,7 +44,10 @@ import org.alfresco.dataprep.UserService;
 import org.apache.chemistry.opencmis.client.api.CmisObject;
 import org.apache.chemistry.opencmis.client.api.Folder;
 import org.apache.chemistry.opencmis.client.api.ObjectId;
+import org.apache.chemistry.opencmis.client.api.Session;
 import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.data.Ace;
+import org.apache.chemistry.opencmis.commons.data.Acl;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.testng.Assert;
@@ -48,6 +66,7 @@ public class ContentActionsTests extends AbstractTest
     @Autowired private ContentService content;
     @Autowired private ContentActions contentAction;
     @Autowired private GroupService groupService;
+    @Autowired private EditingStressService editingStress;
     private String document = "actionDoc";
     private String folder = "testFolder";
     private String commentDoc = "commentDoc";
@@ -170,6 +189,30 @@ public class ContentActionsTests extends AbstractTest
         Assert.assertEquals(returnTags.get(2), tag3);
     }
     
+    @Test
+    public void tagContents()
+    {
+        List<String> vocabulary = new ArrayList<String>();
+        for(int i = 0; i < 10; i++)
+        {
+            vocabulary.add("bulk" + i + "-" + System.currentTimeMillis());
+        }
+        List<String> docs = new ArrayList<String>();
+        for(int i = 0; i < 5; i++)
+        {
+            String doc = "tagDoc" + i + "-" + System.currentTimeMillis();
+            content.createDocument(userName, password, siteName, DocumentType.TEXT_PLAIN, doc, doc);
+            docs.add(doc);
+        }
+        docs.add("fakeDoc");
+        TaggingSpec spec = new TaggingSpec(vocabulary, 11).setTagsPerNode(2, 3);
+        Report report = contentAction.tagContents(userName, password, siteName, docs, spec, 3);
+        Assert.assertEquals(report.getSucceeded(), 5);
+        Assert.assertEquals(report.getFailed(), 1);
+        List<String> returnTags = contentAction.getTagNamesFromContent(userName, password, siteName, docs.get(0));
+        Assert.assertEquals(new HashSet<String>(returnTags), new HashSet<String>(spec.getTags(docs.get(0))));
+    }
+    
     @Test
     public void deleteTag()
     {
@@ -415,6 +458,141 @@ public class ContentActionsTests extends AbstractTest
         Assert.assertTrue(content.getDocumentContent(userName, password, siteName, docName).equals("third edit"));
     }
     
+    @Test
+    public void engageUsers()
+    {
+        List<String> nodeRefs = new ArrayList<String>();
+        for(int i = 0; i < 3; i++)
+        {
+            String engageDoc = "engageDoc" + i + System.currentTimeMillis();
+            content.createDocument(userName, password, siteName, DocumentType.TEXT_PLAIN, engageDoc, engageDoc);
+            nodeRefs.add(content.getNodeRef(userName, password, siteName, engageDoc));
+        }
+        Map<String, String> users = new HashMap<String, String>();
+        users.put(userName, password);
+        users.put(userToInvite, password);
+        EngagementSpec spec = new EngagementSpec(nodeRefs, 7).setPerUser(2, 1);
+        Report report = contentAction.engage(users, spec, 2);
+        Assert.assertEquals(report.getFailed(), 0, report.getFailures().toString());
+        Assert.assertEquals(report.getTotal(), 6);
+        Assert.assertEquals(contentAction.verifyLikes(userName, password, users.keySet(), spec, 2).getFailed(), 0);
+        Assert.assertEquals(contentAction.verifyFavorites(users, spec, 2).getFailed(), 0);
+        String mostLiked = nodeRefs.get(0);
+        Assert.assertEquals(contentAction.countNodeLikes(userName, password, mostLiked),
+                spec.getLikeCounts(users.keySet()).get(mostLiked).intValue());
+    }
+    
+    @Test
+    public void commentNodes()
+    {
+        List<String> nodeRefs = new ArrayList<String>();
+        for(int i = 0; i < 2; i++)
+        {
+            String commentedDoc = "commentedDoc" + i + System.currentTimeMillis();
+            content.createDocument(userName, password, siteName, DocumentType.TEXT_PLAIN, commentedDoc, commentedDoc);
+            nodeRefs.add(content.getNodeRef(userName, password, siteName, commentedDoc));
+        }
+        CommentSpec spec = new CommentSpec(11).setCommentsPerNode(3, 8).setBatchSize(2);
+        Report report = contentAction.commentNodes(userName, password, nodeRefs, spec, 2);
+        Assert.assertEquals(report.getSucceeded(), 2, report.getFailures().toString());
+        Assert.assertEquals(contentAction.verifyComments(userName, password, nodeRefs, spec, 2).getFailed(), 0);
+        List<String> comments = contentAction.getNodeComments(userName, password, nodeRefs.get(0));
+        Assert.assertEquals(new HashSet<String>(comments), new HashSet<String>(spec.getComments(nodeRefs.get(0))));
+    }
+    
+    @Test
+    public void editingStress()
+    {
+        String editor = "editor" + System.currentTimeMillis();
+        userService.create(ADMIN, ADMIN, editor, password, editor + domain, "editing", "user");
+        userService.createSiteMember(userName, password, editor, siteName, "SiteCollaborator");
+        String docLib = "/Sites/" + siteName + "/documentLibrary/";
+        List<String> paths = new ArrayList<String>();
+        for(int i = 0; i < 3; i++)
+        {
+            String stressDoc = "stressDoc" + i + System.currentTimeMillis();
+            content.createDocument(userName, password, siteName, DocumentType.TEXT_PLAIN, stressDoc, stressDoc);
+            paths.add(docLib + stressDoc);
+        }
+        Map<String, String> users = new HashMap<String, String>();
+        users.put(userName, password);
+        users.put(editor, password);
+        EditingModel model = new EditingModel(5).setContention(0.5).setThinkTime(0, 50).setSeed(42);
+        StressReport report = editingStress.run(users, paths, model, 2);
+        Assert.assertEquals(report.getUsers().getSucceeded(), 2);
+        Assert.assertEquals(report.getCount(Operation.CHECK_OUT), 10);
+        Assert.assertEquals(report.getLostUpdateCount(), 0, report.toString());
+        Assert.assertEquals(report.getHistogram(Operation.CHECK_IN).getCount(),
+                report.getCount(Operation.CHECK_IN) - report.getFailed(Operation.CHECK_IN));
+    }
+    
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void editingStressNotEnoughDocuments()
+    {
+        Map<String, String> users = new HashMap<String, String>();
+        users.put(userName, password);
+        users.put("editor" + System.currentTimeMillis(), password);
+        List<String> paths = Arrays.asList("/Sites/" + siteName + "/documentLibrary/shared", "/Sites/" + siteName + "/documentLibrary/own");
+        editingStress.run(users, paths, new EditingModel(5).setContention(0.5), 2);
+    }
+    
+    @Test
+    public void getVersions()
+    {
+        String versionDoc = "labelDoc" + System.currentTimeMillis();
+        String plainDoc = "plainLabelDoc" + System.currentTimeMillis();
+        content.createDocument(userName, password, siteName, DocumentType.TEXT_PLAIN, versionDoc, versionDoc);
+        content.createDocument(userName, password, siteName, DocumentType.TEXT_PLAIN, plainDoc, plainDoc);
+        contentAction.checkIn(userName, password, siteName, versionDoc, DocumentType.TEXT_PLAIN, "edit", false, "minor");
+        String versionRef = content.getNodeRef(userName, password, siteName, versionDoc);
+        String plainRef = content.getNodeRef(userName, password, siteName, plainDoc);
+        String missingRef = "workspace://SpacesStore/00000000-0000-0000-0000-000000000000";
+        Map<String, String> versions = contentAction.getVersions(userName, password, Arrays.asList(versionRef, plainRef, missingRef));
+        Assert.assertEquals(versions.size(), 2);
+        Assert.assertEquals(versions.get(versionRef), "1.1");
+        Assert.assertEquals(versions.get(plainRef), "1.0");
+        Assert.assertEquals(contentAction.getVersion(userName, password, siteName, versionDoc), "1.1");
+    }
+    
+    @Test
+    public void removeTagsAndComments()
+    {
+        String cleanFolder = "cleanFolder" + System.currentTimeMillis();
+        String cleanDoc = "cleanDoc" + System.currentTimeMillis();
+        content.createFolder(userName, password, cleanFolder, siteName);
+        content.createDocumentInFolder(userName, password, siteName, cleanFolder, DocumentType.TEXT_PLAIN, cleanDoc, cleanDoc);
+        String folderRef = content.getNodeRef(userName, password, siteName, cleanFolder);
+        String docRef = content.getNodeRef(userName, password, siteName, cleanDoc);
+        Assert.assertTrue(contentAction.addMultipleTags(userName, password, siteName, cleanDoc, Arrays.asList("tag1", "tag2", "tag3")));
+        Report report = contentAction.removeTags(userName, password, docRef, Arrays.asList("tag1", "TAG2", "fakeTag"), 2);
+        Assert.assertEquals(report.getSucceeded(), 2);
+        Assert.assertEquals(report.getFailed(), 1);
+        Assert.assertEquals(contentAction.getTagNamesFromContent(userName, password, siteName, cleanDoc), Arrays.asList("tag3"));
+        Assert.assertTrue(contentAction.addMultipleComments(userName, password, siteName, cleanDoc, Arrays.asList("c1", "c2")));
+        Assert.assertTrue(contentAction.addComment(userName, password, siteName, cleanFolder, "c3"));
+        report = contentAction.removeAllComments(userName, password, "/Sites/" + siteName + "/documentLibrary/" + cleanFolder, 2);
+        Assert.assertEquals(report.getSucceeded(), 3);
+        Assert.assertEquals(contentAction.countNodeComments(userName, password, docRef), 0);
+        Assert.assertEquals(contentAction.countNodeComments(userName, password, folderRef), 0);
+    }
+    
+    @Test
+    public void createVersionHistory()
+    {
+        String versionDoc1 = "versionDoc1" + System.currentTimeMillis();
+        String versionDoc2 = "versionDoc2" + System.currentTimeMillis();
+        content.createDocument(userName, password, siteName, DocumentType.TEXT_PLAIN, versionDoc1, versionDoc1);
+        content.createDocument(userName, password, siteName, DocumentType.TEXT_PLAIN, versionDoc2, versionDoc2);
+        String docLib = "/Sites/" + siteName + "/documentLibrary/";
+        VersionHistorySpec spec = new VersionHistorySpec(4).setMajorEvery(2).setComment("version");
+        Report report = contentAction.createVersionHistory(userName, password,
+                Arrays.asList(docLib + versionDoc1, docLib + versionDoc2, docLib + "fakeDoc"), spec, 2);
+        Assert.assertEquals(report.getSucceeded(), 2);
+        Assert.assertEquals(report.getFailed(), 1);
+        Assert.assertEquals(contentAction.getVersion(userName, password, siteName, versionDoc1), "3.0");
+        Assert.assertEquals(content.getDocumentContent(userName, password, siteName, versionDoc2), "Version 4 of " + versionDoc2);
+    }
+    
     @Test
     public void folderCopyTo()
     {
@@ -434,6 +612,39 @@ public class ContentActionsTests extends AbstractTest
         Assert.assertTrue(objectCopied.getFolderParent().getName().equals(targetFolder));
     }
     
+    @Test
+    public void copyFolderTree()
+    {
+        String suffix = String.valueOf(System.currentTimeMillis());
+        String sourceFolder = "treeSource" + suffix;
+        String subFolder1 = "treeSub1" + suffix;
+        String subFolder2 = "treeSub2" + suffix;
+        String targetFolder = "treeTarget" + suffix;
+        String serverTarget = "treeServerTarget" + suffix;
+        content.createFolder(userName, password, targetFolder, siteName);
+        content.createFolder(userName, password, serverTarget, siteName);
+        Folder source = content.createFolder(userName, password, sourceFolder, siteName);
+        Map<String, String> properties = new HashMap<String, String>();
+        properties.put(PropertyIds.OBJECT_TYPE_ID, "cmis:folder");
+        properties.put(PropertyIds.NAME, subFolder1);
+        Folder sub1 = source.createFolder(properties);
+        properties.put(PropertyIds.NAME, subFolder2);
+        sub1.createFolder(properties);
+        content.createDocumentInFolder(userName, password, siteName, sourceFolder, DocumentType.TEXT_PLAIN, "treeDoc0" + suffix, "doc");
+        content.createDocumentInFolder(userName, password, siteName, subFolder1, DocumentType.TEXT_PLAIN, "treeDoc1" + suffix, "doc");
+        content.createDocumentInFolder(userName, password, siteName, subFolder2, DocumentType.TEXT_PLAIN, "treeDoc2" + suffix, "doc");
+        String docLib = "/Sites/" + siteName + "/documentLibrary/";
+        Report report = contentAction.copyFolderTree(userName, password, docLib + sourceFolder, docLib + targetFolder, 3, false);
+        Assert.assertEquals(report.getSucceeded(), 6);
+        Assert.assertEquals(report.getFailed(), 0);
+        String copiedDoc = docLib + targetFolder + "/" + sourceFolder + "/" + subFolder1 + "/" + subFolder2 + "/treeDoc2" + suffix;
+        Assert.assertFalse(contentAction.getNodeRefByPath(userName, password, copiedDoc).isEmpty());
+        report = contentAction.copyFolderTree(userName, password, docLib + sourceFolder, docLib + serverTarget, 3, true);
+        Assert.assertEquals(report.getSucceeded(), 1);
+        copiedDoc = docLib + serverTarget + "/" + sourceFolder + "/" + subFolder1 + "/" + subFolder2 + "/treeDoc2" + suffix;
+        Assert.assertFalse(contentAction.getNodeRefByPath(userName, password, copiedDoc).isEmpty());
+    }
+    
     @Test
     public void copyFileAnotherSite()
     {
@@ -489,6 +700,97 @@ public class ContentActionsTests extends AbstractTest
                 "/Sites/" + siteName + "/documentLibrary/" + sourceFolder + "/" + subFolder).isEmpty());
     }
     
+    @Test
+    public void relocateContents()
+    {
+        String suffix = String.valueOf(System.currentTimeMillis());
+        String sourceFolder = "relocateSource" + suffix;
+        String targetFolder = "relocateTarget" + suffix;
+        String doc1 = "relocateDoc1" + suffix;
+        String doc2 = "relocateDoc2" + suffix;
+        String doc3 = "relocateDoc3" + suffix;
+        content.createFolder(userName, password, sourceFolder, siteName);
+        content.createFolder(userName, password, targetFolder, siteName);
+        content.createDocumentInFolder(userName, password, siteName, sourceFolder, DocumentType.TEXT_PLAIN, doc1, doc1);
+        content.createDocumentInFolder(userName, password, siteName, sourceFolder, DocumentType.TEXT_PLAIN, doc2, doc2);
+        content.createDocumentInFolder(userName, password, siteName, sourceFolder, DocumentType.TEXT_PLAIN, doc3, doc3);
+        content.createDocumentInFolder(userName, password, siteName, targetFolder, DocumentType.TEXT_PLAIN, doc1, doc1);
+        String source = "/Sites/" + siteName + "/documentLibrary/" + sourceFolder;
+        String target = "/Sites/" + siteName + "/documentLibrary/" + targetFolder;
+        List<Relocation> relocations = new ArrayList<Relocation>();
+        relocations.add(Relocation.move(source + "/" + doc1, target));
+        relocations.add(Relocation.rename(source + "/" + doc2, doc2 + "-renamed"));
+        relocations.add(Relocation.rename(source + "/" + doc3, doc2));
+        relocations.add(Relocation.move(source + "/fakeDoc", target));
+        List<Result<Relocation, String>> results = contentAction.relocate(userName, password, relocations, ConflictStrategy.SUFFIX, 2);
+        Assert.assertEquals(results.get(0).getValue(), target + "/" + doc1 + "-1");
+        Assert.assertEquals(results.get(1).getValue(), source + "/" + doc2 + "-renamed");
+        Assert.assertEquals(results.get(2).getValue(), source + "/" + doc2);
+        Assert.assertFalse(results.get(3).isSuccessful());
+        Assert.assertFalse(content.getNodeRefByPath(userName, password, target + "/" + doc1 + "-1").isEmpty());
+        Assert.assertTrue(content.getNodeRefByPath(userName, password, source + "/" + doc3).isEmpty());
+        
+        relocations.clear();
+        relocations.add(Relocation.move(source + "/" + doc2, target));
+        relocations.add(Relocation.rename(target + "/" + doc1, doc1 + "-1"));
+        results = contentAction.relocate(userName, password, relocations, ConflictStrategy.SKIP, 2);
+        Assert.assertEquals(results.get(0).getValue(), target + "/" + doc2);
+        Assert.assertTrue(results.get(1).isSuccessful());
+        Assert.assertNull(results.get(1).getValue());
+        results = contentAction.relocate(userName, password, relocations.subList(1, 2), ConflictStrategy.FAIL, 2);
+        Assert.assertFalse(results.get(0).isSuccessful());
+    }
+    
+    @Test
+    public void relocateIntoFolderMovedFrom()
+    {
+        String suffix = String.valueOf(System.currentTimeMillis());
+        String folderA = "chainA" + suffix;
+        String folderB = "chainB" + suffix;
+        String folderC = "chainC" + suffix;
+        String doc = "chainDoc" + suffix;
+        content.createFolder(userName, password, folderA, siteName);
+        content.createFolder(userName, password, folderB, siteName);
+        content.createFolder(userName, password, folderC, siteName);
+        content.createDocumentInFolder(userName, password, siteName, folderA, DocumentType.TEXT_PLAIN, doc, doc);
+        content.createDocumentInFolder(userName, password, siteName, folderB, DocumentType.TEXT_PLAIN, doc, doc);
+        String docLib = "/Sites/" + siteName + "/documentLibrary/";
+        // the second move takes the name freed in B by the first one
+        List<Relocation> relocations = new ArrayList<Relocation>();
+        relocations.add(Relocation.move(docLib + folderB + "/" + doc, docLib + folderC));
+        relocations.add(Relocation.move(docLib + folderA + "/" + doc, docLib + folderB));
+        List<Result<Relocation, String>> results = contentAction.relocate(userName, password, relocations, ConflictStrategy.FAIL, 2);
+        Assert.assertEquals(results.get(0).getValue(), docLib + folderC + "/" + doc);
+        Assert.assertEquals(results.get(1).getValue(), docLib + folderB + "/" + doc);
+        Assert.assertTrue(content.getNodeRefByPath(userName, password, docLib + folderA + "/" + doc).isEmpty());
+    }
+    
+    @Test
+    public void relocateNameTakenInBothFolders()
+    {
+        String suffix = String.valueOf(System.currentTimeMillis());
+        String sourceFolder = "swapSource" + suffix;
+        String targetFolder = "swapTarget" + suffix;
+        String doc1 = "swapDoc1" + suffix;
+        String doc2 = "swapDoc2" + suffix;
+        content.createFolder(userName, password, sourceFolder, siteName);
+        content.createFolder(userName, password, targetFolder, siteName);
+        content.createDocumentInFolder(userName, password, siteName, sourceFolder, DocumentType.TEXT_PLAIN, doc1, doc1);
+        content.createDocumentInFolder(userName, password, siteName, sourceFolder, DocumentType.TEXT_PLAIN, doc2, doc2);
+        content.createDocumentInFolder(userName, password, siteName, targetFolder, DocumentType.TEXT_PLAIN, doc1, doc1);
+        String source = "/Sites/" + siteName + "/documentLibrary/" + sourceFolder;
+        String target = "/Sites/" + siteName + "/documentLibrary/" + targetFolder;
+        // doc1 is taken in the target folder and doc2 in the source folder
+        List<Relocation> relocations = new ArrayList<Relocation>();
+        relocations.add(new Relocation(source + "/" + doc1, target, doc2));
+        List<Result<Relocation, String>> results = contentAction.relocate(userName, password, relocations, ConflictStrategy.FAIL, 1);
+        Assert.assertTrue(results.get(0).isSuccessful());
+        Assert.assertEquals(results.get(0).getValue(), target + "/" + doc2);
+        Assert.assertFalse(content.getNodeRefByPath(userName, password, target + "/" + doc2).isEmpty());
+        Assert.assertFalse(content.getNodeRefByPath(userName, password, source + "/" + doc2).isEmpty());
+        Assert.assertTrue(content.getNodeRefByPath(userName, password, source + "/" + doc1).isEmpty());
+    }
+    
     @Test(expectedExceptions = CmisRuntimeException.class)
     public void moveFileNonExistentTarget()
     {
@@ -635,6 +937,62 @@ public class ContentActionsTests extends AbstractTest
         Assert.assertTrue(contentAction.removePermissionForUser(userName, password, siteName, permissionDoc, permissionUser, "SiteConsumer", false));
     }
     
+    @Test
+    public void applyPermissions()
+    {
+        String aclDoc1 = "aclDoc1" + System.currentTimeMillis();
+        String aclDoc2 = "aclDoc2" + System.currentTimeMillis();
+        content.createDocument(userName, password, siteName, DocumentType.TEXT_PLAIN, aclDoc1, aclDoc1);
+        content.createDocument(userName, password, siteName, DocumentType.TEXT_PLAIN, aclDoc2, aclDoc2);
+        List<NodePermissions> permissions = new ArrayList<NodePermissions>();
+        permissions.add(new NodePermissions("/Sites/" + siteName + "/documentLibrary/" + aclDoc1)
+                .setInheritPermissions(false)
+                .addPermission(permissionUser, "SiteCollaborator")
+                .addPermission("GROUP_" + group, "SiteConsumer"));
+        permissions.add(new NodePermissions(content.getNodeRef(userName, password, siteName, aclDoc2))
+                .addPermission(permissionUser, "SiteConsumer")
+                .removePermission(permissionUser, "SiteConsumer"));
+        permissions.add(new NodePermissions("/Sites/" + siteName + "/documentLibrary/fakeDoc")
+                .addPermission(permissionUser, "SiteConsumer"));
+        Report report = contentAction.applyPermissions(userName, password, permissions, 2);
+        Assert.assertEquals(report.getSucceeded(), 2);
+        Assert.assertEquals(report.getFailed(), 1);
+        Session session = contentAction.getCMISSession(userName, password);
+        Acl acl1 = session.getAcl(contentAction.getCmisObject(session, "/Sites/" + siteName + "/documentLibrary/" + aclDoc1), false);
+        Map<String, String> direct1 = getDirectPermissions(acl1);
+        Assert.assertTrue(String.valueOf(direct1.get(permissionUser)).contains("SiteCollaborator"), direct1.toString());
+        Assert.assertTrue(String.valueOf(direct1.get("GROUP_" + group)).contains("SiteConsumer"), direct1.toString());
+        // not inherited, the site permissions are gone
+        for(Ace ace : acl1.getAces())
+        {
+            Assert.assertTrue(ace.isDirect(), ace.getPrincipalId());
+        }
+        Acl acl2 = session.getAcl(contentAction.getCmisObject(session, "/Sites/" + siteName + "/documentLibrary/" + aclDoc2), false);
+        Assert.assertFalse(getDirectPermissions(acl2).containsKey(permissionUser));
+        boolean inherited = false;
+        for(Ace ace : acl2.getAces())
+        {
+            inherited |= !ace.isDirect();
+        }
+        Assert.assertTrue(inherited);
+    }
+
+    /**
+     * @return Map<String, String> permissions, joined, of the direct entries by authority
+     */
+    private Map<String, String> getDirectPermissions(final Acl acl)
+    {
+        Map<String, String> permissions = new HashMap<String, String>();
+        for(Ace ace : acl.getAces())
+        {
+            if(ace.isDirect())
+            {
+                permissions.merge(ace.getPrincipalId(), String.join(",", ace.getPermissions()), (a, b) -> a + "," + b);
+            }
+        }
+        return permissions;
+    }
+    
     @Test
     public void copyToByPath()
     {
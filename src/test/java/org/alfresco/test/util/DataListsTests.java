@@ -9,8 +9,10 @@ import org.alfresco.dataprep.CMISUtil.DocumentType;
 import org.alfresco.dataprep.CMISUtil.Priority;
 import org.alfresco.dataprep.CMISUtil.Status;
 import org.alfresco.dataprep.ContentService;
+import org.alfresco.dataprep.BatchExecutor.Report;
 import org.alfresco.dataprep.DataListsService;
 import org.alfresco.dataprep.DataListsService.DataList;
+import org.alfresco.dataprep.DataListsService.DataListLoadSpec;
 import org.alfresco.dataprep.SiteService;
 import org.alfresco.dataprep.SiteService.Visibility;
 import org.alfresco.dataprep.UserService;
@@ -185,4 +187,43 @@ public class DataListsTests extends AbstractTest
         Assert.assertFalse(id.getId().isEmpty());
         dataLists.deleteDataList(ADMIN, ADMIN, siteId, contactList);
     }
+    
+    @Test
+    public void dataListIdsAfterUpdate()
+    {
+        String issueList = "issues" + System.currentTimeMillis();
+        dataLists.createDataList(ADMIN, ADMIN, siteId, DataList.ISSUE_LIST, issueList, "issue description");
+        dataLists.clearDataListsCache();
+        String nodeRef = dataLists.getDataListNodeRef(ADMIN, ADMIN, siteId, issueList);
+        Assert.assertEquals(DataList.ISSUE_LIST, dataLists.getDataListType(ADMIN, ADMIN, siteId, issueList));
+        dataLists.updateDataList(ADMIN, ADMIN, siteId, issueList, issueList + "-new", "new desc");
+        Assert.assertEquals(nodeRef, dataLists.getDataListNodeRef(ADMIN, ADMIN, siteId, issueList + "-new"));
+        Assert.assertFalse(dataLists.getDataListName(ADMIN, ADMIN, siteId, issueList + "-new").isEmpty());
+    }
+    
+    @Test
+    public void getDataListTypeUnknownTitle()
+    {
+        Assert.assertNull(dataLists.getDataListType(ADMIN, ADMIN, siteId, "fakeList" + System.currentTimeMillis()));
+    }
+    
+    @Test
+    public void loadDataLists()
+    {
+        DataListLoadSpec spec = new DataListLoadSpec("load" + System.currentTimeMillis(), 7)
+                .setLists(DataList.CONTACT_LIST, 1, 10)
+                .setLists(DataList.ISSUE_LIST, 2, 5)
+                .setLists(DataList.TASKS_SIMPLE, 1, 5);
+        Report report = dataLists.loadDataLists(ADMIN, ADMIN, siteId, spec, 4);
+        Assert.assertEquals(0, report.getFailed());
+        Assert.assertEquals(4 + 10 + 10 + 5, report.getTotal());
+        Assert.assertFalse(dataLists.getDataListNodeRef(ADMIN, ADMIN, siteId, spec.getListTitle(DataList.ISSUE_LIST, 1)).isEmpty());
+    }
+    
+    @Test(expectedExceptions = RuntimeException.class)
+    public void loadDataListsInvalidSite()
+    {
+        DataListLoadSpec spec = new DataListLoadSpec("load", 7).setLists(DataList.CONTACT_LIST, 1, 1);
+        dataLists.loadDataLists(ADMIN, ADMIN, "fakeSite" + System.currentTimeMillis(), spec, 2);
+    }
 }
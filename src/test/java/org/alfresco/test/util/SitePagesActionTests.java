@@ -18,8 +18,10 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
+import org.alfresco.dataprep.BatchExecutor.Report;
 import org.alfresco.dataprep.DashboardCustomization.Page;
 import org.alfresco.dataprep.SitePagesService;
+import org.alfresco.dataprep.SitePagesService.SiteContentSpec;
 import org.alfresco.dataprep.SiteService;
 import org.alfresco.dataprep.SiteService.Visibility;
 import org.alfresco.dataprep.UserService;
@@ -259,6 +261,76 @@ public class SitePagesActionTests extends AbstractTest
         Assert.assertFalse(pageService.linkExists(user, password, theSite, linkTitle));
     }
     
+    @Test
+    public void findLinkAfterFirstPage()
+    {
+        String linkSite = "linkSite" + System.currentTimeMillis();
+        site.create(user, password, "mydomain", linkSite, linkSite, Visibility.PUBLIC);
+        for(int i = 0; i < 12; i++)
+        {
+            Assert.assertTrue(pageService.createLink(user, password, linkSite, "link-" + i, "link-" + i, "link-" + i, true, null));
+        }
+        pageService.invalidatePageItems(linkSite);
+        Assert.assertTrue(pageService.linkExists(user, password, linkSite, "link-0"));
+        Assert.assertTrue(pageService.linkExists(user, password, linkSite, "LINK-11"));
+        Assert.assertTrue(pageService.updateLink(user, password, linkSite, "link-0", "link-renamed", "url", "desc", true, null));
+        Assert.assertFalse(pageService.linkExists(user, password, linkSite, "link-0"));
+        Assert.assertTrue(pageService.linkExists(user, password, linkSite, "link-renamed"));
+    }
+    
+    @Test
+    public void generateSiteContent()
+    {
+        String contentSite = "contentSite" + System.currentTimeMillis();
+        site.create(user, password, "mydomain", contentSite, contentSite, Visibility.PUBLIC);
+        SiteContentSpec spec = new SiteContentSpec("gen", 7).setWikiPages(3).setBlogPosts(3).setLinks(3).setDiscussions(2).setEvents(3)
+                .setCommentsPerItem(2).setRepliesPerDiscussion(2).setTags(tags);
+        Report report = pageService.generateSiteContent(user, password, contentSite, spec, 4);
+        Assert.assertEquals(0, report.getFailed());
+        Assert.assertEquals(14 + 12 + 4, report.getSucceeded());
+        Assert.assertTrue(pageService.wikiExists(user, password, contentSite, spec.getTitle(Page.WIKI, 2)));
+        Assert.assertTrue(pageService.linkExists(user, password, contentSite, spec.getTitle(Page.LINKS, 0)));
+        Assert.assertEquals(2, pageService.getBlogComments(user, password, contentSite, spec.getTitle(Page.BLOG, 1)).size());
+        Assert.assertEquals(2, pageService.getDiscussionReplies(user, password, contentSite, spec.getTitle(Page.DISCUSSIONS, 0)).size());
+    }
+    
+    @Test
+    public void createCommentThreads()
+    {
+        String topicTitle = "topicThread-" + System.currentTimeMillis();
+        String blogTitle = "blogThread-" + System.currentTimeMillis();
+        Assert.assertTrue(pageService.createDiscussion(user, password, theSite, topicTitle, topicTitle, null));
+        Assert.assertTrue(pageService.createBlogPost(user, password, theSite, blogTitle, blogTitle, false, null));
+        Report replies = pageService.createCommentThread(user, password, theSite, Page.DISCUSSIONS, topicTitle, "reply", 2, 3, 4);
+        Assert.assertEquals(3 + 9, replies.getSucceeded());
+        Assert.assertEquals(3 + 9, pageService.countComments(user, password, theSite, Page.DISCUSSIONS, topicTitle));
+        Report comments = pageService.createCommentThread(user, password, theSite, Page.BLOG, blogTitle, "comment", 1, 5, 4);
+        Assert.assertEquals(5, comments.getSucceeded());
+        Assert.assertEquals(5, pageService.countComments(user, password, theSite, Page.BLOG, blogTitle));
+    }
+    
+    @Test
+    public void countCommentsOverPageSize()
+    {
+        String linkTitle = "countLink" + System.currentTimeMillis();
+        Assert.assertTrue(pageService.createLink(user, password, theSite, linkTitle, linkTitle, linkTitle, true, null));
+        Report comments = pageService.createCommentThread(user, password, theSite, Page.LINKS, linkTitle, "comment", 1, 12, 4);
+        Assert.assertEquals(12, comments.getSucceeded());
+        Assert.assertEquals(12, pageService.countComments(user, password, theSite, Page.LINKS, linkTitle));
+    }
+    
+    @Test(expectedExceptions = RuntimeException.class)
+    public void createCommentThreadInvalidItem()
+    {
+        pageService.createCommentThread(user, password, theSite, Page.LINKS, "fakeLink", "comment", 1, 2, 2);
+    }
+    
+    @Test(expectedExceptions = RuntimeException.class)
+    public void generateSiteContentInvalidSite()
+    {
+        pageService.generateSiteContent(user, password, "fakeSite", new SiteContentSpec("gen", 7).setBlogPosts(1), 2);
+    }
+    
     @Test(expectedExceptions = RuntimeException.class)
     public void deleteLinkInvalidLink()
     {
@@ -94,6 +94,22 @@ public class SiteTest extends AbstractTest
         Assert.assertTrue(exists);
     }
     
+    @Test(dependsOnMethods="create")
+    public void getDocumentLibraryNodeRef()
+    {
+        Assert.assertFalse(site.getDocumentLibraryNodeRef(ADMIN, ADMIN, siteId).isEmpty());
+        Assert.assertEquals(site.getSiteMetadata(ADMIN, ADMIN, siteId).getVisibility(), Visibility.PUBLIC);
+    }
+    
+    @Test(dependsOnMethods="create")
+    public void warmSiteCache()
+    {
+        site.clearSiteCache();
+        Assert.assertTrue(site.warmSiteCache(ADMIN, ADMIN) > 0);
+        Assert.assertTrue(site.exists(siteId, ADMIN, ADMIN));
+        Assert.assertEquals(site.getSiteNodeRef(ADMIN, ADMIN, siteId), site.getSiteMetadata(ADMIN, ADMIN, siteId).getGuid());
+    }
+    
     @Test
     public void fakeSiteDoesNotExists()
     {
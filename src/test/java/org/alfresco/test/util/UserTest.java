@@ -14,7 +14,11 @@
  */
 package org.alfresco.test.util;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.alfresco.dataprep.CMISUtil.DocumentType;
 import org.alfresco.dataprep.ContentService;
@@ -22,9 +26,12 @@ import org.alfresco.dataprep.DashboardCustomization.DashletLayout;
 import org.alfresco.dataprep.DashboardCustomization.UserDashlet;
 import org.alfresco.dataprep.SiteService;
 import org.alfresco.dataprep.SiteService.Visibility;
+import org.alfresco.dataprep.BatchExecutor.Report;
 import org.alfresco.dataprep.UserService;
+import org.alfresco.dataprep.UserService.Category;
 import org.apache.chemistry.opencmis.client.api.Document;
 import org.apache.chemistry.opencmis.client.api.Folder;
+import org.apache.commons.httpclient.HttpState;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
@@ -240,6 +247,8 @@ public class UserTest extends AbstractTest
         Assert.assertTrue(userService.createSiteMember(userManager, password, userToInvite, siteName, "SiteConsumer"));
         int noOfSiteMembers=userService.countSiteMembers(userManager, password, siteName);
         Assert.assertEquals(noOfSiteMembers, 2);
+        Assert.assertEquals(userService.countSiteMembers(userManager, password, siteName, "SiteConsumer"), 1);
+        Assert.assertEquals(userService.countSiteMembers(userManager, password, siteName, "SiteCollaborator"), 0);
     }
     
     @Test
@@ -267,6 +276,20 @@ public class UserTest extends AbstractTest
         Assert.assertTrue(userService.addDashlet(theUser, password, UserDashlet.SITE_SEARCH, DashletLayout.FOUR_COLUMNS, 4, 4));
     }
     
+    @Test
+    public void reuseShareSession()
+    {
+        String theUser = "shareSession" + System.currentTimeMillis();
+        userService.create(ADMIN, ADMIN, theUser, password, theUser + domain, firstName, lastName);
+        HttpState session = userService.getShareSession(theUser, password);
+        Assert.assertSame(userService.getShareSession(theUser, password), session);
+        Assert.assertTrue(userService.addDashlet(theUser, password, UserDashlet.WEB_VIEW, DashletLayout.THREE_COLUMNS, 3, 1));
+        Assert.assertSame(userService.getShareSession(theUser, password), session);
+        userService.invalidateShareSession(theUser);
+        Assert.assertNotSame(userService.getShareSession(theUser, password), session);
+        Assert.assertTrue(userService.addDashlet(theUser, password, UserDashlet.MY_SITES, DashletLayout.THREE_COLUMNS, 3, 2));
+    }
+    
     @Test
     public void addDashletToInvalidUser()
     {   
@@ -364,6 +387,32 @@ public class UserTest extends AbstractTest
         Assert.assertTrue(following.contains(userToFollow3));
     }
     
+    @Test
+    public void createFollowGraph()
+    {
+        List<String> users = new ArrayList<String>();
+        for(int i = 0; i < 5; i++)
+        {
+            String graphUser = "graphUser-" + i + System.currentTimeMillis();
+            userService.create(ADMIN, ADMIN, graphUser, password, graphUser, firstName, lastName);
+            users.add(graphUser);
+        }
+        Map<String, List<String>> graph = userService.generateFollowGraph(users, 1, 3, 1.0, 42);
+        Assert.assertEquals(graph, userService.generateFollowGraph(users, 1, 3, 1.0, 42));
+        Assert.assertEquals(userService.createFollowGraph(password, graph, 3).getFailed(), 0);
+        Assert.assertEquals(userService.verifyFollowGraph(password, graph, 3).getFailed(), 0);
+        String firstFollower = users.get(1);
+        Assert.assertEquals(userService.countFollowingUsers(firstFollower, password), graph.get(firstFollower).size());
+        Assert.assertTrue(userService.getFollowingUsers(firstFollower, password).containsAll(graph.get(firstFollower)));
+        // the same number of followed users, but not the right ones
+        List<String> notFollowed = new ArrayList<String>(users);
+        notFollowed.removeAll(graph.get(firstFollower));
+        notFollowed.remove(firstFollower);
+        Map<String, List<String>> wrongGraph = new HashMap<String, List<String>>();
+        wrongGraph.put(firstFollower, notFollowed.subList(0, 1));
+        Assert.assertEquals(userService.verifyFollowGraph(password, wrongGraph, 1).getFailed(), 1);
+    }
+    
     @Test
     public void followInvalidUser()
     {
@@ -446,6 +495,21 @@ public class UserTest extends AbstractTest
         Assert.assertTrue(userService.deleteCategory(ADMIN, ADMIN, rootCateg));
     }
     
+    @Test
+    public void loadTaxonomy()
+    {
+        String prefix = "taxonomy" + System.currentTimeMillis();
+        List<Category> roots = userService.generateTaxonomy(prefix, 2, 2);
+        Map<String, String> index = userService.loadTaxonomy(ADMIN, ADMIN, roots, 2);
+        Assert.assertEquals(index.size(), 6);
+        Assert.assertTrue(userService.categoryExists(ADMIN, ADMIN, prefix + "-1-2"));
+        String doc = "classifyDoc" + System.currentTimeMillis();
+        Document document = contentService.createDocument(globalUser, password, globalSite, DocumentType.TEXT_PLAIN, doc, doc);
+        Map<String, List<String>> classification = new HashMap<String, List<String>>();
+        classification.put(document.getId(), Arrays.asList(prefix + "-1", prefix + "-2-1"));
+        Assert.assertEquals(userService.classifyContent(ADMIN, ADMIN, classification, index, 2).getFailed(), 0);
+    }
+    
     @Test(expectedExceptions = RuntimeException.class)
     public void deleteInvalidCategory()
     {
@@ -511,6 +575,31 @@ public class UserTest extends AbstractTest
         Assert.assertFalse(contentService.getNodeRef(globalUser, password, globalSite, doc).isEmpty());
     }
     
+    @Test
+    public void purgeAndRestoreTrashcanItems()
+    {
+        String trashUser = "trashUser" + System.currentTimeMillis();
+        String trashSite = "trashSite" + System.currentTimeMillis();
+        userService.create(ADMIN, ADMIN, trashUser, password, trashUser + domain, firstName, lastName);
+        site.create(trashUser, password, "mydomain", trashSite, trashSite, Visibility.PUBLIC);
+        for(int i = 0; i < 3; i++)
+        {
+            contentService.createDocument(trashUser, password, trashSite, DocumentType.TEXT_PLAIN, "purge" + i, "purge");
+            contentService.deleteDocument(trashUser, password, trashSite, "purge" + i);
+        }
+        contentService.createDocument(trashUser, password, trashSite, DocumentType.TEXT_PLAIN, "restore", "restore");
+        contentService.deleteDocument(trashUser, password, trashSite, "restore");
+        Report purged = userService.purgeFromTrashcan(trashUser, password,
+                UserService.trashcanFilter("purge.*", null, null, trashUser), 2, null);
+        Assert.assertEquals(purged.getSucceeded(), 3);
+        Assert.assertEquals(purged.getFailed(), 0);
+        List<String> items = userService.getItemsNameFromTrashcan(trashUser, password);
+        Assert.assertEquals(items.size(), 1);
+        Report restored = userService.restoreFromTrashcan(trashUser, password, null, 2, null);
+        Assert.assertEquals(restored.getSucceeded(), 1);
+        Assert.assertFalse(contentService.getNodeRef(trashUser, password, trashSite, "restore").isEmpty());
+    }
+    
     @Test
     public void deleteTrashcanFakeItem()
     {
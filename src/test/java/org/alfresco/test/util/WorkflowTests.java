@@ -15,9 +15,11 @@
 package org.alfresco.test.util;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
+import org.alfresco.dataprep.BatchExecutor.Result;
 import org.alfresco.dataprep.CMISUtil.DocumentType;
 import org.alfresco.dataprep.CMISUtil.Priority;
 import org.alfresco.dataprep.ContentService;
@@ -27,7 +29,14 @@ import org.alfresco.dataprep.SiteService;
 import org.alfresco.dataprep.SiteService.Visibility;
 import org.alfresco.dataprep.UserService;
 import org.alfresco.dataprep.WorkflowService;
+import org.alfresco.dataprep.WorkflowSimulationService;
+import org.alfresco.dataprep.WorkflowSimulationService.SimulatedProcess;
+import org.alfresco.dataprep.WorkflowSimulationService.SimulationReport;
+import org.alfresco.dataprep.WorkflowSimulationService.Transition;
+import org.alfresco.dataprep.WorkflowSimulationService.TransitionModel;
 import org.alfresco.dataprep.WorkflowService.TaskStatus;
+import org.alfresco.dataprep.WorkflowService.WorkflowSpec;
+import org.alfresco.dataprep.WorkflowService.WorkflowType;
 import org.junit.Assert;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.testng.annotations.BeforeClass;
@@ -52,6 +61,8 @@ public class WorkflowTests extends AbstractTest
     GroupService groupService;
     @Autowired
     SitePagesService sitePages;
+    @Autowired
+    WorkflowSimulationService simulation;
     private String workflowUser = "workflowUser" + System.currentTimeMillis();
     private String workflowSite = "workflowSite" + System.currentTimeMillis();
     private String plainDoc = "plainDoc";
@@ -92,6 +103,39 @@ public class WorkflowTests extends AbstractTest
         Assert.assertTrue(!taskId.isEmpty());
     }
 
+    @Test
+    public void startWorkflows()
+    {
+        List<WorkflowSpec> specs = new ArrayList<WorkflowSpec>();
+        specs.add(new WorkflowSpec(WorkflowType.NewTask, "bulkNewTask", new Date(), Priority.High)
+                .setAssignees(Arrays.asList(workflowUser)).setDocuments(workflowSite, docs).setSendEmail(false));
+        specs.add(new WorkflowSpec(WorkflowType.SingleReviewer, "bulkReview", new Date(), Priority.Low)
+                .setAssignees(Arrays.asList(workflowUser)).setPathsToDocs(pathToItems));
+        specs.add(new WorkflowSpec(WorkflowType.GroupReview, "bulkGroupReview", new Date(), Priority.Normal)
+                .setAssignedGroup(groupName).setDocuments(workflowSite, docs).setRequiredApprovePercent(50));
+        specs.add(new WorkflowSpec(WorkflowType.MultipleReviewers, "bulkMultipleReviewers", new Date(), Priority.High)
+                .setAssignees(reviewers).setPathsToDocs(pathToItems).setRequiredApprovePercent(100));
+        List<Result<WorkflowSpec, String>> results = workflow.startWorkflows(workflowUser, password, specs, 2);
+        Assert.assertEquals(specs.size(), results.size());
+        for(Result<WorkflowSpec, String> result : results)
+        {
+            Assert.assertTrue(result.isSuccessful());
+            Assert.assertFalse(result.getValue().isEmpty());
+        }
+        Assert.assertEquals("bulkReview", results.get(1).getItem().getMessage());
+        Assert.assertFalse(workflow.getTaskId(workflowUser, password, results.get(0).getValue()).isEmpty());
+    }
+
+    @Test
+    public void processDefinitions()
+    {
+        Assert.assertTrue(workflow.warmProcessDefinitions().join() >= WorkflowType.values().length);
+        String id = workflow.getProcessDefinitionId(WorkflowType.NewTask.getProcessDefinitionKey());
+        Assert.assertTrue(id.startsWith(WorkflowType.NewTask.getProcessDefinitionKey() + ":"));
+        Assert.assertEquals(id, WorkflowType.NewTask.getId());
+        Assert.assertNull(workflow.getProcessDefinitionId("notDeployed" + System.currentTimeMillis()));
+    }
+
     @Test
     public void createNewTaskItemsByPath()
     {
@@ -188,6 +232,35 @@ public class WorkflowTests extends AbstractTest
         Assert.assertTrue(workflow.taskDone(workflowUser, password, workflowId, TaskStatus.IN_PROGRESS, "completed by " + workflowUser));
     }
 
+    @Test
+    public void completeTaskById()
+    {
+        String workflowId = workflow.startNewTask(workflowUser, password, "completeTaskById", new Date(), workflowUser, Priority.High, workflowSite, docs, false);
+        String taskId = workflow.getTaskId(workflowUser, password, workflowId);
+        Assert.assertTrue(workflow.updateTaskStatusById(workflowUser, password, taskId, TaskStatus.IN_PROGRESS));
+        Assert.assertTrue(workflow.taskDoneById(workflowUser, password, taskId, TaskStatus.COMPLETED, "completed by id"));
+        // the cached id of the completed task is dropped, the review task of the initiator is looked up
+        Assert.assertTrue(workflow.taskDone(workflowUser, password, workflowId, TaskStatus.COMPLETED, "review done"));
+    }
+
+    @Test
+    public void simulateWorkflows()
+    {
+        List<SimulatedProcess> processes = new ArrayList<SimulatedProcess>();
+        processes.add(new SimulatedProcess(workflow.startSingleReview(workflowUser, password, "simulateReview", new Date(), reviewer1, Priority.High,
+                workflowSite, docs, false), workflowUser));
+        processes.add(new SimulatedProcess(workflow.startMultipleReviewers(workflowUser, password, "simulateMultiple", new Date(), reviewers, Priority.Low,
+                workflowSite, docs, 50, false), workflowUser));
+        processes.add(new SimulatedProcess(workflow.startPooledReview(workflowUser, password, "simulatePooled", new Date(), groupName, Priority.Normal,
+                pathToItems, false), workflowUser).setCandidates(Arrays.asList(workflowUser)));
+        TransitionModel model = new TransitionModel(70, 20, 10).setReassignTo(reviewers).setThinkTime(0, 100).setSeed(42);
+        SimulationReport report = simulation.simulate(password, processes, model, 3);
+        Assert.assertEquals(3, report.getProcesses().getSucceeded());
+        Assert.assertTrue(report.getCount(Transition.CLAIM) >= 1);
+        Assert.assertTrue(report.getCount(Transition.COMPLETE) >= 3);
+        Assert.assertTrue(workflow.getProcessTasks(workflowUser, password, processes.get(0).getWorkflowId()).isEmpty());
+    }
+
     @Test(expectedExceptions = RuntimeException.class)
     public void completeTaskInvalidProcess()
     {
@@ -212,6 +285,21 @@ public class WorkflowTests extends AbstractTest
         Assert.assertTrue(workflow.claimTask(user1, password, workflowId));
     }
 
+    @Test(expectedExceptions = RuntimeException.class)
+    public void claimPooledTaskClaimedByOtherCandidate()
+    {
+        String user1 = "user-1" + System.currentTimeMillis();
+        userService.create(ADMIN, ADMIN, user1, password, workflowUser + domain, "1", "usr");
+        groupService.addUserToGroup(ADMIN, ADMIN, groupName, user1);
+        String workflowId = workflow.startPooledReview(workflowUser, password, "pooledCandidates", new Date(), groupName, Priority.High, pathToItems, false);
+        // both candidates see the unclaimed task, none of them gets it cached
+        Assert.assertFalse(workflow.getTaskId(user1, password, workflowId).isEmpty());
+        Assert.assertFalse(workflow.getTaskId(workflowUser, password, workflowId).isEmpty());
+        Assert.assertTrue(workflow.claimTask(workflowUser, password, workflowId));
+        Assert.assertTrue(workflow.updateTaskStatus(workflowUser, password, workflowId, TaskStatus.IN_PROGRESS));
+        workflow.claimTask(user1, password, workflowId);
+    }
+
     @Test
     public void reasignPooledTask()
     {